@@ -3,16 +3,38 @@ package quickcheck;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigInteger;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
+import quickcheck.coverage.Coverage;
+import quickcheck.exception.CallDepthException;
+import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.frame.FrameLayout;
+import quickcheck.frame.SlotFrame;
 import quickcheck.generator.GenerateTest;
 import quickcheck.generator.RandomGenerateTest;
+import quickcheck.intrinsic.Intrinsic;
+import quickcheck.intrinsic.Intrinsics;
+import quickcheck.intrinsic.StandardLibrary;
+import quickcheck.shard.Shard;
+import quickcheck.util.InternedValues;
+import quickcheck.util.InvariantCache;
+import quickcheck.util.OptimisationBudget;
+import quickcheck.util.PurityAnalysis;
+import quickcheck.util.ValueInterner;
 import wybs.lang.Build;
 import wybs.lang.NameID;
 import wybs.lang.NameResolver.ResolutionError;
@@ -51,8 +73,16 @@ public class QCInterpreter extends Interpreter {
 	/** Number of values generated for function optimisation */
 	public static final int NUM_GEN_FUNC_OPT = 5;
 	public static final boolean FUNCTION_OPTIMISATION = false;
+	/** Number of calls of a function the generator of its return values is used for, before it is created again */
+	public static final int RETURN_GENERATOR_CALLS = 32;
 	/** Whether function outputs are cached when the same function input is given*/
 	public static final boolean FUNCTION_MEMOISATION = false;
+	/** Number of nested calls executed on the calling thread when the call depth is limited, which may have a small stack */
+	public static final int CALLS_ON_CALLING_THREAD = 16;
+	/** Number of nested calls executed on each new thread when the call depth is limited */
+	public static final int CALLS_PER_SEGMENT = 256;
+	/** Size of the stack of each new thread the nested calls are executed on, in bytes */
+	public static final long SEGMENT_STACK_SIZE = 64 * 1024 * 1024;
 
 	/**
 	 * The build project provides access to compiled WyIL files.
@@ -77,9 +107,15 @@ public class QCInterpreter extends Interpreter {
 	private final PrintStream debug;
 	
 	/** A map from function name to a map of inputs to outputs */ 
-	private final Map<Decl.Callable, Map<List<RValue>, RValue[]>> functionParameters;
+	private final Map<Decl.Callable, Map<ValueInterner.Key, RValue[]>> functionParameters;
+	/**Creates the keys of the arguments of the memoised calls*/
+	private final ValueInterner memoKeys;
+	/**Finds the functions, methods and properties whose calls can be memoised*/
+	private final PurityAnalysis purity;
+	/**The number of calls whose return values were found in the memoised calls*/
+	private int memoHits;
 	
-	/** Store a list of functions that are called recursively */
+	/** Store the functions being executed, or whose postconditions are being checked for generated return values, which are called normally */
 	private Set<Identifier> recursiveInvariantFunctions;
 	
 	/**Integer limits for test generation between lower limit (inclusive) and upper limit(exclusive)*/
@@ -90,9 +126,42 @@ public class QCInterpreter extends Interpreter {
 	private final int numRandomFuncValGen;
 	/**Flag whether function optimisation should be executed or not*/
 	private final boolean funcOptimisation;
+	/**The generator of the return values of each function optimised*/
+	private final Map<Decl.Callable, GenerateTest> returnGenerators;
+	/**Whether generating the return values of each function optimised is worthwhile*/
+	private final Map<Decl.Callable, OptimisationBudget> optimisationBudgets;
 	/**Flag whether function memoisation/caching should be applied or not*/
 	private final boolean funcMemoisation;
 	private boolean invariantCheck;
+	/**The statements and branches executed, null when coverage is not recorded*/
+	private Coverage coverage;
+	/**Whether the values checked meet the invariants of nominal types*/
+	private final InvariantCache invariantCache;
+	/**
+	 * Arrays copied by an element write in the call being executed, which are only held by one local variable,
+	 * so can be written in place. Null until the call copies an array, and dropped when the call returns.
+	 */
+	private Set<RValue.Array> ownedArrays;
+	/**The slots of the local variables of each function or method executed*/
+	private final Map<Decl.Callable, FrameLayout> layouts;
+	/**The local variables of the function or method being executed, null when none is executed*/
+	private SlotFrame slots;
+	/**The variables of the enclosing scope used by each lambda*/
+	private final Map<Decl.Lambda, Decl.Variable[]> capturedVariables;
+	/**The Java implementations executed instead of the bodies of functions and methods*/
+	private Intrinsics intrinsics;
+	/**The maximum depth of nested calls, or 0 if the calls are only limited by the Java stack*/
+	private int maxCallDepth;
+	/**The depth of the calls being executed*/
+	private int callDepth;
+	/**The randomiser of the return values generated for function optimisation*/
+	private final Random randomiser;
+	/**The number of statements and expressions executed, and values generated for function optimisation, which measures the work of a call*/
+	private long steps;
+	/**The number of calls being measured for function optimisation, the steps are only counted while a call is measured*/
+	private int measuredCalls;
+	/**The worker thread executing the calls of each segment, when the call depth is limited*/
+	private final List<ExecutorService> segments;
 	
 	public QCInterpreter(Build.Project project, PrintStream debug, BigInteger lowerLimit, BigInteger upperLimit, boolean funcMemo,  boolean funcOpt, int numFuncOpGen) {
 		super(project, debug);
@@ -100,7 +169,9 @@ public class QCInterpreter extends Interpreter {
 		this.debug = debug;
 		this.typeSystem = new TypeSystem(project);
 		this.semantics = new ConcreteSemantics();
-		this.functionParameters = new HashMap<Decl.Callable, Map<List<RValue>, RValue[]>>();
+		this.functionParameters = new IdentityHashMap<Decl.Callable, Map<ValueInterner.Key, RValue[]>>();
+		this.memoKeys = new ValueInterner();
+		this.purity = new PurityAnalysis(typeSystem);
 		this.recursiveInvariantFunctions = new HashSet<Identifier>();
 		this.lowerLimit = lowerLimit;
 		this.upperLimit = upperLimit;
@@ -113,7 +184,15 @@ public class QCInterpreter extends Interpreter {
 			this.funcOptimisation = funcOpt;
 		}
 		this.funcMemoisation = funcMemo;
+		this.returnGenerators = new IdentityHashMap<Decl.Callable, GenerateTest>();
+		this.optimisationBudgets = new IdentityHashMap<Decl.Callable, OptimisationBudget>();
 		this.invariantCheck = false;
+		this.invariantCache = new InvariantCache(typeSystem);
+		this.layouts = new IdentityHashMap<Decl.Callable, FrameLayout>();
+		this.segments = new ArrayList<ExecutorService>();
+		this.randomiser = new Random();
+		this.capturedVariables = new IdentityHashMap<Decl.Lambda, Decl.Variable[]>();
+		this.intrinsics = StandardLibrary.create(debug);
 	}
 	
 	public QCInterpreter(Build.Project project, PrintStream debug) {
@@ -122,14 +201,161 @@ public class QCInterpreter extends Interpreter {
 		this.debug = debug;
 		this.typeSystem = new TypeSystem(project);
 		this.semantics = new ConcreteSemantics();
-		this.functionParameters = new HashMap<Decl.Callable, Map<List<RValue>, RValue[]>>();
+		this.functionParameters = new IdentityHashMap<Decl.Callable, Map<ValueInterner.Key, RValue[]>>();
+		this.memoKeys = new ValueInterner();
+		this.purity = new PurityAnalysis(typeSystem);
 		this.recursiveInvariantFunctions = new HashSet<Identifier>();
 		this.lowerLimit = BigInteger.valueOf(RunTest.INT_LOWER_LIMIT);
 		this.upperLimit = BigInteger.valueOf(RunTest.INT_UPPER_LIMIT);
 		this.numRandomFuncValGen = NUM_GEN_FUNC_OPT;
 		this.funcOptimisation = FUNCTION_OPTIMISATION;
 		this.funcMemoisation = FUNCTION_MEMOISATION;
+		this.returnGenerators = new IdentityHashMap<Decl.Callable, GenerateTest>();
+		this.optimisationBudgets = new IdentityHashMap<Decl.Callable, OptimisationBudget>();
 		this.invariantCheck = false;
+		this.invariantCache = new InvariantCache(typeSystem);
+		this.layouts = new IdentityHashMap<Decl.Callable, FrameLayout>();
+		this.segments = new ArrayList<ExecutorService>();
+		this.randomiser = new Random();
+		this.capturedVariables = new IdentityHashMap<Decl.Lambda, Decl.Variable[]>();
+		this.intrinsics = StandardLibrary.create(debug);
+	}
+
+	/**
+	 * Set where the statements and branches executed are recorded.
+	 * @param coverage The coverage to record into, or null to stop recording coverage
+	 */
+	public void setCoverage(Coverage coverage) {
+		this.coverage = coverage;
+	}
+	
+	/**
+	 * Get where the statements and branches executed are recorded.
+	 * @return The coverage recorded, or null if coverage is not recorded
+	 */
+	public Coverage getCoverage() {
+		return coverage;
+	}
+
+	/**
+	 * Set the Java implementations executed instead of the bodies of functions and methods.
+	 * @param intrinsics The implementations, which are the standard library's by default
+	 */
+	public void setIntrinsics(Intrinsics intrinsics) {
+		this.intrinsics = intrinsics;
+	}
+
+	/**
+	 * Get the Java implementations executed instead of the bodies of functions and methods.
+	 * @return The implementations
+	 */
+	public Intrinsics getIntrinsics() {
+		return intrinsics;
+	}
+
+	/**
+	 * Set the maximum depth of nested function and method calls.
+	 * When the depth is limited, the nested calls are split into segments
+	 * which are executed on threads with large stacks, so deep recursion
+	 * is limited by the depth rather than the stack of the thread executing the tests.
+	 * @param maxCallDepth The maximum depth, or 0 if the calls are only limited by the Java stack
+	 */
+	public void setMaxCallDepth(int maxCallDepth) {
+		this.maxCallDepth = maxCallDepth;
+	}
+
+	/**
+	 * Get the maximum depth of nested function and method calls.
+	 * @return The maximum depth, or 0 if the calls are only limited by the Java stack
+	 */
+	public int getMaxCallDepth() {
+		return maxCallDepth;
+	}
+
+	/**
+	 * Record the values a function returns for some arguments, which were verified by testing the function,
+	 * so the calls with the same arguments are not executed again when the calls are memoised.
+	 * @param decl The function, method or property tested
+	 * @param args The arguments
+	 * @param returns The values returned
+	 */
+	public void addVerifiedResult(Decl.Callable decl, RValue[] args, RValue[] returns) {
+		if(funcMemoisation && purity.isPure(decl)) {
+			getFunctionIO(decl).put(memoKeys.key(args), returns);
+		}
+	}
+
+	/**
+	 * Get the number of calls whose return values were found in the memoised calls,
+	 * instead of executing the function.
+	 * @return The number of calls
+	 */
+	public int getMemoHits() {
+		return memoHits;
+	}
+
+	/**
+	 * Get the memoised calls of a function, method or property.
+	 * @param decl The function, method or property
+	 * @return The values returned for each of the arguments called with
+	 */
+	private Map<ValueInterner.Key, RValue[]> getFunctionIO(Decl.Callable decl) {
+		Map<ValueInterner.Key, RValue[]> functionIO = functionParameters.get(decl);
+		if(functionIO == null) {
+			functionIO = new HashMap<ValueInterner.Key, RValue[]>();
+			functionParameters.put(decl, functionIO);
+		}
+		return functionIO;
+	}
+
+	/**
+	 * Get the record of generating the return values of a function, instead of calling it.
+	 * @param decl The function
+	 * @return Whether generating its return values is worthwhile
+	 */
+	public OptimisationBudget getOptimisationBudget(Decl.Callable decl) {
+		OptimisationBudget budget = optimisationBudgets.get(decl);
+		if(budget == null) {
+			budget = new OptimisationBudget();
+			optimisationBudgets.put(decl, budget);
+		}
+		return budget;
+	}
+
+	/**
+	 * Set the seed of the return values generated for function optimisation,
+	 * forgetting the generators and the records of generating the return values,
+	 * so the same calls are generated or executed each time the tests are run with the seed.
+	 * @param seed The seed
+	 */
+	public void setSeed(long seed) {
+		randomiser.setSeed(seed);
+		returnGenerators.clear();
+		optimisationBudgets.clear();
+	}
+
+	/**
+	 * Get the generator of the return values of a function,
+	 * which is shared by its calls until it has generated its values.
+	 * @param fun The function
+	 * @return The generator
+	 * @throws IntegerRangeException
+	 */
+	private GenerateTest getReturnGenerator(Decl.FunctionOrMethod fun) throws IntegerRangeException {
+		GenerateTest testGen = returnGenerators.get(fun);
+		if(testGen == null || testGen.exceedSize()) {
+			testGen = new RandomGenerateTest(fun.getReturns(), this, numRandomFuncValGen * RETURN_GENERATOR_CALLS, lowerLimit, upperLimit, randomiser, Shard.ALL);
+			returnGenerators.put(fun, testGen);
+		}
+		return testGen;
+	}
+
+	/**
+	 * Get the cache of the values checked against the invariants of nominal types.
+	 * @return The invariant cache
+	 */
+	public InvariantCache getInvariantCache() {
+		return invariantCache;
 	}
 
 	private enum Status {
@@ -163,13 +389,21 @@ public class QCInterpreter extends Interpreter {
 				Decl.Callable.class);
 		// Evaluate argument expressions
 		RValue[] arguments = executeExpressions(expr.getOperands(), frame);
-		Map<List<RValue>, RValue[]> functionIO = null;
-		List<RValue> argList = null;
-		if(funcMemoisation && !(decl instanceof Decl.Method)) {
-			functionIO = functionParameters.getOrDefault(decl, new HashMap<List<RValue>, RValue[]>());
-			argList = Arrays.asList(arguments);
-			if(functionIO.containsKey(argList)){
-				return functionIO.get(argList);
+		// Java implementations are executed directly
+		if(intrinsics.get(decl) != null) {
+			return execute(decl.getQualifiedName().toNameID(), decl.getType(), frame, arguments);
+		}
+		Map<ValueInterner.Key, RValue[]> functionIO = null;
+		ValueInterner.Key argKey = null;
+		// Only calls without effects are memoised
+		boolean memoise = funcMemoisation && purity.isPure(decl);
+		if(memoise) {
+			functionIO = getFunctionIO(decl);
+			argKey = memoKeys.key(arguments);
+			RValue[] returns = functionIO.get(argKey);
+			if(returns != null){
+				memoHits++;
+				return returns;
 			}
 		}
 		/*
@@ -178,70 +412,138 @@ public class QCInterpreter extends Interpreter {
 		 * Only optimise if it is a function.
 		 * Also do not optimise if we are checking invariants.
 		 */
+		OptimisationBudget budget = null;
 		if(funcOptimisation && !this.invariantCheck && decl instanceof Decl.Function) {
-			Identifier funcName = decl.getName();
 			Decl.FunctionOrMethod fun = ((Decl.FunctionOrMethod) decl);
-			if(!recursiveInvariantFunctions.contains(funcName)) {
-				// Every function should return the same output for the same input
-				Tuple<Expr> postconditions = fun.getEnsures();
-				Tuple<Decl.Variable> outputParameters = fun.getReturns();
-				// Generate until the return type meets the postcondition
-				// If it is unable to generate after a certain number of times,
-				// just call the function/method instead 
-				CallStack enteredFrame = frame.enter(fun);
-				extractParameters(enteredFrame, arguments, fun);
-				try {
-					// Generator for the return values of the function
-					GenerateTest testGen = new RandomGenerateTest(fun.getReturns(), this, numRandomFuncValGen, lowerLimit, upperLimit);
+			if(!recursiveInvariantFunctions.contains(fun.getName())) {
+				// Only generate while the generated values often meet the postcondition
+				// and are cheaper than calling the function
+				budget = getOptimisationBudget(fun);
+				if(budget.shouldGenerate()) {
+					long start = steps;
 					RValue[] returns;
-					boolean isValid = false;
-					for(int i=0; i < numRandomFuncValGen; i++) {
-						// Need to reset frame to remove the old inputs
-						CallStack tempFrame = enteredFrame.clone();						
-						// Create a generator for the return type of the function based on the input
-						returns = testGen.generateParameters();
-						try {
-							for(int j=0; j < outputParameters.size(); j++) {
-								Decl.Variable parameter = outputParameters.get(j);
-								Type paramType = parameter.getType();
-								isValid = RunTest.checkInvariant(this, paramType, returns[j]);
-								if(!isValid) {
-									break;
-								}
-								tempFrame.putLocal(parameter.getName(), returns[j]);
-							}
-							recursiveInvariantFunctions.add(funcName);
-							this.checkInvariants(frame, postconditions);
-						}
-						catch(AssertionError e) {
-							isValid = false;
-						}
-						catch(RuntimeException e) {
-							isValid = false;
-						}
-						if(isValid) {
-//							if(funcMemoisation) {
-//								functionIO.put(argList, returns);
-//								functionParameters.put(fun, functionIO);
-//							}
-							return returns;
-						}
+					measuredCalls++;
+					try {
+						returns = generateReturns(fun, frame, arguments);
+					}
+					finally {
+						measuredCalls--;
+					}
+					budget.recordGenerated(returns != null, steps - start);
+					if(returns != null) {
+						return returns;
 					}
-				} 
-				catch (IntegerRangeException e1) {
-					// Execute test normally then
 				}
 			}
-		}	
-		// Need to cache the input and corresponding output
-		if(funcMemoisation && !(decl instanceof Decl.Method)) {
-			RValue[] returns = execute(decl.getQualifiedName().toNameID(), decl.getType(), frame, arguments);
-			functionIO.put(argList, returns);
-			functionParameters.put(decl, functionIO);
-			return returns;
 		}
 		// Invoke the function or method in question
-		return execute(decl.getQualifiedName().toNameID(), decl.getType(), frame, arguments);
+		RValue[] returns;
+		if(budget != null) {
+			long start = steps;
+			measuredCalls++;
+			try {
+				returns = execute(decl.getQualifiedName().toNameID(), decl.getType(), frame, arguments);
+			}
+			finally {
+				measuredCalls--;
+			}
+			budget.recordExecuted(steps - start);
+		}
+		else {
+			returns = execute(decl.getQualifiedName().toNameID(), decl.getType(), frame, arguments);
+		}
+		// Need to cache the input and corresponding output
+		if(memoise) {
+			functionIO.put(argKey, returns);
+		}
+		return returns;
+	}
+
+	/**
+	 * Execute the body of a function or method.
+	 * The recursive calls of the function, while the body is executed, are called normally instead of optimised.
+	 * @param fm The function or method
+	 * @param frame The stack frame of the call
+	 */
+	private void executeBody(Decl.FunctionOrMethod fm, CallStack frame) {
+		boolean guarded = funcOptimisation && recursiveInvariantFunctions.add(fm.getName());
+		try {
+			executeBlock(fm.getBody(), frame, new FunctionOrMethodScope(fm));
+		}
+		finally {
+			if(guarded) {
+				recursiveInvariantFunctions.remove(fm.getName());
+			}
+		}
+	}
+
+	/**
+	 * Generate return values of a function which meet its postcondition for the arguments,
+	 * instead of calling the function.
+	 * @param fun The function
+	 * @param frame The current stack frame
+	 * @param arguments The arguments of the call
+	 * @return The return values, or null if none of the values generated met the postcondition
+	 * @throws ResolutionError
+	 */
+	private RValue[] generateReturns(Decl.FunctionOrMethod fun, CallStack frame, RValue[] arguments) throws ResolutionError {
+		Identifier funcName = fun.getName();
+		// Every function should return the same output for the same input
+		Tuple<Expr> postconditions = fun.getEnsures();
+		Tuple<Decl.Variable> outputParameters = fun.getReturns();
+		// Generate until the return type meets the postcondition
+		// If it is unable to generate after a certain number of times,
+		// just call the function/method instead
+		CallStack enteredFrame = frame.enter(fun);
+		extractParameters(enteredFrame, arguments, fun);
+		GenerateTest testGen;
+		try {
+			// Generator for the return values of the function
+			testGen = getReturnGenerator(fun);
+		}
+		catch (IntegerRangeException e) {
+			// Execute test normally then
+			return null;
+		}
+		// The postcondition calls the function normally
+		recursiveInvariantFunctions.add(funcName);
+		try {
+			for(int i=0; i < numRandomFuncValGen; i++) {
+				// Need to reset frame to remove the old inputs
+				CallStack tempFrame = enteredFrame.clone();
+				// Generating each value counts as a step
+				steps++;
+				RValue[] returns;
+				try {
+					returns = testGen.generateParameters();
+				}
+				catch(CannotGenerateException e) {
+					// Execute the function normally then
+					return null;
+				}
+				try {
+					boolean isValid = true;
+					for(int j=0; j < outputParameters.size() && isValid; j++) {
+						Decl.Variable parameter = outputParameters.get(j);
+						isValid = RunTest.checkInvariant(this, parameter.getType(), returns[j]);
+						tempFrame.putLocal(parameter.getName(), returns[j]);
+					}
+					if(isValid) {
+						// The postcondition refers to the arguments and the return values
+						this.checkInvariants(tempFrame, postconditions);
+						return returns;
+					}
+				}
+				catch(AssertionError e) {
+					// The return values don't meet the postcondition,
+					// other errors are errors of the function and are reported
+				}
+			}
+		}
+		finally {
+			recursiveInvariantFunctions.remove(funcName);
+		}
+		return null;
 	}
 	
 	/**
@@ -260,6 +562,19 @@ public class QCInterpreter extends Interpreter {
 	 */
 	@Override
 	public RValue[] execute(NameID nid, Type.Callable sig, CallStack frame, RValue... args) {
+		if (maxCallDepth <= 0) {
+			return executeCallable(nid, sig, frame, args);
+		}
+		return executeNested(nid, () -> executeCallable(nid, sig, frame, args));
+	}
+
+	/**
+	 * Execute a function or method on the current thread, see execute.
+	 */
+	private RValue[] executeCallable(NameID nid, Type.Callable sig, CallStack frame, RValue... args) {
+		SlotFrame callerSlots = slots;
+		Set<RValue.Array> callerOwnedArrays = ownedArrays;
+		ownedArrays = null;
 		// First, find the enclosing WyilFile
 		try {
 			// FIXME: NameID needs to be deprecated
@@ -282,11 +597,20 @@ public class QCInterpreter extends Interpreter {
 			}
 			// Fourth, construct the stack frame for execution
 			frame = frame.enter(fmp);
+			slots = new SlotFrame(frame, getLayout(fmp));
 			extractParameters(frame,args,fmp);
+			if(coverage != null) {
+				coverage.enter(fmp);
+			}
 			// Check the precondition
 			if(fmp instanceof Decl.FunctionOrMethod) {
 				Decl.FunctionOrMethod fm = (Decl.FunctionOrMethod) fmp;
 				checkInvariants(frame,fm.getRequires());
+				// Execute the Java implementation instead of the body
+				Intrinsic intrinsic = intrinsics.get(fmp);
+				if (intrinsic != null) {
+					return intrinsic.apply(args);
+				}
 				// check function or method body exists
 				if (fm.getBody() == null) {
 					// FIXME: Add support for native functions or methods. That is,
@@ -295,10 +619,7 @@ public class QCInterpreter extends Interpreter {
 					throw new IllegalArgumentException("no function or method body found: " + nid + ", " + sig);
 				}
 				// Execute the method or function body
-				if(funcOptimisation) {
-					recursiveInvariantFunctions.add(fm.getName());
-				}
-				executeBlock(fm.getBody(), frame, new FunctionOrMethodScope(fm));
+				executeBody(fm, frame);
 				// Extra the return values
 				RValue[] returns = packReturns(frame,fmp);
 				// Restore original parameter values
@@ -324,6 +645,9 @@ public class QCInterpreter extends Interpreter {
 			//
 		} catch (IOException e) {
 			throw new RuntimeException(e.getMessage(), e);
+		} finally {
+			slots = callerSlots;
+			ownedArrays = callerOwnedArrays;
 		}
 	}
 	
@@ -344,6 +668,19 @@ public class QCInterpreter extends Interpreter {
 	 * @return
 	 */
 	public RValue[] execute(NameID nid, Type.Callable sig, CallStack frame, boolean checkPrecondition, boolean checkPostcondition, RValue... args) {
+		if (maxCallDepth <= 0) {
+			return executeCallable(nid, sig, frame, checkPrecondition, checkPostcondition, args);
+		}
+		return executeNested(nid, () -> executeCallable(nid, sig, frame, checkPrecondition, checkPostcondition, args));
+	}
+
+	/**
+	 * Execute a function or method on the current thread, see execute.
+	 */
+	private RValue[] executeCallable(NameID nid, Type.Callable sig, CallStack frame, boolean checkPrecondition, boolean checkPostcondition, RValue... args) {
+		SlotFrame callerSlots = slots;
+		Set<RValue.Array> callerOwnedArrays = ownedArrays;
+		ownedArrays = null;
 		// First, find the enclosing WyilFile
 		try {
 			// FIXME: NameID needs to be deprecated
@@ -366,7 +703,11 @@ public class QCInterpreter extends Interpreter {
 			}
 			// Fourth, construct the stack frame for execution
 			frame = frame.enter(fmp);
+			slots = new SlotFrame(frame, getLayout(fmp));
 			extractParameters(frame,args,fmp);
+			if(coverage != null) {
+				coverage.enter(fmp);
+			}
 			// Check the precondition
 			if(fmp instanceof Decl.FunctionOrMethod) {
 				Decl.FunctionOrMethod fm = (Decl.FunctionOrMethod) fmp;
@@ -374,6 +715,11 @@ public class QCInterpreter extends Interpreter {
 					// Check the precondition holds
 					checkInvariants(frame,fm.getRequires());
 				}
+				// Execute the Java implementation instead of the body
+				Intrinsic intrinsic = intrinsics.get(fmp);
+				if (intrinsic != null) {
+					return intrinsic.apply(args);
+				}
 				// check function or method body exists
 				if (fm.getBody() == null) {
 					// FIXME: Add support for native functions or methods. That is,
@@ -382,11 +728,7 @@ public class QCInterpreter extends Interpreter {
 					throw new IllegalArgumentException("no function or method body found: " + nid + ", " + sig);
 				}
 				// Execute the method or function body
-				if(funcOptimisation) {
-					this.recursiveInvariantFunctions = new HashSet<Identifier>();
-					recursiveInvariantFunctions.add(fm.getName());
-				}
-				executeBlock(fm.getBody(), frame, new FunctionOrMethodScope(fm));
+				executeBody(fm, frame);
 				// Extra the return values
 				RValue[] returns = packReturns(frame,fmp);
 				// Restore original parameter values
@@ -414,6 +756,9 @@ public class QCInterpreter extends Interpreter {
 			//
 		} catch (IOException e) {
 			throw new RuntimeException(e.getMessage(), e);
+		} finally {
+			slots = callerSlots;
+			ownedArrays = callerOwnedArrays;
 		}
 	}
     
@@ -423,11 +768,145 @@ public class QCInterpreter extends Interpreter {
     // =============================================================
 
 
+	/**
+	 * Read a local variable, from its slot if the frame is of the function or method being executed.
+	 *
+	 * @param frame
+	 *            --- The current stack frame
+	 * @param var
+	 *            --- The variable
+	 * @return The value of the variable
+	 */
+	private RValue getLocal(CallStack frame, Decl.Variable var) {
+		if (slots != null && slots.isFrame(frame)) {
+			return slots.get(var);
+		}
+		return frame.getLocal(var.getName());
+	}
+
+	/**
+	 * Write a local variable, including its slot if the frame is of the function or method being executed.
+	 *
+	 * @param frame
+	 *            --- The current stack frame
+	 * @param var
+	 *            --- The variable
+	 * @param value
+	 *            --- The value written
+	 */
+	private void putLocal(CallStack frame, Decl.Variable var, RValue value) {
+		if (slots != null && slots.isFrame(frame)) {
+			slots.put(var, value);
+		} else {
+			frame.putLocal(var.getName(), value);
+		}
+	}
+
+	/**
+	 * Execute a call within the maximum call depth. After the first few calls,
+	 * every CALLS_PER_SEGMENT nested calls the call is executed on the worker thread
+	 * of the segment, which has a large stack, while the calling thread waits,
+	 * so the Java stack of each thread only holds a segment of the calls.
+	 * The worker of each segment is created once, and reused by later calls reaching the segment.
+	 *
+	 * @param nid
+	 *            --- The fully qualified identifier of the function or method
+	 * @param call
+	 *            --- Executes the function or method
+	 * @return The return values
+	 */
+	private RValue[] executeNested(NameID nid, Supplier<RValue[]> call) {
+		if (callDepth >= maxCallDepth) {
+			throw new CallDepthException("Call depth exceeded " + maxCallDepth + " when calling " + nid);
+		}
+		callDepth++;
+		try {
+			if (callDepth < CALLS_ON_CALLING_THREAD || (callDepth - CALLS_ON_CALLING_THREAD) % CALLS_PER_SEGMENT != 0) {
+				return call.get();
+			}
+			// Only one thread executes the calls at a time, and submitting the call and waiting for it
+			// order the changes to the fields of the interpreter, e.g. the depth, between the threads
+			Future<RValue[]> returns = getSegment((callDepth - CALLS_ON_CALLING_THREAD) / CALLS_PER_SEGMENT).submit(call::get);
+			// The calls can't be stopped part way, so wait for the segment to finish
+			boolean interrupted = false;
+			try {
+				while (true) {
+					try {
+						return returns.get();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			} catch (ExecutionException e) {
+				Throwable thrown = e.getCause();
+				if (thrown instanceof Error) {
+					throw (Error) thrown;
+				} else if (thrown instanceof RuntimeException) {
+					throw (RuntimeException) thrown;
+				}
+				throw new RuntimeException(thrown);
+			} finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		} finally {
+			callDepth--;
+		}
+	}
+
+	/**
+	 * Get the worker thread executing the calls of a segment, creating it the first time the segment is reached.
+	 * The workers are daemon threads, so they don't keep the program running.
+	 *
+	 * @param segment
+	 *            --- The index of the segment, from 0
+	 * @return The worker of the segment
+	 */
+	private synchronized ExecutorService getSegment(int segment) {
+		while (segments.size() <= segment) {
+			String name = "calls-" + (CALLS_ON_CALLING_THREAD + segments.size() * CALLS_PER_SEGMENT);
+			segments.add(Executors.newSingleThreadExecutor(task -> {
+				Thread worker = new Thread(null, task, name, SEGMENT_STACK_SIZE);
+				worker.setDaemon(true);
+				return worker;
+			}));
+		}
+		return segments.get(segment);
+	}
+
+	/**
+	 * Stop the worker threads of the segments of the nested calls, which are kept between the calls.
+	 * The workers are created again if the interpreter executes more nested calls.
+	 */
+	public synchronized void close() {
+		for (ExecutorService segment : segments) {
+			segment.shutdown();
+		}
+		segments.clear();
+	}
+
+	/**
+	 * Get the slots of the local variables of a function or method, which are found once.
+	 *
+	 * @param decl
+	 *            --- The function or method
+	 * @return The slots of its local variables
+	 */
+	private FrameLayout getLayout(Decl.Callable decl) {
+		FrameLayout layout = layouts.get(decl);
+		if (layout == null) {
+			layout = new FrameLayout(decl);
+			layouts.put(decl, layout);
+		}
+		return layout;
+	}
+
 	private void extractParameters(CallStack frame, RValue[] args, Decl.Callable decl) {
 		Tuple<Decl.Variable> parameters = decl.getParameters();
 		for(int i=0;i!=parameters.size();++i) {
 			Decl.Variable parameter = parameters.get(i);
-			frame.putLocal(parameter.getName(), args[i]);
+			putLocal(frame, parameter, args[i]);
 		}
 	}
 
@@ -447,7 +926,9 @@ public class QCInterpreter extends Interpreter {
 			Tuple<Decl.Variable> returns = decl.getReturns();
 			RValue[] values = new RValue[returns.size()];
 			for (int i = 0; i != values.length; ++i) {
-				values[i] = frame.getLocal(returns.get(i).getName());
+				values[i] = getLocal(frame, returns.get(i));
+				// The returned arrays are shared
+				disown(values[i]);
 			}
 			return values;
 		}
@@ -487,6 +968,12 @@ public class QCInterpreter extends Interpreter {
 	 * @return
 	 */
 	private Status executeStatement(Stmt stmt, CallStack frame, EnclosingScope scope) {
+		if(measuredCalls > 0) {
+			steps++;
+		}
+		if(coverage != null) {
+			coverage.statement(stmt);
+		}
 		try {
 			switch (stmt.getOpcode()) {
 			case WhileyFile.STMT_assert:
@@ -543,12 +1030,93 @@ public class QCInterpreter extends Interpreter {
 		Tuple<WhileyFile.LVal> lhs = stmt.getLeftHandSide();
 		RValue[] rhs = executeExpressions(stmt.getRightHandSide(), frame);
 		for (int i = 0; i != lhs.size(); ++i) {
-			LValue lval = constructLVal(lhs.get(i), frame);
-			lval.write(frame, rhs[i]);
+			if (lhs.get(i) instanceof Expr.VariableAccess) {
+				putLocal(frame, ((Expr.VariableAccess) lhs.get(i)).getVariableDeclaration(), rhs[i]);
+			}
+			else if (!executeArrayWrite(lhs.get(i), frame, rhs[i])) {
+				// The variable written is read from and written to the call stack
+				Decl.Variable root = getRootVariable(lhs.get(i));
+				boolean slotted = slots != null && slots.isFrame(frame) && root != null;
+				if (slotted) {
+					slots.flush(root);
+				}
+				LValue lval = constructLVal(lhs.get(i), frame);
+				lval.write(frame, rhs[i]);
+				if (slotted) {
+					slots.invalidate(root);
+				}
+			}
 		}
 		return Status.NEXT;
 	}
 
+	/**
+	 * Find the variable written by the left hand side of an assignment (e.g. xs in xs[i].f = x).
+	 *
+	 * @param lval
+	 *            --- The left hand side of the assignment
+	 * @return The variable written, or null if it isn't a variable
+	 */
+	private Decl.Variable getRootVariable(WhileyFile.LVal lval) {
+		Expr expr = (Expr) lval;
+		while (!(expr instanceof Expr.VariableAccess)) {
+			if (expr instanceof Expr.ArrayAccess) {
+				expr = ((Expr.ArrayAccess) expr).getFirstOperand();
+			} else if (expr instanceof Expr.RecordAccess) {
+				expr = ((Expr.RecordAccess) expr).getOperand();
+			} else if (expr instanceof Expr.Dereference) {
+				expr = ((Expr.Dereference) expr).getOperand();
+			} else {
+				return null;
+			}
+		}
+		return ((Expr.VariableAccess) expr).getVariableDeclaration();
+	}
+
+	/**
+	 * Write an element of an array held by a local variable (e.g. xs[i] = x).
+	 * As arrays are values, the first write copies the array, which is only held by the variable.
+	 * So the later writes update the copy in place, until the array is read from the variable.
+	 *
+	 * @param lhs
+	 *            --- The left hand side of the assignment
+	 * @param frame
+	 *            --- The current stack frame
+	 * @param value
+	 *            --- The value written
+	 * @return Whether the left hand side is an element of an array held by a local variable
+	 */
+	private boolean executeArrayWrite(WhileyFile.LVal lhs, CallStack frame, RValue value) {
+		if (!(lhs instanceof Expr.ArrayAccess) || !(((Expr.ArrayAccess) lhs).getFirstOperand() instanceof Expr.VariableAccess)) {
+			return false;
+		}
+		Expr.ArrayAccess access = (Expr.ArrayAccess) lhs;
+		Decl.Variable decl = ((Expr.VariableAccess) access.getFirstOperand()).getVariableDeclaration();
+		RValue.Array array = (RValue.Array) getLocal(frame, decl);
+		RValue.Int index = executeExpression(INT_T, access.getSecondOperand(), frame);
+		if (ownedArrays != null && ownedArrays.contains(array)) {
+			array.getElements()[index.intValue()] = value;
+		} else {
+			RValue.Array copy = array.write(index, value);
+			putLocal(frame, decl, copy);
+			if (ownedArrays == null) {
+				ownedArrays = Collections.newSetFromMap(new IdentityHashMap<RValue.Array, Boolean>());
+			}
+			ownedArrays.add(copy);
+		}
+		return true;
+	}
+
+	/**
+	 * Share an array, so it is no longer written in place.
+	 * @param value The value, which may be an array owned by the call being executed
+	 */
+	private void disown(RValue value) {
+		if (ownedArrays != null) {
+			ownedArrays.remove(value);
+		}
+	}
+
 	/**
 	 * Execute an assert or assume statement. In both cases, if the condition
 	 * evaluates to false an exception is thrown.
@@ -650,6 +1218,9 @@ public class QCInterpreter extends Interpreter {
 			r = executeBlock(stmt.getBody(), frame, scope);
 			if (r == Status.NEXT) {
 				RValue.Bool operand = executeExpression(BOOL_T, stmt.getCondition(), frame);
+				if(coverage != null) {
+					coverage.branch(stmt, operand == RValue.True);
+				}
 				if (operand == RValue.False) {
 					return Status.NEXT;
 				}
@@ -691,6 +1262,9 @@ public class QCInterpreter extends Interpreter {
 	 */
 	private Status executeIf(Stmt.IfElse stmt, CallStack frame, EnclosingScope scope) {
 		RValue.Bool operand = executeExpression(BOOL_T, stmt.getCondition(), frame);
+		if(coverage != null) {
+			coverage.branch(stmt, operand == RValue.True);
+		}
 		if (operand == RValue.True) {
 			// branch taken, so execute true branch
 			return executeBlock(stmt.getTrueBranch(), frame, scope);
@@ -729,6 +1303,9 @@ public class QCInterpreter extends Interpreter {
 		Status r;
 		do {
 			RValue.Bool operand = executeExpression(BOOL_T, stmt.getCondition(), frame);
+			if(coverage != null) {
+				coverage.branch(stmt, operand == RValue.True);
+			}
 			if (operand == RValue.False) {
 				return Status.NEXT;
 			}
@@ -763,7 +1340,7 @@ public class QCInterpreter extends Interpreter {
 		Tuple<Decl.Variable> returns = context.getReturns();
 		RValue[] values = executeExpressions(stmt.getReturns(), frame);
 		for (int i = 0; i != returns.size(); ++i) {
-			frame.putLocal(returns.get(i).getName(), values[i]);
+			putLocal(frame, returns.get(i), values[i]);
 		}
 		return Status.RETURN;
 	}
@@ -801,6 +1378,9 @@ public class QCInterpreter extends Interpreter {
 			Stmt.Case c = cases.get(i);
 			Stmt.Block body = c.getBlock();
 			if (c.isDefault()) {
+				if(coverage != null) {
+					coverage.branch(c, true);
+				}
 				return executeBlock(body, frame, scope);
 			} else {
 				// FIXME: this is a temporary hack until a proper notion of
@@ -808,11 +1388,18 @@ public class QCInterpreter extends Interpreter {
 				RValue[] values = executeExpressions(c.getConditions(), frame);
 				for (RValue v : values) {
 					if (v.equals(value)) {
+						if(coverage != null) {
+							coverage.branch(c, true);
+						}
 						return executeBlock(body, frame, scope);
 					}
 				}
 			}
 		}
+		// No case matched
+		if(coverage != null) {
+			coverage.branch(stmt, false);
+		}
 		return Status.NEXT;
 	}
 
@@ -830,7 +1417,7 @@ public class QCInterpreter extends Interpreter {
 		// We only need to do something if this has an initialiser
 		if(stmt.hasInitialiser()) {
 			RValue value = executeExpression(ANY_T, stmt.getInitialiser(), frame);
-			frame.putLocal(stmt.getName(),value);
+			putLocal(frame, stmt, value);
 		}
 		return Status.NEXT;
 	}
@@ -853,6 +1440,9 @@ public class QCInterpreter extends Interpreter {
 	 * @return
 	 */
 	public <T extends RValue> T executeExpression(Class<T> expected, Expr expr, CallStack frame) {
+		if(measuredCalls > 0) {
+			steps++;
+		}
 		try {
 			RValue val;
 			switch (expr.getOpcode()) {
@@ -1102,10 +1692,13 @@ public class QCInterpreter extends Interpreter {
 			return r.boolValue() == q;
 		} else {
 			Decl.Variable var = vars.get(index);
+			if (var.getInitialiser() instanceof Expr.ArrayRange) {
+				return executeQuantifierRange(index, (Expr.ArrayRange) var.getInitialiser(), expr, frame);
+			}
 			RValue.Array range = executeExpression(ARRAY_T, var.getInitialiser(), frame);
 			RValue[] elements = range.getElements();
 			for (int i = 0; i != elements.length; ++i) {
-				frame.putLocal(var.getName(), elements[i]);
+				putLocal(frame, var, elements[i]);
 				boolean r = executeQuantifier(index + 1, expr, frame);
 				if (!r) {
 					// early termination
@@ -1116,6 +1709,55 @@ public class QCInterpreter extends Interpreter {
 		}
 	}
 
+	/**
+	 * Execute one range of the quantifier over an integer range (e.g. i in 0..|xs|),
+	 * iterating over the integers without creating the array of the range.
+	 *
+	 * @param index
+	 * @param range
+	 * @param expr
+	 * @param frame
+	 * @return
+	 */
+	private boolean executeQuantifierRange(int index, Expr.ArrayRange range, Expr.Quantifier expr, CallStack frame) {
+		Decl.Variable var = expr.getParameters().get(index);
+		RValue.Int first = executeExpression(INT_T, range.getFirstOperand(), frame);
+		RValue.Int last = executeExpression(INT_T, range.getSecondOperand(), frame);
+		if (!isInt(first) || !isInt(last)) {
+			// The bounds don't fit in an int, so count with the integers of the interpreter
+			RValue.Int one = InternedValues.Int(BigInteger.ONE);
+			for (RValue.Int i = first; i.lessThan(last).boolValue(); i = i.add(one)) {
+				putLocal(frame, var, i);
+				boolean r = executeQuantifier(index + 1, expr, frame);
+				if (!r) {
+					// early termination
+					return r;
+				}
+			}
+			return true;
+		}
+		int start = first.intValue();
+		int end = last.intValue();
+		for (int i = start; i < end; ++i) {
+			putLocal(frame, var, InternedValues.Int(BigInteger.valueOf(i)));
+			boolean r = executeQuantifier(index + 1, expr, frame);
+			if (!r) {
+				// early termination
+				return r;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether an integer fits in an int.
+	 * @param value The integer
+	 * @return Whether the int value of the integer is the same integer
+	 */
+	private static boolean isInt(RValue.Int value) {
+		return value.equals(InternedValues.Int(BigInteger.valueOf(value.intValue())));
+	}
+
 	/**
 	 * Execute a variable access expression at a given point in the function or
 	 * method body. This simply loads the value of the given variable from the
@@ -1129,7 +1771,64 @@ public class QCInterpreter extends Interpreter {
 	 */
 	private RValue executeVariableAccess(Expr.VariableAccess expr, CallStack frame) {
 		Decl.Variable decl = expr.getVariableDeclaration();
-		return frame.getLocal(decl.getName());
+		RValue value = getLocal(frame, decl);
+		if (value instanceof RValue.Array) {
+			// The array is shared once read, so can no longer be written in place
+			disown(value);
+		}
+		return value;
+	}
+
+	/**
+	 * Execute an array access expression. An array held by a local variable
+	 * is read without sharing it, so it can still be written in place.
+	 *
+	 * @param expr
+	 *            --- The expression to execute
+	 * @param frame
+	 *            --- The current stack frame
+	 * @return
+	 */
+	@Override
+	public RValue executeArrayAccess(Expr.ArrayAccess expr, CallStack frame) {
+		RValue.Array src = executeArrayOperand(expr.getFirstOperand(), frame);
+		RValue.Int index = executeExpression(INT_T, expr.getSecondOperand(), frame);
+		return src.read(index);
+	}
+
+	/**
+	 * Execute an array length expression. An array held by a local variable
+	 * is read without sharing it, so it can still be written in place.
+	 *
+	 * @param expr
+	 *            --- The expression to execute
+	 * @param frame
+	 *            --- The current stack frame
+	 * @return
+	 */
+	@Override
+	public RValue executeArrayLength(Expr.ArrayLength expr, CallStack frame) {
+		return executeArrayOperand(expr.getOperand(), frame).length();
+	}
+
+	/**
+	 * Execute the array which an element or the length is read from.
+	 *
+	 * @param expr
+	 *            --- The expression to execute
+	 * @param frame
+	 *            --- The current stack frame
+	 * @return
+	 */
+	private RValue.Array executeArrayOperand(Expr expr, CallStack frame) {
+		if (expr instanceof Expr.VariableAccess) {
+			Decl.Variable decl = ((Expr.VariableAccess) expr).getVariableDeclaration();
+			RValue value = getLocal(frame, decl);
+			if (value instanceof RValue.Array) {
+				return (RValue.Array) value;
+			}
+		}
+		return executeExpression(ARRAY_T, expr, frame);
 	}
 
 	private RValue executeStaticVariableAccess(Expr.StaticVariableAccess expr, CallStack frame) throws ResolutionError {
@@ -1142,11 +1841,86 @@ public class QCInterpreter extends Interpreter {
 		RValue lhs = executeExpression(ANY_T, expr.getOperand(), frame);
 		return lhs.is(expr.getTestType(), this);
 	}
+	
+	/**
+	 * Overridden method
+	 * Execute a short-circuiting logical and,
+	 * recording the outcome of each operand evaluated.
+	 */
+	@Override
+	public RValue executeLogicalAnd(Expr.LogicalAnd expr, CallStack frame) {
+		Tuple<Expr> operands = expr.getOperands();
+		for (int i = 0; i != operands.size(); ++i) {
+			RValue.Bool b = executeExpression(BOOL_T, operands.get(i), frame);
+			if(coverage != null) {
+				coverage.branch(operands.get(i), b == RValue.True);
+			}
+			if (b == RValue.False) {
+				return b;
+			}
+		}
+		return RValue.True;
+	}
+	
+	/**
+	 * Overridden method
+	 * Execute a short-circuiting logical or,
+	 * recording the outcome of each operand evaluated.
+	 */
+	@Override
+	public RValue executeLogicalOr(Expr.LogicalOr expr, CallStack frame) {
+		Tuple<Expr> operands = expr.getOperands();
+		for (int i = 0; i != operands.size(); ++i) {
+			RValue.Bool b = executeExpression(BOOL_T, operands.get(i), frame);
+			if(coverage != null) {
+				coverage.branch(operands.get(i), b == RValue.True);
+			}
+			if (b == RValue.True) {
+				return b;
+			}
+		}
+		return RValue.False;
+	}
 
+	/**
+	 * Create a lambda, which captures the values of the variables
+	 * of the enclosing scope used by its body, rather than the whole frame.
+	 *
+	 * @param decl
+	 *            --- The lambda declaration
+	 * @param frame
+	 *            --- The current stack frame
+	 * @return The lambda
+	 */
 	private RValue executeLambdaDeclaration(Decl.Lambda decl, CallStack frame) {
-		// FIXME: this needs a clone of the frame? Otherwise, it's just
-		// executing in the later environment.
-		return semantics.Lambda(decl, frame.clone(), decl.getBody());
+		CallStack captured = frame.enter(decl);
+		for (Decl.Variable var : getCapturedVariables(decl)) {
+			RValue value = getLocal(frame, var);
+			// Variables declared within the body are not in the enclosing scope
+			if (value != null) {
+				captured.putLocal(var.getName(), value);
+				// The captured arrays are shared with the lambda
+				disown(value);
+			}
+		}
+		return semantics.Lambda(decl, captured, decl.getBody());
+	}
+
+	/**
+	 * Get the variables of the enclosing scope used by a lambda, which are found once.
+	 *
+	 * @param decl
+	 *            --- The lambda declaration
+	 * @return The variables used by the lambda, excluding its parameters
+	 */
+	private Decl.Variable[] getCapturedVariables(Decl.Lambda decl) {
+		Decl.Variable[] vars = capturedVariables.get(decl);
+		if (vars == null) {
+			Set<Decl.Variable> captured = decl.getCapturedVariables();
+			vars = captured.toArray(new Decl.Variable[captured.size()]);
+			capturedVariables.put(decl, vars);
+		}
+		return vars;
 	}
 
 	// =============================================================
@@ -1234,17 +2008,26 @@ public class QCInterpreter extends Interpreter {
 		// Here we have to use the enclosing frame when the lambda was created.
 		// The reason for this is that the lambda may try to access enclosing
 		// variables in the scope it was created.
-		frame = src.getFrame();
+		// The captured frame only holds the variables used, so is copied
+		// for each call to keep the captured values unchanged.
+		frame = src.getFrame().clone();
 		extractParameters(frame,arguments,src.getContext());
-		// Execute the method or function body
-		Stmt body = src.getBody();
-		if(body instanceof Stmt.Block) {
-			executeBlock((Stmt.Block) body, frame, new FunctionOrMethodScope(src.getContext()));
-			// Extra the return values
-			return packReturns(frame,src.getContext());
-		} else {
-			RValue retval = executeExpression(ANY_T,(Expr) body, frame);
-			return new RValue[]{retval};
+		// The arrays owned by the lambda's call are dropped when it returns
+		Set<RValue.Array> callerOwnedArrays = ownedArrays;
+		ownedArrays = null;
+		try {
+			// Execute the method or function body
+			Stmt body = src.getBody();
+			if(body instanceof Stmt.Block) {
+				executeBlock((Stmt.Block) body, frame, new FunctionOrMethodScope(src.getContext()));
+				// Extra the return values
+				return packReturns(frame,src.getContext());
+			} else {
+				RValue retval = executeExpression(ANY_T,(Expr) body, frame);
+				return new RValue[]{retval};
+			}
+		} finally {
+			ownedArrays = callerOwnedArrays;
 		}
 	}
 	
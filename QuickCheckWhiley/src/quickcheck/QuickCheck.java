@@ -1,9 +1,19 @@
 package quickcheck;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import quickcheck.RunTest.Result;
+import quickcheck.exception.InvalidArgumentsException;
+import quickcheck.shard.Shard;
 import quickcheck.util.TestType;
 import wycc.util.Logger;
 import wyfs.lang.Content;
@@ -21,6 +31,7 @@ import wyfs.util.Trie;
  *
  */
 public class QuickCheck {
+	private static final String USAGE = "Usage: java QuickCheck <wyilfile|directory|@listfile> <testtype> <numtests> <lowerintegerlimit> <upperintegerlimit> <functionoptimisation> <num_gen_func_opt> [--coverage] [--cache=<file>] [--cache-downsample=<n>] [--shard=<i>/<n>] [--seed=<n>] [--results=<file>] [--checkpoint=<file> [--resume]] [--max-call-depth=<n>]";
 			
 	/**
 	 * Extract the path ID for the given filename. This is a relative path from the
@@ -37,28 +48,180 @@ public class QuickCheck {
 		return id;
 	}
 	
+	/**
+	 * Apply the options given on the command line, e.g. --coverage,
+	 * to the command executing the tests.
+	 * @param cmd The command executing the tests
+	 * @param args The command line arguments
+	 * @return A message for each option which is invalid or unknown, and was ignored
+	 */
+	public static List<String> applyOptions(RunTest cmd, String[] args) {
+		List<String> invalid = new ArrayList<String>();
+		for(String arg : args) {
+			if(arg.equals("--coverage")) {
+				cmd.setReportCoverage(true);
+			}
+			else if(arg.startsWith("--cache=")) {
+				cmd.setResultsCache(new File(arg.substring("--cache=".length())));
+			}
+			else if(arg.startsWith("--shard=")) {
+				try {
+					cmd.setShard(Shard.parse(arg.substring("--shard=".length())));
+				}
+				catch(IllegalArgumentException e) {
+					invalid.add("Invalid option: " + arg);
+				}
+			}
+			else if(arg.startsWith("--seed=")) {
+				try {
+					cmd.setSeed(Long.parseLong(arg.substring("--seed=".length())));
+				}
+				catch(NumberFormatException e) {
+					invalid.add("Invalid option: " + arg);
+				}
+			}
+			else if(arg.startsWith("--checkpoint=")) {
+				cmd.setCheckpoint(new File(arg.substring("--checkpoint=".length())));
+			}
+			else if(arg.equals("--resume")) {
+				cmd.setResume(true);
+			}
+			else if(arg.startsWith("--results=")) {
+				cmd.setResultsFile(new File(arg.substring("--results=".length())));
+			}
+			else if(arg.startsWith("--cache-downsample=")) {
+				try {
+					cmd.setCacheDownsample(Integer.parseInt(arg.substring("--cache-downsample=".length())));
+				}
+				catch(NumberFormatException e) {
+					invalid.add("Invalid option: " + arg);
+				}
+			}
+			else if(arg.startsWith("--max-call-depth=")) {
+				try {
+					cmd.setMaxCallDepth(Integer.parseInt(arg.substring("--max-call-depth=".length())));
+				}
+				catch(NumberFormatException e) {
+					invalid.add("Invalid option: " + arg);
+				}
+			}
+			else if(arg.startsWith("--")) {
+				invalid.add("Unknown option: " + arg);
+			}
+		}
+		return invalid;
+	}
+	
+	/**
+	 * Remove the options from the command line arguments,
+	 * leaving the positional arguments.
+	 * @param args The command line arguments
+	 * @return The arguments which are not options
+	 */
+	private static String[] removeOptions(String[] args) {
+		List<String> positional = new ArrayList<String>();
+		for(String arg : args) {
+			if(!arg.startsWith("--")) {
+				positional.add(arg);
+			}
+		}
+		return positional.toArray(new String[positional.size()]);
+	}
+	
+	/**
+	 * Find the modules of all the Wyil files in a directory and its subdirectories.
+	 * @param directory The directory
+	 * @return The path ID of each module, relative to the directory
+	 * @throws InvalidArgumentsException If the directory can't be read
+	 */
+	private static List<String> findModules(File directory) {
+		java.nio.file.Path root = directory.toPath();
+		try(Stream<java.nio.file.Path> files = Files.walk(root)) {
+			return files.filter(file -> file.toString().endsWith(".wyil"))
+					.map(file -> toModule(root.relativize(file).toString()))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+		catch(IOException e) {
+			throw new InvalidArgumentsException("Could not read the directory " + directory + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Read the modules listed in a file, with one Wyil file per line
+	 * relative to the directory of the list.
+	 * @param list The file listing the Wyil files
+	 * @return The path ID of each module
+	 * @throws InvalidArgumentsException If the list can't be read
+	 */
+	private static List<String> readModules(File list) {
+		try {
+			List<String> modules = new ArrayList<String>();
+			for(String line : Files.readAllLines(list.toPath())) {
+				line = line.trim();
+				if(!line.isEmpty()) {
+					modules.add(toModule(line));
+				}
+			}
+			return modules;
+		}
+		catch(IOException e) {
+			throw new InvalidArgumentsException("Could not read the list of Wyil files " + list + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Get the path ID of a Wyil file from its path relative to the project root.
+	 * @param filename The relative path of the Wyil file
+	 * @return The path ID
+	 */
+	private static String toModule(String filename) {
+		filename = filename.replace('\\', '/').replace(File.separatorChar, '/');
+		return Trie.fromString(filename.replace(".wyil", "")).toString();
+	}
+	
+	/**
+	 * Convert the command line arguments into the arguments of RunTest,
+	 * finding the modules to test and filling in the defaults.
+	 * @param args The command line arguments
+	 * @return The arguments of RunTest
+	 * @throws InvalidArgumentsException If no Wyil file is given, or the modules can't be found
+	 */
 	public static String[] prepareArguments(String[] args) {
+		args = removeOptions(args);
 		if(args.length == 0) {
-			System.out.println("Usage: java QuickCheck <wyilfile> <testtype> <numtests> <lowerintegerlimit> <upperintegerlimit> <functionoptimisation> <num_gen_func_opt>");
-			System.exit(-1);
+			throw new InvalidArgumentsException(USAGE);
 		}
 		String[] modified = new String[RunTest.MAX_NUMBER_ARGUMENTS];
 		// Get the filepath e.g test/helloworld.wyil
 		String filepath = args[0];
 		filepath = filepath.replace('\\', File.separatorChar);
 		filepath = filepath.replace('/', File.separatorChar);
-		int lastSlash = filepath.lastIndexOf(File.separatorChar);
-		// If the current directory is used to find the file
-		String relativePath = ".";
-		String filename = filepath;
-		// If the file is in a subdirectory
-		if(lastSlash > -1) {
-			relativePath = filepath.substring(0, lastSlash);
-			filename = filepath.substring(lastSlash+1);
-		}
-		modified[0] = relativePath;
-		Path.ID id = extractPathID(filename);
-		modified[1] = id.toString();
+		// Test every module in a directory, or listed in a file e.g. @modules.txt
+		if(new File(filepath).isDirectory()) {
+			modified[0] = filepath;
+			modified[1] = String.join(RunTest.MODULE_SEPARATOR, findModules(new File(filepath)));
+		}
+		else if(filepath.startsWith("@")) {
+			File list = new File(filepath.substring(1));
+			File parent = list.getAbsoluteFile().getParentFile();
+			modified[0] = parent.getPath();
+			modified[1] = String.join(RunTest.MODULE_SEPARATOR, readModules(list));
+		}
+		else {
+			int lastSlash = filepath.lastIndexOf(File.separatorChar);
+			// If the current directory is used to find the file
+			String relativePath = ".";
+			String filename = filepath;
+			// If the file is in a subdirectory
+			if(lastSlash > -1) {
+				relativePath = filepath.substring(0, lastSlash);
+				filename = filepath.substring(lastSlash+1);
+			}
+			modified[0] = relativePath;
+			Path.ID id = extractPathID(filename);
+			modified[1] = id.toString();
+		}
 		// Get the test type, Default is random testing
 		TestType testType = TestType.RANDOM;
 		if(args.length >= 2) {
@@ -66,6 +229,15 @@ public class QuickCheck {
 			if(type.equalsIgnoreCase("exhaustive")) {
 				 testType = TestType.EXHAUSTIVE;
 			}
+			else if(type.equalsIgnoreCase("sized")) {
+				 testType = TestType.SIZED;
+			}
+			else if(type.equalsIgnoreCase("boundary")) {
+				 testType = TestType.BOUNDARY;
+			}
+			else if(type.equalsIgnoreCase("coverage")) {
+				 testType = TestType.COVERAGE;
+			}
 		}
 		modified[2] = testType.toString();
 		modified[3] = args.length >= 3 ? args[2] : Integer.toString(RunTest.NUM_TESTS);
@@ -79,17 +251,66 @@ public class QuickCheck {
 	}
 	
 	public static void main(String[] args){
+		if(args.length == 1 && args[0].equals("--daemon")) {
+			QuickCheckDaemon daemon = new QuickCheckDaemon(System.out);
+			try {
+				daemon.serve(new BufferedReader(new InputStreamReader(System.in)));
+			}
+			catch(IOException e) {
+				System.out.println("Could not read the requests: " + e.getMessage());
+			}
+			finally {
+				daemon.getSession().close();
+			}
+			return;
+		}
+		// Merge the results of the shards
+		if(args.length > 0 && args[0].equals("--merge")) {
+			List<File> files = new ArrayList<File>();
+			for(int i=1; i < args.length; i++) {
+				files.add(new File(args[i]));
+			}
+			try {
+				printResult(RunTest.merge(files));
+			}
+			catch(IOException e) {
+				System.out.println("Could not merge the results: " + e.getMessage());
+				printResult(Result.ERRORS);
+			}
+			return;
+		}
 		long startTime = System.nanoTime();
 		if(args.length == 0) {
-			System.out.println("Usage: java QuickCheck <wyilfile> <testtype> <numtests> <lowerintegerlimit> <upperintegerlimit> <functionoptimisation> <num_gen_func_opt>");
+			System.out.println(USAGE);
+			System.out.println("   or: java QuickCheck --daemon");
+			System.out.println("   or: java QuickCheck --merge <resultsfile>...");
 			System.exit(-1);
 		}
-		String[] modifiedArgs = prepareArguments(args);
+		String[] modifiedArgs;
+		try {
+			modifiedArgs = prepareArguments(args);
+		}
+		catch(InvalidArgumentsException e) {
+			System.out.println(e.getMessage());
+			System.exit(-1);
+			return;
+		}
 		Content.Registry registry = new wyc.Activator.Registry();
 		RunTest cmd = new RunTest(registry, Logger.NULL);
+		for(String message : applyOptions(cmd, args)) {
+			System.out.println(message);
+		}
 		RunTest.Result result = cmd.execute(modifiedArgs);			
 		long endTime = System.nanoTime();
 		System.out.println("Execution time: "+ TimeUnit.NANOSECONDS.toMillis(endTime - startTime) + " milliseconds"); 
+		printResult(result);
+	}
+	
+	/**
+	 * Print the overall result of the tests.
+	 * @param result The result
+	 */
+	private static void printResult(Result result) {
 		if(result == Result.PASSED) {
 			System.out.println("All tests passed.");
 		}
@@ -0,0 +1,135 @@
+package quickcheck;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import quickcheck.RunTest.Result;
+import quickcheck.exception.InvalidArgumentsException;
+import wycc.util.Logger;
+import wyfs.lang.Content;
+
+/**
+ * Keeps QuickCheck running, reading test requests line by line
+ * so the start up of the JVM and the loading of the standard library
+ * are only paid once, e.g. for editors and pre-commit hooks.
+ * The project and interpreter of a directory, with the caches of the interpreter,
+ * are kept between the requests until the Wyil files in the directory change.
+ *
+ * Each request is a line of the same arguments given to QuickCheck, e.g.
+ * <code>tests/helloworld.wyil random 100 -10 10 --coverage</code>,
+ * and <code>quit</code> stops the daemon.
+ * The output of the tests is not shown, instead a line is written for each function tested,
+ * followed by a line when the request is done, with the fields separated by tabs:
+ * <pre>
+ * RESULT  module  function  PASSED
+ * DONE    PASSED  time in milliseconds
+ * </pre>
+ * A request with invalid arguments or options is not executed, instead a line is written
+ * for each problem, followed by the line when the request is done:
+ * <pre>
+ * ERROR   Unknown option: --color
+ * DONE    ERRORS  time in milliseconds
+ * </pre>
+ *
+ * @author Janice Chin
+ *
+ */
+public class QuickCheckDaemon {
+	private static final String SEPARATOR = "\t";
+	private static final String QUIT = "quit";
+
+	/** Where the results are written */
+	private final PrintStream out;
+	/** Where the output of the tests is written */
+	private final PrintStream testOutput;
+	/** Keeps the projects and interpreters between the requests */
+	private final TestSession session;
+
+	/**
+	 * Create a daemon which discards the output of the tests.
+	 * @param out Where the results are written
+	 */
+	public QuickCheckDaemon(PrintStream out) {
+		this(out, new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {}
+		}));
+	}
+
+	/**
+	 * @param out Where the results are written
+	 * @param testOutput Where the output of the tests is written
+	 */
+	public QuickCheckDaemon(PrintStream out, PrintStream testOutput) {
+		this.out = out;
+		this.testOutput = testOutput;
+		this.session = new TestSession();
+	}
+
+	/**
+	 * @return Where the projects and interpreters are kept between the requests
+	 */
+	public TestSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Execute each request until there are no more requests, or quit is requested.
+	 * @param in The requests
+	 * @throws IOException
+	 */
+	public void serve(BufferedReader in) throws IOException {
+		String line;
+		while((line = in.readLine()) != null) {
+			line = line.trim();
+			if(line.equals(QUIT)) {
+				break;
+			}
+			else if(!line.isEmpty()) {
+				execute(line.split("\\s+"));
+			}
+		}
+	}
+
+	/**
+	 * Execute the tests for a request and write the results.
+	 * @param args The arguments of the request
+	 */
+	public void execute(String[] args) {
+		long startTime = System.nanoTime();
+		Content.Registry registry = new wyc.Activator.Registry();
+		RunTest cmd = new RunTest(registry, Logger.NULL);
+		cmd.setSession(session);
+		cmd.setListener((module, func, result) ->
+			out.println("RESULT" + SEPARATOR + module + SEPARATOR + func.getName() + SEPARATOR + result));
+		Result result;
+		List<String> invalid = QuickCheck.applyOptions(cmd, args);
+		if(!invalid.isEmpty()) {
+			for(String message : invalid) {
+				out.println("ERROR" + SEPARATOR + message);
+			}
+			result = Result.ERRORS;
+		}
+		else {
+			PrintStream stdout = System.out;
+			System.setOut(testOutput);
+			try {
+				result = cmd.execute(QuickCheck.prepareArguments(args));
+			}
+			catch(RuntimeException e) {
+				out.println("ERROR" + SEPARATOR + e.getMessage());
+				result = e instanceof InvalidArgumentsException ? Result.ERRORS : Result.INTERNAL_FAILURE;
+			}
+			finally {
+				System.setOut(stdout);
+			}
+		}
+		long endTime = System.nanoTime();
+		out.println("DONE" + SEPARATOR + result + SEPARATOR + TimeUnit.NANOSECONDS.toMillis(endTime - startTime));
+		out.flush();
+	}
+}
@@ -8,12 +8,30 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
+import quickcheck.cache.FunctionHash;
+import quickcheck.cache.ResultsCache;
+import quickcheck.checkpoint.Checkpoint;
+import quickcheck.checkpoint.Progress;
+import quickcheck.coverage.Coverage;
+import quickcheck.coverage.CoverageReport;
+import quickcheck.exception.CallDepthException;
 import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.BoundaryGenerateTest;
+import quickcheck.generator.CoverageGuidedGenerateTest;
 import quickcheck.generator.ExhaustiveGenerateTest;
 import quickcheck.generator.GenerateTest;
 import quickcheck.generator.RandomGenerateTest;
+import quickcheck.generator.SizedGenerateTest;
+import quickcheck.shard.Shard;
+import quickcheck.shard.ShardResults;
+import quickcheck.shard.ShardResults.FunctionResult;
+import quickcheck.util.CallGraph;
+import quickcheck.util.InputFilter;
+import quickcheck.util.InvariantCache;
+import quickcheck.util.TestStatistics;
 import quickcheck.util.TestType;
 import wybs.lang.Build;
 import wybs.lang.NameID;
@@ -48,6 +66,10 @@ import static wyc.lang.WhileyFile.*;
  */
 public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 	public static final int MAX_NUMBER_ARGUMENTS = 9;
+	/** Separates the modules to test when more than one module is tested */
+	public static final String MODULE_SEPARATOR = ",";
+	/** The seed of the random tests when they are split between shards, and no seed was given */
+	public static final long DEFAULT_SEED = 0;
 	
 	public static final int NUM_TESTS = 10;
 	public static final int INT_LOWER_LIMIT = -10;
@@ -60,6 +82,51 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 	
 	/** All the user created types that are recursive structures */
 	private static Map<Name, Integer> recursiveType = new HashMap<Name, Integer>();
+	/** The roots of each standard library used, so each library is only loaded once */
+	private static Map<String, Path.Root> libraryRoots = new HashMap<String, Path.Root>();
+	
+	/** Whether the coverage of each function tested is reported */
+	private boolean reportCoverage = false;
+	/** The coverage of all the functions tested, when coverage is reported */
+	private Coverage coverage;
+	/** The file storing the results of the functions tested, or null if the results are not cached */
+	private File cacheFile;
+	/**
+	 * How much fewer tests are executed on the functions that are unchanged since they passed,
+	 * or 0 if they are not tested again
+	 */
+	private int cacheDownsample = 0;
+	/** Notified of the result of each function tested, or null */
+	private Listener listener;
+	/** The part of the tests executed by this process */
+	private Shard shard = Shard.ALL;
+	/** The seed of the random tests, or null for a random seed */
+	private Long seed;
+	/** The file the statistics of each function are written to, e.g. to merge with other shards, or null */
+	private File resultsFile;
+	/** The file the progress of the tests is saved to, or null if the progress isn't saved */
+	private File checkpointFile;
+	/** Time between saving the progress of the tests, in milliseconds */
+	private long checkpointInterval = Checkpoint.DEFAULT_INTERVAL;
+	/** Whether to continue the tests from the last checkpoint */
+	private boolean resume = false;
+	/** The maximum depth of nested calls, or 0 if the calls are only limited by the Java stack */
+	private int maxCallDepth = 0;
+	/** Keeps the project and interpreter for the next tests, or null if they are created for these tests */
+	private TestSession session;
+
+	/**
+	 * Notified of the result of each function once it has been tested
+	 */
+	public interface Listener {
+		/**
+		 * Called after a function or method has been tested
+		 * @param module The module of the function
+		 * @param func The function or method
+		 * @param result The result of testing the function
+		 */
+		public void tested(Path.ID module, Decl.FunctionOrMethod func, Result result);
+	}
 
 	/**
 	 * Result kind for this command
@@ -90,6 +157,125 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 	public String getName() {
 		return "run";
 	}
+	
+	/**
+	 * Set whether the statement and branch coverage
+	 * of each function tested is reported.
+	 * @param reportCoverage Whether to report the coverage
+	 */
+	public void setReportCoverage(boolean reportCoverage) {
+		this.reportCoverage = reportCoverage;
+	}
+	
+	/**
+	 * Set the file storing the result of testing each function,
+	 * so functions that are unchanged since they passed are not tested again.
+	 * A function is unchanged if its contents, the contents of everything it uses
+	 * and the test configuration are the same.
+	 * @param cacheFile The file the results are stored in, or null to not cache the results
+	 */
+	public void setResultsCache(File cacheFile) {
+		this.cacheFile = cacheFile;
+	}
+	
+	/**
+	 * Set whether the functions that are unchanged since they passed
+	 * are tested again, with fewer tests.
+	 * @param cacheDownsample The number of tests is divided by this,
+	 * or 0 if the unchanged functions are not tested again
+	 */
+	public void setCacheDownsample(int cacheDownsample) {
+		this.cacheDownsample = cacheDownsample;
+	}
+	
+	/**
+	 * Set the listener notified of the result of each function tested.
+	 * @param listener The listener, or null
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Set the part of the tests this process executes,
+	 * when the tests are split between multiple processes.
+	 * @param shard The shard
+	 */
+	public void setShard(Shard shard) {
+		this.shard = shard;
+	}
+	
+	/**
+	 * Set the seed used to generate the random tests,
+	 * so the same tests are generated each time.
+	 * @param seed The seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Set the file the statistics of each function tested are written to,
+	 * which can be merged with the results of the other shards.
+	 * @param resultsFile The file
+	 */
+	public void setResultsFile(File resultsFile) {
+		this.resultsFile = resultsFile;
+	}
+	
+	/**
+	 * Set the file the progress of the tests is periodically saved to,
+	 * so the tests can be resumed if they are stopped.
+	 * @param checkpointFile The file
+	 */
+	public void setCheckpoint(File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+	
+	/**
+	 * Set the time between saving the progress of the tests.
+	 * @param checkpointInterval The time, in milliseconds
+	 */
+	public void setCheckpointInterval(long checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+	
+	/**
+	 * Set whether the tests continue from the last checkpoint.
+	 * The functions which were tested are not tested again,
+	 * and the exhaustive tests (or random tests with a seed) continue
+	 * from the test they reached.
+	 * @param resume Whether to resume the tests
+	 */
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+	
+	/**
+	 * Set the maximum depth of nested function and method calls,
+	 * so deep recursion is not limited by the Java stack.
+	 * @param maxCallDepth The maximum depth, or 0 if the calls are only limited by the Java stack
+	 */
+	public void setMaxCallDepth(int maxCallDepth) {
+		this.maxCallDepth = maxCallDepth;
+	}
+	
+	/**
+	 * Set where the project and interpreter are kept between the executions of the tests.
+	 * @param session The session, or null to create them for each execution
+	 */
+	public void setSession(TestSession session) {
+		this.session = session;
+	}
+
+	/**
+	 * Get the coverage of all the functions tested,
+	 * e.g. to merge with the coverage from testing other modules.
+	 * @return The coverage, or null if the coverage was not reported
+	 */
+	public Coverage getCoverage() {
+		return coverage;
+	}
 
 	// =======================================================================
 	// Execute
@@ -101,6 +287,7 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 			System.out.println("usage: run <wyilfile> <method>");
 			return Result.ERRORS;
 		}
+		QCInterpreter interpreter = null;
 		try {
 			// Get the Whiley standard library
 			String whileystd = System.getenv("WHILEYSTD");
@@ -113,10 +300,10 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 				whileystd = whileystd.replace('\\', File.separatorChar);
 				whileystd = whileystd.replace('/', File.separatorChar);
 			}
-			Build.Project project = createWhileyProject(whileystd, args[0]);
-			Path.ID id = Trie.fromString(args[1]);
+			// The project and standard library are loaded once for all the modules
+			Build.Project project = session != null ? session.getProject(whileystd, args[0]) : createWhileyProject(whileystd, args[0]);
+			String[] modules = args[1].split(MODULE_SEPARATOR);
 			TestType testType = TestType.valueOf(args[2]);
-			List<Decl.FunctionOrMethod> funcMethods = getFunctionsAndMethods(id, project);
 			BigInteger lower = new BigInteger(args[4]);
 			BigInteger upper = new BigInteger(args[5]);
 			// Function Memoisation
@@ -124,30 +311,142 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 			// Function optimisation parameters
 			boolean funcOpt = args[7].equals(Boolean.toString(true));
 			int numFuncOpGen = Integer.parseInt(args[8]);
-			// Generate tests for each function
-			QCInterpreter interpreter = new QCInterpreter(project, System.out, lower, upper, funcMemo, funcOpt, numFuncOpGen);
+			// Generate tests for each function, sharing the interpreter between the modules
+			interpreter = session != null ? session.getInterpreter(project, lower, upper, funcMemo, funcOpt, numFuncOpGen)
+					: new QCInterpreter(project, System.out, lower, upper, funcMemo, funcOpt, numFuncOpGen);
+			interpreter.setMaxCallDepth(maxCallDepth);
 			int numTests = RunTest.NUM_TESTS;
 			try {
 				numTests = Integer.parseInt(args[3]);
 			}
 			catch(NumberFormatException e) {}
 			int numSkipped = 0;
+			int numFunctions = 0;
 			Result result = Result.PASSED;
-			for(Decl.FunctionOrMethod func : funcMethods) {
-				Result r = executeTest(id, interpreter, func, testType, numTests, lower, upper);
-				if(r == Result.FAILED) {
-					result = r;
+			this.coverage = reportCoverage ? new Coverage() : null;
+			ResultsCache cache = null;
+			FunctionHash functionHash = null;
+			// The results depend on how the tests were generated
+			String configuration = String.join(" ", Arrays.copyOfRange(args, 2, args.length)) + " " + reportCoverage + " " + shard + " " + seed;
+			if(cacheFile != null) {
+				cache = new ResultsCache(cacheFile);
+				cache.load();
+				functionHash = new FunctionHash(interpreter.getTypeSystem());
+			}
+			ShardResults shardResults = resultsFile != null ? new ShardResults(testType, shard) : null;
+			Checkpoint checkpoint = null;
+			if(checkpointFile != null) {
+				checkpoint = new Checkpoint(checkpointFile, String.join(" ", args) + " " + reportCoverage + " " + shard + " " + seed, checkpointInterval);
+				if(resume && !checkpoint.load()) {
+					System.out.println("No checkpoint of these tests to resume from, testing from the start");
 				}
-				else if(r == Result.ERRORS) {
-					return r;
+			}
+			int funcNumber = 0;
+			for(String module : modules) {
+				Path.ID id = Trie.fromString(module);
+				List<Decl.FunctionOrMethod> declared = getFunctionsAndMethods(id, project);
+				List<Decl.FunctionOrMethod> funcMethods = declared;
+				if(funcMemo) {
+					// Test the functions called by a function first, so their verified results can be reused
+					funcMethods = new CallGraph(declared, interpreter.getTypeSystem()).bottomUp();
 				}
-				else if(r == Result.SKIPPED) {
-					numSkipped++;
+				if(modules.length > 1) {
+					System.out.println("Module: " + id);
 				}
+				for(Decl.FunctionOrMethod func : funcMethods) {
+					// Numbered in the order declared, so the shards and merged results don't depend on the testing order
+					int number = funcNumber + declared.indexOf(func);
+					// The whole function is tested by one shard
+					if(!isSplit(func, testType) && !shard.contains(number)) {
+						continue;
+					}
+					numFunctions++;
+					int funcTests = numTests;
+					String key = id + "::" + func.getName() + func.getType();
+					String hash = null;
+					if(cache != null) {
+						hash = functionHash.hash(func) + "-" + Integer.toHexString(configuration.hashCode());
+						Result cached = cache.get(key, hash);
+						if(cached == Result.PASSED || cached == Result.SKIPPED) {
+							if(cacheDownsample <= 0) {
+								System.out.println("Name of the function/method: " + func.getName());
+								System.out.println("Unchanged since it was last tested: " + cached);
+								if(cached == Result.SKIPPED) {
+									numSkipped++;
+								}
+								if(listener != null) {
+									listener.tested(id, func, cached);
+								}
+								continue;
+							}
+							funcTests = Math.max(1, numTests / cacheDownsample);
+						}
+					}
+					Progress progress = checkpoint != null ? checkpoint.getProgress(key) : new Progress();
+					TestStatistics statistics = new TestStatistics();
+					Result r;
+					if(progress.isDone()) {
+						// Finished testing before the tests were stopped
+						System.out.println("Name of the function/method: " + func.getName());
+						System.out.println("Tested before resuming");
+						for(String failure : progress.getFailures()) {
+							System.out.println("Failed Input: " + failure);
+						}
+						statistics = progress.getStatistics();
+						r = summarise(statistics, testType);
+					}
+					else {
+						// Coverage is only recorded when it is used
+						Coverage funcCoverage = null;
+						if(reportCoverage || testType == TestType.COVERAGE) {
+							funcCoverage = new Coverage();
+						}
+						interpreter.setCoverage(funcCoverage);
+						r = executeTest(id, interpreter, func, testType, funcTests, lower, upper, statistics, progress);
+						if(r == Result.ERRORS) {
+							statistics.setErrors();
+						}
+						if(reportCoverage) {
+							CoverageReport.print(System.out, funcCoverage, func);
+							coverage.merge(funcCoverage);
+						}
+					}
+					if(shardResults != null) {
+						shardResults.add(number, key, func.getName().get(), statistics);
+					}
+					if(cache != null) {
+						cache.put(key, hash, r);
+					}
+					if(listener != null) {
+						listener.tested(id, func, r);
+					}
+					if(r == Result.FAILED) {
+						result = r;
+					}
+					else if(r == Result.ERRORS) {
+						if(cache != null) {
+							cache.save();
+						}
+						if(shardResults != null) {
+							shardResults.save(resultsFile);
+						}
+						return r;
+					}
+					else if(r == Result.SKIPPED) {
+						numSkipped++;
+					}
+				}
+				funcNumber += declared.size();
+			}
+			if(cache != null) {
+				cache.save();
+			}
+			if(shardResults != null) {
+				shardResults.save(resultsFile);
 			}
 			if(result == Result.SKIPPED) {
 				// Some of the tests were successful
-				if(numSkipped != funcMethods.size()) {
+				if(numSkipped != numFunctions) {
 					return Result.PASSED;
 				}
 			}
@@ -157,9 +456,65 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 			System.err.println("internal failure: " + e.getMessage());
 			e.printStackTrace();
 			return Result.INTERNAL_FAILURE;
+		} finally {
+			// The session keeps its interpreters for the next tests
+			if(interpreter != null && session == null) {
+				interpreter.close();
+			}
 		}
 	}
 
+	/**
+	 * Merge the statistics of each function written by the shards,
+	 * printing the statistics of each function and giving the same result
+	 * as executing all the tests in a single process.
+	 * @param files The results written by each shard
+	 * @return The result of all the tests
+	 * @throws IOException If the results could not be read, are from different test campaigns,
+	 * or the same shard is given more than once
+	 */
+	public static Result merge(List<File> files) throws IOException {
+		ShardResults merged = null;
+		for(File file : files) {
+			ShardResults shardResults = ShardResults.load(file);
+			if(merged == null) {
+				merged = shardResults;
+			}
+			else {
+				try {
+					merged.merge(shardResults);
+				}
+				catch(IllegalArgumentException e) {
+					throw new IOException(e.getMessage(), e);
+				}
+			}
+		}
+		Result result = Result.PASSED;
+		if(merged == null) {
+			return result;
+		}
+		List<Shard> missing = merged.getMissingShards();
+		if(!missing.isEmpty()) {
+			System.out.println("Warning: the results of the shards " + missing + " are missing");
+		}
+		for(FunctionResult function : merged.getResults()) {
+			System.out.println("Name of the function/method: " + function.getName());
+			TestStatistics statistics = function.getStatistics();
+			if(!missing.isEmpty()) {
+				// The missing shards may not have tested all their combinations
+				statistics.set(statistics.getNumTest(), statistics.getNumPassed(), statistics.getNumFailed(), statistics.getNumSkipped(), false);
+			}
+			Result r = summarise(statistics, merged.getTestType());
+			if(r == Result.FAILED) {
+				result = r;
+			}
+			else if(r == Result.ERRORS) {
+				return r;
+			}
+		}
+		return result;
+	}
+
 	// =======================================================================
 	// Helpers
 	// =======================================================================
@@ -171,7 +526,7 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 	 * @param dir - The path directory to look for the Whiley/Wyil file.
 	 * @return Whiley Project
 	 */
-	private static Build.Project createWhileyProject(String standardLib, String dir) throws IOException {
+	static Build.Project createWhileyProject(String standardLib, String dir) throws IOException {
 		// The content registry maps file name extensions to their Content.Type.
 		Content.Registry registry = new wyc.Activator.Registry();
 		// The directory root specified where to look for Whiley / WyIL files.
@@ -180,12 +535,18 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 		roots.add(root);
 		// Add standard library location
 		if(standardLib != null) {
-			if(standardLib.endsWith("jar")) {
-				roots.add(new JarFileRoot(standardLib, registry));
-			}
-			else {
-				roots.add(new DirectoryRoot(standardLib, registry));
+			// The library doesn't change, so its files are only read once
+			Path.Root libraryRoot = libraryRoots.get(standardLib);
+			if(libraryRoot == null) {
+				if(standardLib.endsWith("jar")) {
+					libraryRoot = new JarFileRoot(standardLib, registry);
+				}
+				else {
+					libraryRoot = new DirectoryRoot(standardLib, registry);
+				}
+				libraryRoots.put(standardLib, libraryRoot);
 			}
+			roots.add(libraryRoot);
 		}
 		// Finally, create the project itself		
 		return new StdProject(roots);
@@ -202,20 +563,39 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 	 * @param numTest The number of tests to execute
 	 * @param lowerLimit The lower constraint used when generating integers
 	 * @param upperLimit The upper constraint used when generating integers
+	 * @param statistics Records the outcome of the tests
+	 * @param progress The progress of the tests, which may be continued from a checkpoint
 	 */
-	private Result executeTest(Path.ID id, QCInterpreter interpreter, Decl.FunctionOrMethod dec, TestType testType, int numTest, BigInteger lowerLimit, BigInteger upperLimit) {
+	private Result executeTest(Path.ID id, QCInterpreter interpreter, Decl.FunctionOrMethod dec, TestType testType, int numTest, BigInteger lowerLimit, BigInteger upperLimit, TestStatistics statistics, Progress progress) {
+		// The return values generated instead of calling functions are repeated with the seed
+		if(seed != null || shard.isPartitioned()) {
+			interpreter.setSeed(createRandomiser(dec).nextLong());
+		}
 		// Get the method for generating test values
 		GenerateTest testGen;
 		try {
 			if(testType == TestType.EXHAUSTIVE) {
-				testGen = new ExhaustiveGenerateTest(dec.getParameters(), interpreter, numTest, lowerLimit, upperLimit);
+				testGen = new ExhaustiveGenerateTest(dec.getParameters(), interpreter, numTest, lowerLimit, upperLimit, shard);
+			}
+			else if(testType == TestType.SIZED) {
+				testGen = new SizedGenerateTest(dec.getParameters(), interpreter, numTest, lowerLimit, upperLimit);
+			}
+			else if(testType == TestType.BOUNDARY) {
+				testGen = new BoundaryGenerateTest(dec.getParameters(), interpreter, numTest, lowerLimit, upperLimit);
+			}
+			else if(testType == TestType.COVERAGE) {
+				// The interpreter records the coverage used to guide the tests
+				testGen = new CoverageGuidedGenerateTest(dec.getParameters(), interpreter, interpreter.getCoverage(), numTest, lowerLimit, upperLimit);
 			}
 			else {
-	            testGen = new RandomGenerateTest(dec.getParameters(), interpreter, numTest, lowerLimit, upperLimit);
+				testGen = new RandomGenerateTest(dec.getParameters(), interpreter, numTest, lowerLimit, upperLimit, createRandomiser(dec), shard);
 			}
 		} catch (IntegerRangeException e) {
 			System.out.println("Integer range was invalid for the limits given.");
 			return Result.ERRORS;
+		} catch (CannotGenerateException e) {
+			System.out.println(e);
+			return Result.ERRORS;
 		}
 		// Get the function's relevant header information
 		NameID name = new NameID(id, dec.getName().get());
@@ -237,23 +617,77 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 //		dec.setOperand(4, empty); // Remove precondition
 //		dec.setOperand(5, empty); // Remove postcondition
 		
+		// The tests are split between the shards, otherwise the whole function belongs to this shard
+		boolean splitTests = isSplit(dec, testType);
+		int numShardTests = splitTests ? shard.size(numTest) : numTest;
 		boolean completedAll = false;
 		int numSkipped = 0;
 		int numPassed = 0;
 		int numFailed = 0;
-		for(int i=0; i < numTest; i++) {
+		// Continue from the test reached before the tests were stopped
+		int start = 0;
+		if(progress.getCursor() > 0 && canResume(testGen)) {
+			start = progress.getCursor();
+			numPassed = progress.getNumPassed();
+			numFailed = progress.getNumFailed();
+			numSkipped = progress.getNumSkipped();
+			System.out.println("Resuming from test " + start);
+			for(String failure : progress.getFailures()) {
+				System.out.println("Failed Input (before resuming): " + failure);
+			}
+			if(testGen instanceof ExhaustiveGenerateTest && progress.getPosition() >= 0) {
+				// Jump straight to the combination
+				((ExhaustiveGenerateTest) testGen).setPosition(progress.getPosition());
+			}
+			else {
+				for(int i=0; i < start; i++) {
+					testGen.generateParameters();
+				}
+			}
+		}
+		else {
+			progress.reset();
+		}
+		// The exhaustive tests never generate the same input twice
+		InputFilter inputs = testGen instanceof ExhaustiveGenerateTest ? new InputFilter() : new InputFilter(dec.getParameters(), interpreter.getTypeSystem());
+		if(start > 0) {
+			// The inputs tested before the tests were stopped are still counted when they are generated again
+			inputs.putAll(progress.getInputs());
+		}
+		progress.setInputs(inputs);
+		for(int i=start; i < numShardTests; i++) {
+			long position = testGen instanceof ExhaustiveGenerateTest ? ((ExhaustiveGenerateTest) testGen).getPosition() : -1;
+			progress.update(i, position, numPassed, numFailed, numSkipped);
 			recursiveType.clear();
 			// Stop execution if all possible combinations have been generated 
 			// Can do this for methods as well as a new call stack is created each time
-			if(testGen.exceedSize() && i != 0) {
+			// A shard may have no combinations to test
+			if(testGen.exceedSize() && (i != 0 || splitTests)) {
 				completedAll = true;
 				break;
 			}
 			RValue[] paramValues = null;
+			long input = 0;
 			CallStack frame = interpreter.new CallStack();
 			// Check the precondition
 			try {
 				paramValues = testGen.generateParameters();
+				input = inputs.fingerprint(paramValues);
+				// Count an input tested before with its previous outcome
+				Result previous = inputs.get(input);
+				if(previous != null) {
+					System.out.println("Duplicate input, not executed again: " + Arrays.toString(paramValues));
+					if(previous == Result.PASSED) {
+						numPassed++;
+					}
+					else if(previous == Result.FAILED) {
+						numFailed++;
+					}
+					else {
+						numSkipped++;
+					}
+					continue;
+				}
 				
 				for(int j=0; j < inputParameters.size(); j++) {
 					Decl.Variable parameter = inputParameters.get(j);
@@ -268,6 +702,13 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 			catch(AssertionError e){
 				System.out.println("Pre-condition failed on input: " + Arrays.toString(paramValues));
 				numSkipped++;
+				inputs.put(input, Result.SKIPPED);
+				continue;
+			}
+			catch(CallDepthException e) {
+				System.out.println("Input skipped, as checking the pre-condition " + e.getMessage() + ": " + Arrays.toString(paramValues));
+				numSkipped++;
+				inputs.put(input, Result.SKIPPED);
 				continue;
 			}
 			catch(RuntimeException e) {
@@ -285,8 +726,17 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 			catch(AssertionError e) {
 				System.out.println("Error occurred during execution " + e + ": " + e.getMessage());
 				numFailed++;
+				progress.addFailure(Arrays.toString(paramValues));
+				inputs.put(input, Result.FAILED);
 				continue;
 			} 
+			catch(CallDepthException e) {
+				// The input needs more nested calls than allowed, so it can't be tested
+				System.out.println("Input skipped, as executing it " + e.getMessage() + ": " + Arrays.toString(paramValues));
+				numSkipped++;
+				inputs.put(input, Result.SKIPPED);
+				continue;
+			}
 			catch(RuntimeException e) {
 				System.out.println("Error occurred during execution " + e + ": " + e.getMessage());
 				return Result.ERRORS;
@@ -306,6 +756,8 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 				try {
 					interpreter.checkInvariants(frame, postconditions);
 					numPassed++;
+					inputs.put(input, Result.PASSED);
+					interpreter.addVerifiedResult(dec, paramValues, returns);
 //					// Print out any return values produced
 					if (returns != null) {
 						System.out.println("OUTPUT: " + Arrays.toString(returns));
@@ -315,7 +767,14 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 					System.out.printf("Failed Input: %s%nFailed Output: %s%n", Arrays.toString(paramValues), Arrays.toString(returns));
 					System.out.println("Postcondition failed " + e);
 					numFailed++;
+					progress.addFailure(Arrays.toString(paramValues));
+					inputs.put(input, Result.FAILED);
 				} 
+				catch(CallDepthException e) {
+					System.out.println("Input skipped, as checking the post-condition " + e.getMessage() + ": " + Arrays.toString(paramValues));
+					numSkipped++;
+					inputs.put(input, Result.SKIPPED);
+				}
 				catch(RuntimeException e) {
 					System.out.println("Error when checking invariants of return values " + e + ": " + e.getMessage());
 					return Result.ERRORS;
@@ -325,7 +784,14 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 				System.out.printf("Failed Input: %s%nFailed Output: %s%n", Arrays.toString(paramValues), Arrays.toString(returns));
 				System.out.println("Due to error " + e);
 				numFailed++;
+				progress.addFailure(Arrays.toString(paramValues));
+				inputs.put(input, Result.FAILED);
 			} 
+			catch(CallDepthException e) {
+				System.out.println("Input skipped, as checking the return values " + e.getMessage() + ": " + Arrays.toString(paramValues));
+				numSkipped++;
+				inputs.put(input, Result.SKIPPED);
+			}
 			catch(RuntimeException e) {
 				System.out.println("Error when checking type invariants of return values " + e + ": " + e.getMessage());
 				return Result.ERRORS;
@@ -337,8 +803,33 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 			} 
 		}
 		// Overall test statistics
-		if(completedAll) {
-			System.out.println("Tested all possible combinations");
+		statistics.set(numShardTests, numPassed, numFailed, numSkipped, completedAll);
+		progress.finish(statistics);
+		return summarise(statistics, testType);
+	}
+	
+	/**
+	 * Print the overall statistics of the tests executed on a function.
+	 * @param statistics The outcome of the tests
+	 * @param testType The type of tests generated
+	 * @return The result of testing the function
+	 */
+	public static Result summarise(TestStatistics statistics, TestType testType) {
+		int numTest = statistics.getNumTest();
+		int numPassed = statistics.getNumPassed();
+		int numFailed = statistics.getNumFailed();
+		int numSkipped = statistics.getNumSkipped();
+		if(statistics.hasErrors()) {
+			System.out.println("An error occurred during testing.");
+			return Result.ERRORS;
+		}
+		if(statistics.hasCompletedAll()) {
+			if(testType == TestType.COVERAGE) {
+				System.out.println("Stopped as no new coverage was found");
+			}
+			else {
+				System.out.println("Tested all possible combinations");
+			}
 			int numActualTest = numPassed + numFailed + numSkipped;
 			if(numFailed == 0) {
 				if(numPassed > 0) {
@@ -372,6 +863,46 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 		}
 	}
 	
+	/**
+	 * Check whether the tests of a function are split between the shards.
+	 * Otherwise, the whole function is tested by one of the shards.
+	 * Only the random and exhaustive tests can be split,
+	 * as the other types of tests depend on the tests before them.
+	 * @param dec The function or method
+	 * @param testType The type of tests generated
+	 * @return Whether the tests are split
+	 */
+	private boolean isSplit(Decl.FunctionOrMethod dec, TestType testType) {
+		return shard.isPartitioned() && dec.getParameters().size() > 0
+				&& (testType == TestType.RANDOM || testType == TestType.EXHAUSTIVE);
+	}
+	
+	/**
+	 * Check whether the tests can be continued from a checkpoint,
+	 * which requires the tests to be generated in the same order every time.
+	 * @param testGen The test generator
+	 * @return Whether the tests can be continued
+	 */
+	private boolean canResume(GenerateTest testGen) {
+		return testGen instanceof ExhaustiveGenerateTest
+				|| (testGen instanceof RandomGenerateTest && (seed != null || shard.isPartitioned()));
+	}
+	
+	/**
+	 * Create the randomiser used to generate random tests for a function.
+	 * When the tests are split between shards, every shard uses the same seed
+	 * so they agree on the tests to execute.
+	 * @param dec The function or method
+	 * @return The randomiser
+	 */
+	private Random createRandomiser(Decl.FunctionOrMethod dec) {
+		if(seed == null && !shard.isPartitioned()) {
+			return new Random();
+		}
+		long functionSeed = seed == null ? DEFAULT_SEED : seed;
+		return new Random(functionSeed ^ dec.getName().get().hashCode());
+	}
+	
 	/**
 	 * Check the postcondition of all types,
 	 * including invariants within unions and nominals.
@@ -393,7 +924,7 @@ public class RunTest extends AbstractProjectCommand<RunTest.Result> {
 				return false;
 			}
 			else if(decl.getInvariant().size() > 0) {
-				RValue.Bool valid = returnVal.checkInvariant(decl.getVariableDeclaration(), decl.getInvariant(), interpreter);
+				RValue.Bool valid = InvariantCache.check(interpreter, decl, returnVal);
 				if(valid == RValue.Bool.False) {
 					return false;
 				}
@@ -0,0 +1,148 @@
+package quickcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import wybs.lang.Build;
+
+/**
+ * Keeps the projects and interpreters between the executions of the tests,
+ * e.g. for a daemon, so the Wyil files, the memoised calls, the invariant cache
+ * and the other caches of the interpreter are kept between the requests.
+ *
+ * The project of a directory, and its interpreters, are dropped
+ * when a Wyil file in the directory is added, removed or changed,
+ * as the interpreters cache the declarations of the project.
+ *
+ * @author Janice Chin
+ *
+ */
+public class TestSession {
+	/** The project of each directory, by the directory and standard library */
+	private final Map<String, Workspace> workspaces;
+
+	public TestSession() {
+		this.workspaces = new HashMap<String, Workspace>();
+	}
+
+	/**
+	 * Get the project of a directory, creating it when the Wyil files have changed.
+	 * @param standardLib The standard library, or null
+	 * @param dir The directory of the Wyil files
+	 * @return The project
+	 * @throws IOException
+	 */
+	public Build.Project getProject(String standardLib, String dir) throws IOException {
+		return getWorkspace(standardLib, dir).project;
+	}
+
+	/**
+	 * Get the interpreter of a project for a configuration,
+	 * creating it the first time the configuration is used with the project.
+	 * @param project The project, from this session
+	 * @param lowerLimit The lower limit of the integers generated
+	 * @param upperLimit The upper limit of the integers generated
+	 * @param funcMemo Whether function calls are memoised
+	 * @param funcOpt Whether the return values of functions are generated
+	 * @param numFuncOpGen The number of return values generated for each call
+	 * @return The interpreter
+	 */
+	public QCInterpreter getInterpreter(Build.Project project, BigInteger lowerLimit, BigInteger upperLimit, boolean funcMemo, boolean funcOpt, int numFuncOpGen) {
+		String configuration = lowerLimit + " " + upperLimit + " " + funcMemo + " " + funcOpt + " " + numFuncOpGen;
+		for(Workspace workspace : workspaces.values()) {
+			if(workspace.project == project) {
+				QCInterpreter interpreter = workspace.interpreters.get(configuration);
+				if(interpreter == null) {
+					interpreter = new QCInterpreter(project, System.out, lowerLimit, upperLimit, funcMemo, funcOpt, numFuncOpGen);
+					workspace.interpreters.put(configuration, interpreter);
+				}
+				return interpreter;
+			}
+		}
+		throw new IllegalArgumentException("The project is not from this session");
+	}
+
+	/**
+	 * @return The number of projects kept
+	 */
+	public int size() {
+		return workspaces.size();
+	}
+
+	/**
+	 * Drop the projects and close their interpreters, e.g. once the daemon stops.
+	 */
+	public void close() {
+		for(Workspace workspace : workspaces.values()) {
+			workspace.close();
+		}
+		workspaces.clear();
+	}
+
+	private Workspace getWorkspace(String standardLib, String dir) throws IOException {
+		String key = new File(dir).getCanonicalPath() + File.pathSeparator + standardLib;
+		List<String> files = listWyilFiles(new File(dir));
+		Workspace workspace = workspaces.get(key);
+		if(workspace == null || !workspace.files.equals(files)) {
+			if(workspace != null) {
+				workspace.close();
+			}
+			workspace = new Workspace(RunTest.createWhileyProject(standardLib, dir), files);
+			workspaces.put(key, workspace);
+		}
+		return workspace;
+	}
+
+	/**
+	 * List the Wyil files in a directory and its subdirectories,
+	 * with when they were last modified and their size.
+	 * @param directory The directory
+	 * @return Each Wyil file, in order
+	 * @throws IOException
+	 */
+	private static List<String> listWyilFiles(File directory) throws IOException {
+		try(Stream<java.nio.file.Path> files = Files.walk(directory.toPath())) {
+			return files.filter(file -> file.toString().endsWith(".wyil"))
+					.map(file -> {
+						File f = file.toFile();
+						return f.getPath() + File.pathSeparator + f.lastModified() + File.pathSeparator + f.length();
+					})
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * The project of a directory and its interpreters,
+	 * which are kept while the Wyil files are unchanged.
+	 */
+	private static final class Workspace {
+		private final Build.Project project;
+		/** The Wyil files when the project was created */
+		private final List<String> files;
+		/** The interpreter of each configuration */
+		private final Map<String, QCInterpreter> interpreters;
+
+		public Workspace(Build.Project project, List<String> files) {
+			this.project = project;
+			this.files = files;
+			this.interpreters = new HashMap<String, QCInterpreter>();
+		}
+
+		/**
+		 * Close the interpreters, which are no longer used.
+		 */
+		public void close() {
+			for(QCInterpreter interpreter : interpreters.values()) {
+				interpreter.close();
+			}
+		}
+	}
+}
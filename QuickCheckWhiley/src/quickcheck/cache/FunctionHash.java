@@ -0,0 +1,180 @@
+package quickcheck.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import wybs.lang.NameResolver.ResolutionError;
+import wybs.lang.SyntacticItem;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Expr;
+import wyc.lang.WhileyFile.Type;
+import wyil.type.TypeSystem;
+
+/**
+ * Computes a hash of the contents of a function or method,
+ * i.e. its parameters, contracts and body, combined with the contents
+ * of every function, method, property, type and constant it uses (transitively).
+ *
+ * The hash only depends on the contents of the declarations,
+ * not where they are stored in the file, so it is unchanged
+ * when other declarations in the file are changed.
+ *
+ * @author Janice Chin
+ *
+ */
+public class FunctionHash {
+	/** Used to find the declarations used by a declaration */
+	private final TypeSystem typeSystem;
+	/** The hash of each declaration and the declarations it uses directly */
+	private final Map<Decl, DeclHash> declarations;
+
+	public FunctionHash(TypeSystem typeSystem) {
+		this.typeSystem = typeSystem;
+		this.declarations = new IdentityHashMap<Decl, DeclHash>();
+	}
+
+	/**
+	 * Get the hash of a function or method and all the declarations it uses.
+	 * @param func The function or method
+	 * @return The hash as a hexadecimal string
+	 */
+	public String hash(Decl.FunctionOrMethod func) {
+		// Find all the declarations used transitively
+		Set<Decl> used = Collections.newSetFromMap(new IdentityHashMap<Decl, Boolean>());
+		Deque<Decl> worklist = new ArrayDeque<Decl>();
+		used.add(func);
+		worklist.add(func);
+		long hash = 0;
+		while(!worklist.isEmpty()) {
+			DeclHash declHash = getDeclHash(worklist.poll());
+			// Order of the declarations does not matter
+			hash += mix(declHash.hash);
+			for(Decl dependency : declHash.dependencies) {
+				if(used.add(dependency)) {
+					worklist.add(dependency);
+				}
+			}
+		}
+		hash = combine(getDeclHash(func).hash, hash);
+		return String.format("%016x", hash);
+	}
+
+	/**
+	 * Get the hash of a declaration, hashing it if it hasn't been hashed yet.
+	 * @param decl The declaration
+	 * @return The hash and dependencies of the declaration
+	 */
+	private DeclHash getDeclHash(Decl decl) {
+		DeclHash declHash = declarations.get(decl);
+		if(declHash == null) {
+			List<Decl> dependencies = new ArrayList<Decl>();
+			long hash = hashItem(decl, new IdentityHashMap<SyntacticItem, Long>(), dependencies);
+			declHash = new DeclHash(hash, dependencies);
+			declarations.put(decl, declHash);
+		}
+		return declHash;
+	}
+
+	/**
+	 * Hash the contents of a syntactic item and the items within it,
+	 * and find the declarations it uses.
+	 * @param item The syntactic item
+	 * @param hashed The items already hashed within the declaration
+	 * @param dependencies The declarations used by the item
+	 * @return The hash of the item
+	 */
+	private long hashItem(SyntacticItem item, Map<SyntacticItem, Long> hashed, List<Decl> dependencies) {
+		if(item == null) {
+			return 0;
+		}
+		Long previous = hashed.get(item);
+		if(previous != null) {
+			return previous;
+		}
+		long hash = item.getOpcode();
+		byte[] data = item.getData();
+		if(data != null) {
+			for(byte b : data) {
+				hash = combine(hash, b);
+			}
+		}
+		for(int i=0; i < item.size(); i++) {
+			hash = combine(hash, hashItem(item.get(i), hashed, dependencies));
+		}
+		hashed.put(item, hash);
+		addDependency(item, dependencies);
+		return hash;
+	}
+
+	/**
+	 * Add the declaration the item refers to, if any.
+	 * Declarations which cannot be resolved only contribute their name to the hash.
+	 * @param item The syntactic item
+	 * @param dependencies The declarations used
+	 */
+	private void addDependency(SyntacticItem item, List<Decl> dependencies) {
+		try {
+			if(item instanceof Expr.Invoke) {
+				Expr.Invoke invoke = (Expr.Invoke) item;
+				dependencies.add(typeSystem.resolveExactly(invoke.getName(), invoke.getSignature(), Decl.Callable.class));
+			}
+			else if(item instanceof Expr.LambdaAccess) {
+				Expr.LambdaAccess lambda = (Expr.LambdaAccess) item;
+				dependencies.add(typeSystem.resolveExactly(lambda.getName(), lambda.getSignature(), Decl.Callable.class));
+			}
+			else if(item instanceof Expr.StaticVariableAccess) {
+				Expr.StaticVariableAccess access = (Expr.StaticVariableAccess) item;
+				dependencies.add(typeSystem.resolveExactly(access.getName(), Decl.StaticVariable.class));
+			}
+			else if(item instanceof Type.Nominal) {
+				Type.Nominal nominal = (Type.Nominal) item;
+				dependencies.add(typeSystem.resolveExactly(nominal.getName(), Decl.Type.class));
+			}
+		}
+		catch(ResolutionError e) {}
+	}
+
+	/**
+	 * Combine two hashes, where the order matters.
+	 * @param hash The hash so far
+	 * @param value The value added to the hash
+	 * @return The combined hash
+	 */
+	private static long combine(long hash, long value) {
+		return mix(hash * 31 + value);
+	}
+
+	/**
+	 * Spread the bits of a hash (the finaliser of MurmurHash3).
+	 * @param hash The hash
+	 * @return The mixed hash
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * The hash of a declaration on its own,
+	 * and the declarations it uses directly.
+	 */
+	private static class DeclHash {
+		private final long hash;
+		private final List<Decl> dependencies;
+
+		public DeclHash(long hash, List<Decl> dependencies) {
+			this.hash = hash;
+			this.dependencies = dependencies;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package quickcheck.cache;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import quickcheck.RunTest.Result;
+
+/**
+ * The results of testing each function, stored in a local file
+ * so functions which have not changed since they were last tested can be skipped.
+ *
+ * Each line of the file is a function's key, the hash of the function
+ * (and the configuration it was tested with) and the result, separated by tabs.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ResultsCache {
+	private static final String SEPARATOR = "\t";
+
+	/** The file the results are stored in */
+	private final File file;
+	/** The hash and result of each function */
+	private final Map<String, Entry> entries;
+
+	public ResultsCache(File file) {
+		this.file = file;
+		this.entries = new TreeMap<String, Entry>();
+	}
+
+	/**
+	 * Read the results stored in the file, if it exists.
+	 * Lines which cannot be read are ignored.
+	 * @throws IOException
+	 */
+	public void load() throws IOException {
+		entries.clear();
+		if(!file.exists()) {
+			return;
+		}
+		try(BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				String[] parts = line.split(SEPARATOR);
+				if(parts.length != 3) {
+					continue;
+				}
+				try {
+					entries.put(parts[0], new Entry(parts[1], Result.valueOf(parts[2])));
+				}
+				catch(IllegalArgumentException e) {}
+			}
+		}
+	}
+
+	/**
+	 * Write the results to the file.
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if(parent != null) {
+			parent.mkdirs();
+		}
+		try(PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+				writer.println(entry.getKey() + SEPARATOR + entry.getValue().hash + SEPARATOR + entry.getValue().result);
+			}
+		}
+	}
+
+	/**
+	 * Get the last result of a function, if it has not changed since.
+	 * @param key The key of the function
+	 * @param hash The current hash of the function
+	 * @return The last result, or null if the function was not tested with this hash
+	 */
+	public Result get(String key, String hash) {
+		Entry entry = entries.get(key);
+		if(entry == null || !entry.hash.equals(hash)) {
+			return null;
+		}
+		return entry.result;
+	}
+
+	/**
+	 * Store the result of testing a function.
+	 * @param key The key of the function
+	 * @param hash The hash of the function
+	 * @param result The result of testing the function
+	 */
+	public void put(String key, String hash, Result result) {
+		entries.put(key, new Entry(hash, result));
+	}
+
+	/**
+	 * The hash of a function and its result
+	 */
+	private static class Entry {
+		private final String hash;
+		private final Result result;
+
+		public Entry(String hash, Result result) {
+			this.hash = hash;
+			this.result = result;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package quickcheck.checkpoint;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import quickcheck.util.InputFilter;
+
+/**
+ * The progress of a test campaign, saved periodically to a local file
+ * so the tests can be resumed if they are stopped.
+ *
+ * The first line of the file is the configuration of the tests,
+ * then each function's progress, the inputs which failed and the fingerprints of the inputs tested,
+ * separated by tabs:
+ * <pre>
+ * CONFIG    configuration
+ * FUNCTION  key  number of tests  cursor  position  passed  failed  skipped  completed all  done
+ * FAILURE   key  input
+ * INPUTS    key  fingerprints
+ * </pre>
+ *
+ * @author Janice Chin
+ *
+ */
+public class Checkpoint {
+	/** Time between saving the progress, in milliseconds */
+	public static final long DEFAULT_INTERVAL = 60000;
+
+	private static final String SEPARATOR = "\t";
+	private static final String CONFIG = "CONFIG";
+	private static final String FUNCTION = "FUNCTION";
+	private static final String FAILURE = "FAILURE";
+	private static final String INPUTS = "INPUTS";
+
+	/** The file the progress is saved to */
+	private final File file;
+	/** The configuration of the tests, which must be the same to resume the tests */
+	private final String configuration;
+	/** Time between saving the progress, in nanoseconds */
+	private final long interval;
+	/** The progress of each function */
+	private final Map<String, Progress> progress;
+	/** When the progress was last saved */
+	private long lastSave;
+
+	/**
+	 * @param file The file the progress is saved to
+	 * @param configuration The configuration of the tests
+	 * @param interval The time between saving the progress, in milliseconds
+	 */
+	public Checkpoint(File file, String configuration, long interval) {
+		this.file = file;
+		this.configuration = configuration;
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.progress = new LinkedHashMap<String, Progress>();
+		this.lastSave = System.nanoTime();
+	}
+
+	/**
+	 * Get the progress of a function, which is empty if it hasn't been tested yet.
+	 * @param key The key of the function
+	 * @return The progress of the function
+	 */
+	public Progress getProgress(String key) {
+		Progress p = progress.get(key);
+		if(p == null) {
+			p = new Progress(this);
+			progress.put(key, p);
+		}
+		return p;
+	}
+
+	/**
+	 * Read the progress saved by the previous tests.
+	 * @return Whether the progress was read, which is false if there is no checkpoint
+	 * or it is from tests with a different configuration
+	 * @throws IOException If the file cannot be read, or is invalid
+	 */
+	public boolean load() throws IOException {
+		progress.clear();
+		if(!file.exists()) {
+			return false;
+		}
+		try(BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line = reader.readLine();
+			if(line == null || !line.equals(CONFIG + SEPARATOR + configuration)) {
+				return false;
+			}
+			while((line = reader.readLine()) != null) {
+				String[] parts = line.split(SEPARATOR, -1);
+				if(parts[0].equals(FUNCTION) && parts.length == 10) {
+					getProgress(parts[1]).restore(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+							Long.parseLong(parts[4]), Integer.parseInt(parts[5]), Integer.parseInt(parts[6]),
+							Integer.parseInt(parts[7]), Boolean.parseBoolean(parts[8]), Boolean.parseBoolean(parts[9]));
+				}
+				else if(parts[0].equals(FAILURE) && parts.length == 3) {
+					getProgress(parts[1]).addFailure(parts[2]);
+				}
+				else if(parts[0].equals(INPUTS) && parts.length == 3) {
+					getProgress(parts[1]).setInputs(InputFilter.load(parts[2]));
+				}
+				else {
+					throw new IOException("Invalid line in the checkpoint " + file + ": " + line);
+				}
+			}
+			return true;
+		}
+		catch(NumberFormatException e) {
+			throw new IOException("Invalid checkpoint " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Save the progress if it hasn't been saved for the interval.
+	 */
+	void saveIfDue() {
+		if(System.nanoTime() - lastSave >= interval) {
+			save();
+		}
+	}
+
+	/**
+	 * Save the progress. The previous checkpoint is only replaced
+	 * once the new checkpoint has been written.
+	 */
+	public void save() {
+		lastSave = System.nanoTime();
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			try(PrintWriter writer = new PrintWriter(new FileWriter(temp))) {
+				writer.println(CONFIG + SEPARATOR + configuration);
+				for(Map.Entry<String, Progress> entry : progress.entrySet()) {
+					Progress p = entry.getValue();
+					writer.println(String.join(SEPARATOR, FUNCTION, entry.getKey(), Integer.toString(p.getNumTest()),
+							Integer.toString(p.getCursor()), Long.toString(p.getPosition()), Integer.toString(p.getNumPassed()),
+							Integer.toString(p.getNumFailed()), Integer.toString(p.getNumSkipped()),
+							Boolean.toString(p.hasCompletedAll()), Boolean.toString(p.isDone())));
+					for(String failure : p.getFailures()) {
+						writer.println(FAILURE + SEPARATOR + entry.getKey() + SEPARATOR + failure);
+					}
+					String inputs = p.getInputs().save();
+					if(!inputs.isEmpty()) {
+						writer.println(INPUTS + SEPARATOR + entry.getKey() + SEPARATOR + inputs);
+					}
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(IOException e) {
+			System.out.println("Could not save the checkpoint " + file + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package quickcheck.checkpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import quickcheck.util.InputFilter;
+import quickcheck.util.TestStatistics;
+
+/**
+ * The progress of testing a function, i.e. the number of combinations
+ * used so far, the outcome of those tests, the inputs which failed
+ * and the fingerprints of the inputs tested.
+ *
+ * @author Janice Chin
+ *
+ */
+public class Progress {
+	/** The checkpoint the progress is saved to, or null if it isn't saved */
+	private final Checkpoint checkpoint;
+
+	/** The number of tests that are meant to be executed */
+	private int numTest;
+	/** The number of combinations used so far */
+	private int cursor;
+	/** The position of the next combination to generate, or -1 if the tests cannot start from a position */
+	private long position = -1;
+	private int numPassed;
+	private int numFailed;
+	private int numSkipped;
+	private boolean completedAll;
+	/** Whether the function has finished being tested */
+	private boolean done;
+	/** The inputs which failed */
+	private List<String> failures;
+	/** The fingerprints of the inputs tested and their outcomes */
+	private InputFilter inputs;
+
+	/**
+	 * Create the progress of a function which is not checkpointed
+	 */
+	public Progress() {
+		this(null);
+	}
+
+	Progress(Checkpoint checkpoint) {
+		this.checkpoint = checkpoint;
+		this.failures = new ArrayList<String>();
+		this.inputs = new InputFilter();
+	}
+
+	/**
+	 * Update the progress of the tests, which is saved if a checkpoint is due.
+	 * @param cursor The number of combinations used so far
+	 * @param position The position of the next combination to generate, or -1 if unknown
+	 * @param numPassed The number of tests passed
+	 * @param numFailed The number of tests failed
+	 * @param numSkipped The number of tests skipped
+	 */
+	public void update(int cursor, long position, int numPassed, int numFailed, int numSkipped) {
+		this.cursor = cursor;
+		this.position = position;
+		this.numPassed = numPassed;
+		this.numFailed = numFailed;
+		this.numSkipped = numSkipped;
+		if(checkpoint != null) {
+			checkpoint.saveIfDue();
+		}
+	}
+
+	/**
+	 * Record an input which failed.
+	 * @param input The input
+	 */
+	public void addFailure(String input) {
+		failures.add(input);
+	}
+
+	/**
+	 * Record the function has finished being tested, and save the checkpoint.
+	 * @param statistics The outcome of the tests
+	 */
+	public void finish(TestStatistics statistics) {
+		this.numTest = statistics.getNumTest();
+		this.numPassed = statistics.getNumPassed();
+		this.numFailed = statistics.getNumFailed();
+		this.numSkipped = statistics.getNumSkipped();
+		this.completedAll = statistics.hasCompletedAll();
+		this.done = true;
+		if(checkpoint != null) {
+			checkpoint.save();
+		}
+	}
+
+	/**
+	 * Start testing the function again from the first combination
+	 */
+	public void reset() {
+		this.numTest = 0;
+		this.cursor = 0;
+		this.position = -1;
+		this.numPassed = 0;
+		this.numFailed = 0;
+		this.numSkipped = 0;
+		this.completedAll = false;
+		this.done = false;
+		this.failures.clear();
+		this.inputs = new InputFilter();
+	}
+
+	/**
+	 * @return The outcome of the tests of a function that has finished being tested
+	 */
+	public TestStatistics getStatistics() {
+		return new TestStatistics(numTest, numPassed, numFailed, numSkipped, completedAll, false);
+	}
+
+	public int getNumTest() {
+		return numTest;
+	}
+
+	public int getCursor() {
+		return cursor;
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	public int getNumPassed() {
+		return numPassed;
+	}
+
+	public int getNumFailed() {
+		return numFailed;
+	}
+
+	public int getNumSkipped() {
+		return numSkipped;
+	}
+
+	public boolean hasCompletedAll() {
+		return completedAll;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	public List<String> getFailures() {
+		return failures;
+	}
+
+	public InputFilter getInputs() {
+		return inputs;
+	}
+
+	/**
+	 * Set the filter recording the inputs tested, which is saved with the progress.
+	 * @param inputs The filter of the inputs
+	 */
+	public void setInputs(InputFilter inputs) {
+		this.inputs = inputs;
+	}
+
+	/**
+	 * Restore the progress read from a checkpoint
+	 */
+	void restore(int numTest, int cursor, long position, int numPassed, int numFailed, int numSkipped, boolean completedAll, boolean done) {
+		this.numTest = numTest;
+		this.cursor = cursor;
+		this.position = position;
+		this.numPassed = numPassed;
+		this.numFailed = numFailed;
+		this.numSkipped = numSkipped;
+		this.completedAll = completedAll;
+		this.done = done;
+	}
+}
@@ -0,0 +1,233 @@
+package quickcheck.coverage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import wybs.lang.SyntacticHeap;
+import wybs.lang.SyntacticItem;
+import wybs.util.AbstractCompilationUnit;
+import wyc.lang.WhileyFile.Decl;
+
+/**
+ * The statements and branches executed by the interpreter.
+ * Each statement and branch is identified by the index of
+ * its syntactic item within the file (i.e. syntactic heap) it is from.
+ *
+ * A branch is the outcome of a condition, e.g. the true or false branch of an if statement,
+ * each evaluation of a loop condition or an operand of a logical and/or.
+ *
+ * Files are identified by their path, so the coverage recorded
+ * by different interpreters of the same files can be merged.
+ *
+ * @author Janice Chin
+ *
+ */
+public class Coverage {
+	/** A file for each file identifier, used to find the functions executed */
+	private final Map<Object, SyntacticHeap> heaps;
+	/** The statements executed in each file */
+	private final Map<Object, BitSet> statements;
+	/** The branches taken in each file, two per condition */
+	private final Map<Object, BitSet> branches;
+	/** The functions and methods executed in each file */
+	private final Map<Object, BitSet> callables;
+	/** Number of statements and branches covered */
+	private int count;
+
+	/** The last file recorded into and its statements/branches, as most are from the same file */
+	private SyntacticHeap lastHeap;
+	private BitSet lastStatements;
+	private BitSet lastBranches;
+
+	public Coverage() {
+		this.heaps = new HashMap<Object, SyntacticHeap>();
+		this.statements = new HashMap<Object, BitSet>();
+		this.branches = new HashMap<Object, BitSet>();
+		this.callables = new HashMap<Object, BitSet>();
+		this.count = 0;
+	}
+
+	/**
+	 * Record a function or method being executed.
+	 * @param callable The function or method executed
+	 */
+	public void enter(Decl.Callable callable) {
+		getBits(callables, callable.getHeap()).set(callable.getIndex());
+	}
+
+	/**
+	 * Record a statement being executed.
+	 * @param stmt The statement executed
+	 */
+	public void statement(SyntacticItem stmt) {
+		if(stmt.getHeap() != lastHeap) {
+			changeHeap(stmt.getHeap());
+		}
+		set(lastStatements, stmt.getIndex());
+	}
+
+	/**
+	 * Record the outcome of a condition.
+	 * @param condition The condition, or the item that was chosen because of it
+	 * @param taken Whether the condition held
+	 */
+	public void branch(SyntacticItem condition, boolean taken) {
+		if(condition.getHeap() != lastHeap) {
+			changeHeap(condition.getHeap());
+		}
+		set(lastBranches, branchIndex(condition, taken));
+	}
+
+	/**
+	 * Check if a statement has been executed.
+	 * @param stmt The statement
+	 * @return Whether the statement was executed
+	 */
+	public boolean hasStatement(SyntacticItem stmt) {
+		BitSet bits = statements.get(key(stmt.getHeap()));
+		return bits != null && bits.get(stmt.getIndex());
+	}
+
+	/**
+	 * Check if the outcome of a condition has occurred.
+	 * @param condition The condition, or the item that was chosen because of it
+	 * @param taken Whether the condition held
+	 * @return Whether the outcome occurred
+	 */
+	public boolean hasBranch(SyntacticItem condition, boolean taken) {
+		BitSet bits = branches.get(key(condition.getHeap()));
+		return bits != null && bits.get(branchIndex(condition, taken));
+	}
+
+	/**
+	 * Get the functions and methods which have been executed.
+	 * @return The functions and methods executed
+	 */
+	public List<Decl.Callable> getCallables() {
+		List<Decl.Callable> executed = new ArrayList<Decl.Callable>();
+		for(Map.Entry<Object, BitSet> entry : callables.entrySet()) {
+			SyntacticHeap heap = heaps.get(entry.getKey());
+			BitSet bits = entry.getValue();
+			for(int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+				executed.add((Decl.Callable) heap.getSyntacticItem(i));
+			}
+		}
+		return executed;
+	}
+
+	/**
+	 * Add the coverage recorded by another interpreter, e.g. from testing in parallel.
+	 * @param other The coverage to add
+	 */
+	public void merge(Coverage other) {
+		for(Map.Entry<Object, SyntacticHeap> entry : other.heaps.entrySet()) {
+			if(!heaps.containsKey(entry.getKey())) {
+				heaps.put(entry.getKey(), entry.getValue());
+			}
+		}
+		merge(statements, other.statements);
+		merge(branches, other.branches);
+		merge(callables, other.callables);
+		this.count = 0;
+		for(BitSet bits : statements.values()) {
+			count += bits.cardinality();
+		}
+		for(BitSet bits : branches.values()) {
+			count += bits.cardinality();
+		}
+	}
+
+	/**
+	 * Get the number of statements and branches that have been covered.
+	 * This increases whenever a new statement or branch is executed.
+	 * @return The number of statements and branches covered
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Get the bit used for the outcome of a condition.
+	 * @param condition The condition, or the item that was chosen because of it
+	 * @param taken Whether the condition held
+	 * @return The index of the bit
+	 */
+	private static int branchIndex(SyntacticItem condition, boolean taken) {
+		return condition.getIndex() * 2 + (taken ? 0 : 1);
+	}
+
+	/**
+	 * Get the identifier of a file.
+	 * @param heap The file
+	 * @return The path of the file, or the file itself if it has no path
+	 */
+	private static Object key(SyntacticHeap heap) {
+		if(heap instanceof AbstractCompilationUnit) {
+			AbstractCompilationUnit<?> unit = (AbstractCompilationUnit<?>) heap;
+			if(unit.getEntry() != null) {
+				return unit.getEntry().id();
+			}
+		}
+		return heap;
+	}
+
+	/**
+	 * Move onto recording the statements and branches of a different file.
+	 * @param heap The file
+	 */
+	private void changeHeap(SyntacticHeap heap) {
+		this.lastHeap = heap;
+		this.lastStatements = getBits(statements, heap);
+		this.lastBranches = getBits(branches, heap);
+	}
+
+	/**
+	 * Get the bits for a file, creating them if required.
+	 * @param coverage The coverage of each file
+	 * @param heap The file
+	 * @return The bits for the file
+	 */
+	private BitSet getBits(Map<Object, BitSet> coverage, SyntacticHeap heap) {
+		Object key = key(heap);
+		if(!heaps.containsKey(key)) {
+			heaps.put(key, heap);
+		}
+		BitSet bits = coverage.get(key);
+		if(bits == null) {
+			bits = new BitSet();
+			coverage.put(key, bits);
+		}
+		return bits;
+	}
+
+	/**
+	 * Set a bit, counting it if it was not covered before.
+	 * @param bits The bits of a file
+	 * @param index The bit to set
+	 */
+	private void set(BitSet bits, int index) {
+		if(!bits.get(index)) {
+			bits.set(index);
+			count++;
+		}
+	}
+
+	/**
+	 * Add the bits of each file from another coverage.
+	 * @param coverage The coverage added to
+	 * @param other The coverage to add
+	 */
+	private static void merge(Map<Object, BitSet> coverage, Map<Object, BitSet> other) {
+		for(Map.Entry<Object, BitSet> entry : other.entrySet()) {
+			BitSet bits = coverage.get(entry.getKey());
+			if(bits == null) {
+				bits = new BitSet();
+				coverage.put(entry.getKey(), bits);
+			}
+			bits.or(entry.getValue());
+		}
+	}
+}
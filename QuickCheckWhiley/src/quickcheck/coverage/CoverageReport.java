@@ -0,0 +1,188 @@
+package quickcheck.coverage;
+
+import java.io.PrintStream;
+
+import wybs.lang.SyntacticItem;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Expr;
+import wyc.lang.WhileyFile.Stmt;
+
+/**
+ * Summarises the statement and branch coverage of a function or method,
+ * by comparing the statements and branches in its body
+ * against the coverage recorded.
+ *
+ * @author Janice Chin
+ *
+ */
+public class CoverageReport {
+	private final Coverage coverage;
+
+	private int numStatements;
+	private int coveredStatements;
+	private int numBranches;
+	private int coveredBranches;
+
+	public CoverageReport(Coverage coverage, Decl.FunctionOrMethod function) {
+		this.coverage = coverage;
+		if(function.getBody() != null) {
+			countBlock(function.getBody());
+		}
+	}
+
+	/**
+	 * Print the coverage of the function tested,
+	 * and of each of the other functions and methods it called.
+	 * @param out Where the coverage is printed
+	 * @param coverage The coverage recorded when testing the function
+	 * @param tested The function or method tested
+	 */
+	public static void print(PrintStream out, Coverage coverage, Decl.FunctionOrMethod tested) {
+		out.println("Coverage of " + tested.getName() + ": " + new CoverageReport(coverage, tested));
+		for(Decl.Callable callable : coverage.getCallables()) {
+			if(callable instanceof Decl.FunctionOrMethod && !callable.equals(tested)) {
+				Decl.FunctionOrMethod callee = (Decl.FunctionOrMethod) callable;
+				out.println("  Coverage of callee " + callee.getName() + ": " + new CoverageReport(coverage, callee));
+			}
+		}
+	}
+
+	public int getNumStatements() {
+		return numStatements;
+	}
+
+	public int getCoveredStatements() {
+		return coveredStatements;
+	}
+
+	public int getNumBranches() {
+		return numBranches;
+	}
+
+	public int getCoveredBranches() {
+		return coveredBranches;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d/%d statements (%.2f %%), %d/%d branches (%.2f %%)",
+				coveredStatements, numStatements, percentage(coveredStatements, numStatements),
+				coveredBranches, numBranches, percentage(coveredBranches, numBranches));
+	}
+
+	/**
+	 * Get the percentage covered, where nothing to cover is fully covered.
+	 * @param covered The number covered
+	 * @param total The total number
+	 * @return The percentage covered
+	 */
+	private static double percentage(int covered, int total) {
+		return total == 0 ? 100 : (double) 100 * covered / total;
+	}
+
+	/**
+	 * Count the statements and branches in a block.
+	 * @param block The block of statements
+	 */
+	private void countBlock(Stmt.Block block) {
+		for(int i=0; i < block.size(); i++) {
+			countStatement(block.get(i));
+		}
+	}
+
+	/**
+	 * Count a statement, and the statements and branches within it.
+	 * @param stmt The statement
+	 */
+	private void countStatement(Stmt stmt) {
+		numStatements++;
+		if(coverage.hasStatement(stmt)) {
+			coveredStatements++;
+		}
+		if(stmt instanceof Stmt.IfElse) {
+			Stmt.IfElse ifElse = (Stmt.IfElse) stmt;
+			countCondition(stmt);
+			countExpression(ifElse.getCondition());
+			countBlock(ifElse.getTrueBranch());
+			if(ifElse.hasFalseBranch()) {
+				countBlock(ifElse.getFalseBranch());
+			}
+		}
+		else if(stmt instanceof Stmt.While) {
+			Stmt.While loop = (Stmt.While) stmt;
+			countCondition(stmt);
+			countExpression(loop.getCondition());
+			countBlock(loop.getBody());
+		}
+		else if(stmt instanceof Stmt.DoWhile) {
+			Stmt.DoWhile loop = (Stmt.DoWhile) stmt;
+			countCondition(stmt);
+			countExpression(loop.getCondition());
+			countBlock(loop.getBody());
+		}
+		else if(stmt instanceof Stmt.Switch) {
+			Stmt.Switch switchStmt = (Stmt.Switch) stmt;
+			boolean hasDefault = false;
+			for(Stmt.Case c : switchStmt.getCases()) {
+				countBranch(c, true);
+				hasDefault |= c.isDefault();
+				countBlock(c.getBlock());
+			}
+			// When no case matches
+			if(!hasDefault) {
+				countBranch(stmt, false);
+			}
+			countExpression(switchStmt.getCondition());
+		}
+		else if(stmt instanceof Stmt.NamedBlock) {
+			countBlock(((Stmt.NamedBlock) stmt).getBlock());
+		}
+		else {
+			countExpression(stmt);
+		}
+	}
+
+	/**
+	 * Count the operands of the logical and/or expressions within an item,
+	 * without looking into any statements or declarations it refers to.
+	 * @param item An expression, or a statement that isn't compound
+	 */
+	private void countExpression(SyntacticItem item) {
+		if(item instanceof Expr.LogicalAnd || item instanceof Expr.LogicalOr) {
+			for(SyntacticItem operand : item.getAll()) {
+				if(operand instanceof Tuple) {
+					for(SyntacticItem e : operand.getAll()) {
+						countCondition(e);
+					}
+				}
+			}
+		}
+		for(SyntacticItem child : item.getAll()) {
+			if(child instanceof Expr || child instanceof Tuple) {
+				countExpression(child);
+			}
+		}
+	}
+
+	/**
+	 * Count both outcomes of a condition.
+	 * @param condition The condition
+	 */
+	private void countCondition(SyntacticItem condition) {
+		countBranch(condition, true);
+		countBranch(condition, false);
+	}
+
+	/**
+	 * Count an outcome of a condition.
+	 * @param condition The condition, or the item that is chosen because of it
+	 * @param taken Whether the condition holds
+	 */
+	private void countBranch(SyntacticItem condition, boolean taken) {
+		numBranches++;
+		if(coverage.hasBranch(condition, taken)) {
+			coveredBranches++;
+		}
+	}
+}
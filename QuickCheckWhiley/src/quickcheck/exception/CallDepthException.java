@@ -0,0 +1,19 @@
+package quickcheck.exception;
+
+/**
+ * Exception thrown when the calls of a function or method
+ * are nested deeper than the interpreter allows.
+ * 
+ * For example, when a recursive function
+ * does not terminate for the input generated.
+ * 
+ * @author Janice Chin
+ *
+ */
+public class CallDepthException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		public CallDepthException(String message) {
+			super(message);
+		}		
+}	
@@ -0,0 +1,19 @@
+package quickcheck.exception;
+
+/**
+ * Exception thrown when the arguments given to QuickCheck
+ * do not describe the tests to execute.
+ * 
+ * For example, when no Wyil file is given,
+ * or the list of Wyil files can't be read.
+ * 
+ * @author Janice Chin
+ *
+ */
+public class InvalidArgumentsException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		public InvalidArgumentsException(String message) {
+			super(message);
+		}		
+}	
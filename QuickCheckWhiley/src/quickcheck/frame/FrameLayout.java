@@ -0,0 +1,123 @@
+package quickcheck.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import wybs.lang.SyntacticHeap;
+import wybs.lang.SyntacticItem;
+import wybs.util.AbstractCompilationUnit.Identifier;
+import wyc.lang.WhileyFile.Decl;
+
+/**
+ * Assigns each local variable of a function or method a slot,
+ * so the values of its variables can be kept in an array instead of a map from their names.
+ * Each variable is identified by the index of its declaration within the file (i.e. syntactic heap),
+ * so finding the slot of a variable does not hash its name.
+ *
+ * Variables with the same name share a slot, as they share a name in the call stack.
+ * The variables of lambdas declared within the function or method are not given slots,
+ * as lambdas are executed in the call stack they captured.
+ *
+ * @author Janice Chin
+ *
+ */
+public class FrameLayout {
+	/** The file the function or method is from */
+	private final SyntacticHeap heap;
+	/** The smallest index of the variables declared */
+	private final int base;
+	/** The slot of each variable, by its index from the base, or -1 if it isn't a variable of the function */
+	private final int[] slots;
+	/** The name of each slot */
+	private final Identifier[] names;
+
+	/**
+	 * @param callable The function or method
+	 */
+	public FrameLayout(Decl.Callable callable) {
+		this.heap = callable.getHeap();
+		List<Decl.Variable> variables = new ArrayList<Decl.Variable>();
+		findVariables(callable, variables, new IdentityHashMap<SyntacticItem, Boolean>());
+		int min = Integer.MAX_VALUE;
+		int max = -1;
+		for(Decl.Variable var : variables) {
+			min = Math.min(min, var.getIndex());
+			max = Math.max(max, var.getIndex());
+		}
+		this.base = variables.isEmpty() ? 0 : min;
+		this.slots = new int[max - base + 1];
+		Arrays.fill(slots, -1);
+		Map<String, Integer> slotOfName = new HashMap<String, Integer>();
+		List<Identifier> slotNames = new ArrayList<Identifier>();
+		for(Decl.Variable var : variables) {
+			String name = var.getName().get();
+			Integer slot = slotOfName.get(name);
+			if(slot == null) {
+				slot = slotNames.size();
+				slotOfName.put(name, slot);
+				slotNames.add(var.getName());
+			}
+			slots[var.getIndex() - base] = slot;
+		}
+		this.names = slotNames.toArray(new Identifier[slotNames.size()]);
+	}
+
+	/**
+	 * Find the variables declared within an item, excluding those of lambdas
+	 * @param item The item to search
+	 * @param variables The variables found
+	 * @param visited The items searched, as items can be shared
+	 */
+	private static void findVariables(SyntacticItem item, List<Decl.Variable> variables, Map<SyntacticItem, Boolean> visited) {
+		if(item == null || visited.put(item, Boolean.TRUE) != null) {
+			return;
+		}
+		if(item instanceof Decl.Variable) {
+			variables.add((Decl.Variable) item);
+		}
+		SyntacticItem[] operands = item.getAll();
+		if(operands == null) {
+			return;
+		}
+		for(SyntacticItem operand : operands) {
+			if(!(operand instanceof Decl.Lambda)) {
+				findVariables(operand, variables, visited);
+			}
+		}
+	}
+
+	/**
+	 * Get the slot of a variable
+	 * @param var The variable
+	 * @return The slot of the variable, or -1 if it isn't a variable of the function or method
+	 */
+	public int slot(Decl.Variable var) {
+		if(var.getHeap() != heap) {
+			return -1;
+		}
+		int offset = var.getIndex() - base;
+		if(offset < 0 || offset >= slots.length) {
+			return -1;
+		}
+		return slots[offset];
+	}
+
+	/**
+	 * @param slot A slot
+	 * @return The name of the variables in the slot
+	 */
+	public Identifier getName(int slot) {
+		return names[slot];
+	}
+
+	/**
+	 * @return The number of slots
+	 */
+	public int size() {
+		return names.length;
+	}
+}
@@ -0,0 +1,94 @@
+package quickcheck.frame;
+
+import wyc.lang.WhileyFile.Decl;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter.CallStack;
+
+/**
+ * The local variables of a call stack, kept in slots.
+ * The variables given slots are only written to their slots,
+ * so a variable must be flushed to the call stack before the call stack is used to read it
+ * (e.g. an assignment to an element of a record held by the variable).
+ *
+ * @author Janice Chin
+ *
+ */
+public class SlotFrame {
+	private final CallStack frame;
+	private final FrameLayout layout;
+	/** The value of each slot, or null if it must be read from the call stack */
+	private final RValue[] values;
+
+	/**
+	 * @param frame The call stack of the function or method
+	 * @param layout The slots of the function or method
+	 */
+	public SlotFrame(CallStack frame, FrameLayout layout) {
+		this.frame = frame;
+		this.layout = layout;
+		this.values = new RValue[layout.size()];
+	}
+
+	/**
+	 * @param other A call stack
+	 * @return Whether the slots are of the call stack
+	 */
+	public boolean isFrame(CallStack other) {
+		return frame == other;
+	}
+
+	/**
+	 * Read a variable
+	 * @param var The variable
+	 * @return The value of the variable
+	 */
+	public RValue get(Decl.Variable var) {
+		int slot = layout.slot(var);
+		if(slot < 0) {
+			return frame.getLocal(var.getName());
+		}
+		RValue value = values[slot];
+		if(value == null) {
+			value = frame.getLocal(layout.getName(slot));
+			values[slot] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Write a variable, in its slot or the call stack if it has no slot
+	 * @param var The variable
+	 * @param value The value of the variable
+	 */
+	public void put(Decl.Variable var, RValue value) {
+		int slot = layout.slot(var);
+		if(slot < 0) {
+			frame.putLocal(var.getName(), value);
+		} else {
+			values[slot] = value;
+		}
+	}
+
+	/**
+	 * Write a variable to the call stack, as the call stack will be used to read it.
+	 * @param var The variable
+	 */
+	public void flush(Decl.Variable var) {
+		int slot = layout.slot(var);
+		if(slot >= 0 && values[slot] != null) {
+			frame.putLocal(var.getName(), values[slot]);
+		}
+	}
+
+	/**
+	 * Read a variable from the call stack the next time it is read,
+	 * as it was written to the call stack only.
+	 * @param var The variable
+	 */
+	public void invalidate(Decl.Variable var) {
+		int slot = layout.slot(var);
+		if(slot >= 0) {
+			values[slot] = null;
+		}
+	}
+}
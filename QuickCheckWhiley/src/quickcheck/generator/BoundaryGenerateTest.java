@@ -0,0 +1,113 @@
+package quickcheck.generator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.type.Generator;
+import quickcheck.util.Combinations;
+import quickcheck.util.TestType;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter;
+
+/**
+ * Generate candidate test parameters for a function
+ * from the boundary values of each parameter first,
+ * e.g. 0, -1, the integer limits and empty arrays,
+ * then generate the remaining parameters randomly.
+ *
+ * The boundary combinations are ordered so the most interesting
+ * boundary value of every parameter is used first,
+ * and at most half the tests are boundary values.
+ *
+ * @author Janice Chin
+ *
+ */
+public class BoundaryGenerateTest implements GenerateTest {
+	/** The boundary values of each parameter */
+	private List<List<RValue>> boundaries;
+	/** Index of the last boundary value of each parameter */
+	private int[] limits;
+	/** Largest total index of the boundary values */
+	private int maxTotal;
+
+	/** Sum of the indices of the boundary values currently being generated */
+	private int currentTotal = 0;
+	/** The combinations of indices of the boundary values for the current total */
+	private List<int[]> compositions;
+	private int compositionIndex = 0;
+
+	/** The maximum number of tests generated from the boundary values */
+	private int boundaryTests;
+	private int numTested = 0;
+
+	/** Generates the parameters once the boundary values are used */
+	private RandomGenerateTest randomTest;
+
+	public BoundaryGenerateTest(Tuple<Decl.Variable> valuesToGenerate, Interpreter interpreter, int numTests, BigInteger lowerLimit, BigInteger upperLimit) throws IntegerRangeException {
+		// Get the generators
+		GeneratorFactory factory = new GeneratorFactory(interpreter, TestType.BOUNDARY, numTests, lowerLimit, upperLimit);
+		List<Generator> parameterGenerators = factory.getGenerators(valuesToGenerate);
+		this.boundaries = new ArrayList<List<RValue>>();
+		this.limits = new int[parameterGenerators.size()];
+		this.maxTotal = 0;
+		this.boundaryTests = (numTests + 1) / 2;
+		for(int i=0; i < limits.length; i++) {
+			List<RValue> values = parameterGenerators.get(i).generateBoundary();
+			// Cannot make any boundary combinations
+			if(values.isEmpty()) {
+				this.boundaryTests = 0;
+			}
+			boundaries.add(values);
+			limits[i] = values.size() - 1;
+			maxTotal += Math.max(limits[i], 0);
+		}
+		this.compositions = Combinations.compositions(currentTotal, limits);
+		this.randomTest = new RandomGenerateTest(valuesToGenerate, interpreter, numTests, lowerLimit, upperLimit);
+	}
+
+	@Override
+	public RValue[] generateParameters() {
+		if(numTested < boundaryTests) {
+			int[] composition = nextComposition();
+			if(composition != null) {
+				numTested++;
+				RValue[] parameters = new RValue[composition.length];
+				for(int i=0; i < composition.length; i++) {
+					parameters[i] = boundaries.get(i).get(composition[i]);
+				}
+				return parameters;
+			}
+			// All boundary combinations were used
+			boundaryTests = numTested;
+		}
+		return randomTest.generateParameters();
+	}
+
+	@Override
+	public boolean exceedSize() {
+		return randomTest.exceedSize();
+	}
+
+	/**
+	 * Get the indices of the next combination of boundary values,
+	 * moving onto a larger total once all combinations of the current total are used.
+	 * @return The indices of the boundary values, or null if all combinations have been used
+	 */
+	private int[] nextComposition() {
+		while(compositionIndex >= compositions.size()) {
+			if(currentTotal >= maxTotal) {
+				return null;
+			}
+			currentTotal++;
+			compositions = Combinations.compositions(currentTotal, limits);
+			compositionIndex = 0;
+		}
+		int[] composition = compositions.get(compositionIndex);
+		compositionIndex++;
+		return composition;
+	}
+}
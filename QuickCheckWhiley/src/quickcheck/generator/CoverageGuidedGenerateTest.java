@@ -0,0 +1,158 @@
+package quickcheck.generator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import quickcheck.coverage.Coverage;
+import quickcheck.exception.CannotGenerateException;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.type.Generator;
+import quickcheck.util.TestType;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter;
+
+/**
+ * Generate candidate test parameters for a function
+ * guided by the statements and branches the previous tests executed.
+ *
+ * Parameters which executed a new statement or branch are kept in a corpus,
+ * and new parameters are mostly made by slightly changing (mutating)
+ * one parameter of a test in the corpus.
+ * Testing stops early once no new coverage has been found for a while.
+ *
+ * The coverage of the previous test is found when the next test is generated,
+ * so the interpreter executing the tests must record into the same coverage.
+ *
+ * @author Janice Chin
+ *
+ */
+public class CoverageGuidedGenerateTest implements GenerateTest {
+	/** Number of attempts at generating parameters, when the values cannot be generated */
+	private static final int MAX_ATTEMPTS = 100;
+	/** Minimum number of tests without new coverage before testing stops */
+	private static final int MIN_SATURATION = 10;
+
+	/** A list of generators, each corresponding to a parameter in the function/method */
+	private List<Generator> parameterGenerators;
+	/** The coverage recorded by the interpreter */
+	private Coverage coverage;
+
+	/** Combinations of the tests which found new coverage */
+	private List<int[]> corpus;
+	/** Combination of the last test generated, which hasn't been added to the corpus yet */
+	private int[] lastCombos;
+	/** Coverage count before the last test was executed */
+	private int lastCount;
+
+	/** Number of tests since new coverage was found */
+	private int sinceNewCoverage;
+	/** Number of tests without new coverage before testing stops */
+	private int saturation;
+	private int numTested;
+
+	/** Randomiser */
+	private Random randomiser = new Random();
+
+	public CoverageGuidedGenerateTest(Tuple<Decl.Variable> valuesToGenerate, Interpreter interpreter, Coverage coverage, int numTests, BigInteger lowerLimit, BigInteger upperLimit) throws IntegerRangeException {
+		// Get the generators
+		GeneratorFactory factory = new GeneratorFactory(interpreter, TestType.COVERAGE, numTests, lowerLimit, upperLimit);
+		this.parameterGenerators = factory.getGenerators(valuesToGenerate);
+		this.coverage = coverage;
+		this.corpus = new ArrayList<int[]>();
+		this.saturation = Math.max(MIN_SATURATION, numTests / 10);
+	}
+
+	@Override
+	public RValue[] generateParameters() {
+		updateCorpus();
+		numTested++;
+		if(parameterGenerators.isEmpty()) {
+			return new RValue[0];
+		}
+		for(int i=0; i < MAX_ATTEMPTS; i++) {
+			int[] combos = nextCombos();
+			try {
+				RValue[] parameters = new RValue[combos.length];
+				for(int j=0; j < combos.length; j++) {
+					parameters[j] = parameterGenerators.get(j).generate(combos[j]);
+				}
+				lastCombos = combos;
+				lastCount = coverage.count();
+				return parameters;
+			}
+			catch(CannotGenerateException e) {}
+		}
+		throw new CannotGenerateException("No possible values can be generated.");
+	}
+
+	@Override
+	public boolean exceedSize() {
+		updateCorpus();
+		if(parameterGenerators.isEmpty()) {
+			return numTested > 0;
+		}
+		return sinceNewCoverage >= saturation;
+	}
+
+	/**
+	 * Add the last test to the corpus if it executed a new statement or branch.
+	 */
+	private void updateCorpus() {
+		if(lastCombos == null) {
+			return;
+		}
+		if(coverage.count() > lastCount) {
+			corpus.add(lastCombos);
+			sinceNewCoverage = 0;
+		}
+		else {
+			sinceNewCoverage++;
+		}
+		lastCombos = null;
+	}
+
+	/**
+	 * Choose the combination of each parameter for the next test.
+	 * Mostly mutates a test from the corpus, otherwise chooses randomly.
+	 * @return The combination number of each parameter
+	 */
+	private int[] nextCombos() {
+		int[] combos;
+		if(corpus.isEmpty() || randomiser.nextInt(4) == 0) {
+			combos = new int[parameterGenerators.size()];
+			for(int i=0; i < combos.length; i++) {
+				combos[i] = randomCombo(i);
+			}
+		}
+		else {
+			combos = corpus.get(randomiser.nextInt(corpus.size())).clone();
+			int index = randomiser.nextInt(combos.length);
+			int size = parameterGenerators.get(index).size();
+			switch(randomiser.nextInt(3)) {
+			case 0:
+				combos[index] = size > 0 ? (combos[index] + 1) % size : 0;
+				break;
+			case 1:
+				combos[index] = size > 0 ? (combos[index] - 1 + size) % size : 0;
+				break;
+			default:
+				combos[index] = randomCombo(index);
+			}
+		}
+		return combos;
+	}
+
+	/**
+	 * Randomly choose a combination for a parameter.
+	 * @param index The index of the parameter
+	 * @return A combination number for the parameter
+	 */
+	private int randomCombo(int index) {
+		int size = parameterGenerators.get(index).size();
+		return size > 0 ? randomiser.nextInt(size) : 0;
+	}
+}
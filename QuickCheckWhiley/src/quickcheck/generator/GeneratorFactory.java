@@ -0,0 +1,351 @@
+package quickcheck.generator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import quickcheck.RunTest;
+import quickcheck.exception.CannotGenerateException;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.type.*;
+import quickcheck.util.TestType;
+import wybs.lang.NameResolver.ResolutionError;
+import wybs.util.AbstractCompilationUnit.Name;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile;
+import wyc.lang.WhileyFile.Decl;
+import wyil.interpreter.Interpreter;
+
+/**
+ * Creates the generators for a type by walking over the type once.
+ * The generators created are parameterised by the test type (strategy)
+ * used to generate the candidate test values.
+ *
+ * This is the single place where the recursion limits for recursive
+ * types are applied, where the type constraints are analysed
+ * (by the nominal generators) and where generators are shared
+ * between identical types.
+ *
+ * @author Janice Chin
+ *
+ */
+public class GeneratorFactory {
+
+	private Interpreter interpreter;
+
+	private TestType testType;
+	private int numTests;
+
+	private BigInteger lowerLimit;
+	private BigInteger upperLimit;
+
+	/** All the user created types that are recursive structures */
+	private Map<Name, Integer> recursiveType = new HashMap<Name, Integer>();
+	/** All the user created types that are recursive array structures */
+	private Map<Name, Integer> recursiveArray = new HashMap<Name, Integer>();
+
+	/** Generators created so far, which can be shared between identical types */
+	private Map<Key, Generator> generators = new HashMap<Key, Generator>();
+	/**
+	 * Number of nominal types enclosing the type currently being created,
+	 * whose invariant range analysis could still change the generator being created.
+	 */
+	private int constrainedDepth = 0;
+
+	public GeneratorFactory(Interpreter interpreter, TestType testType, int numTests, BigInteger lowerLimit, BigInteger upperLimit) {
+		this.interpreter = interpreter;
+		this.testType = testType;
+		this.numTests = numTests;
+		this.lowerLimit = lowerLimit;
+		this.upperLimit = upperLimit;
+	}
+
+	/**
+	 * Get the generators for each of the variables (e.g. parameters of a function)
+	 * @param variables The variables to generate values for
+	 * @return The generators that correspond to each variable's type
+	 * @throws IntegerRangeException
+	 */
+	public List<Generator> getGenerators(Tuple<Decl.Variable> variables) throws IntegerRangeException {
+		List<Generator> gens = new ArrayList<Generator>();
+		for(Decl.Variable var : variables) {
+			gens.add(getGenerator(var.getType()));
+		}
+		return gens;
+	}
+
+	/**
+	 * Get the generator based on a type.
+	 *
+	 * Generators are only shared when they cannot be changed
+	 * by the range analysis of an enclosing nominal type.
+	 * The generators do not keep any state, as the values are generated
+	 * from the combination number, so they can be shared by any test type.
+	 *
+	 * @param paramType The type of a parameter for a function/method
+	 * @return The generator that corresponds to the parameter's type
+	 * @throws IntegerRangeException
+	 */
+	public Generator getGenerator(WhileyFile.Type paramType) throws IntegerRangeException {
+		if(!isShareable()) {
+			return createGenerator(paramType);
+		}
+		Key key = new Key(paramType, recursiveType, recursiveArray);
+		Generator gen = generators.get(key);
+		if(gen == null) {
+			gen = createGenerator(paramType);
+			generators.put(key, gen);
+		}
+		return gen;
+	}
+
+	/**
+	 * Get the generator based on a type, within a given recursive context.
+	 * The range analysis of an enclosing nominal type does not apply to the generator. 
+	 * @param paramType The type to generate values for
+	 * @param types The depth of each recursive type 
+	 * @param arrays The depth of each recursive array type
+	 * @return The generator that corresponds to the type
+	 * @throws IntegerRangeException
+	 */
+	private Generator getGenerator(WhileyFile.Type paramType, Map<Name, Integer> types, Map<Name, Integer> arrays) throws IntegerRangeException {
+		Map<Name, Integer> currentTypes = recursiveType;
+		Map<Name, Integer> currentArrays = recursiveArray;
+		int depth = constrainedDepth;
+		recursiveType = new HashMap<Name, Integer>(types);
+		recursiveArray = new HashMap<Name, Integer>(arrays);
+		constrainedDepth = 0;
+		try {
+			return getGenerator(paramType);
+		}
+		finally {
+			recursiveType = currentTypes;
+			recursiveArray = currentArrays;
+			constrainedDepth = depth;
+		}
+	}
+
+	/**
+	 * Check if the generator currently being created can be shared
+	 * with other identical types.
+	 * @return Whether the generator can be shared
+	 */
+	private boolean isShareable() {
+		return constrainedDepth == 0;
+	}
+
+	/**
+	 * Create a new generator based on a type
+	 * @param paramType The type of a parameter for a function/method
+	 * @return The generator that corresponds to the parameter's type
+	 * @throws IntegerRangeException
+	 */
+	private Generator createGenerator(WhileyFile.Type paramType) throws IntegerRangeException {
+		if(paramType instanceof WhileyFile.Type.Int) {
+			return new IntegerGenerator(testType, numTests, lowerLimit, upperLimit);
+		}
+		else if(paramType instanceof WhileyFile.Type.Bool) {
+			return new BooleanGenerator(testType, numTests);
+		}
+		else if(paramType instanceof WhileyFile.Type.Byte) {
+			return new ByteGenerator(testType, numTests);
+		}
+		else if(paramType instanceof WhileyFile.Type.Null) {
+			return new NullGenerator();
+		}
+		else if(paramType instanceof WhileyFile.Type.Array) {
+			WhileyFile.Type arrEle = ((WhileyFile.Type.Array) paramType).getElement();
+			Name nomName = null;
+			if(arrEle instanceof WhileyFile.Type.Nominal) {
+				nomName  = ((WhileyFile.Type.Nominal) arrEle).getName();
+				recursiveArray.put(nomName, recursiveArray.getOrDefault(nomName, 0) + 1);
+			}
+			// The element generators are created when they are needed,
+			// in the same recursive context as the array
+			Map<Name, Integer> types = new HashMap<Name, Integer>(recursiveType);
+			Map<Name, Integer> arrays = new HashMap<Name, Integer>(recursiveArray);
+			ArrayGenerator.ElementSupplier elements = () -> getGenerator(arrEle, types, arrays);
+			ArrayGenerator gen = new ArrayGenerator(elements, new Key(arrEle, types, arrays), testType, numTests, RunTest.ARRAY_LOWER_LIMIT, RunTest.ARRAY_UPPER_LIMIT);
+			if(nomName != null) {
+				recursiveArray.put(nomName, recursiveArray.get(nomName) - 1);
+				if(recursiveArray.get(nomName) == 0) {
+					recursiveArray.remove(nomName);
+				}
+			}
+			return gen;
+		}
+		else if(paramType instanceof WhileyFile.Type.Nominal) {
+			// Nominal generator takes another generator
+			WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) paramType;
+			try {
+				Decl.Type decl = interpreter.getTypeSystem().resolveExactly(nom.getName(), Decl.Type.class);
+				Decl.Variable var = decl.getVariableDeclaration();
+				Name name = nom.getName();
+				recursiveType.put(name, recursiveType.getOrDefault(name, 0) + 1);
+				constrainedDepth++;
+				Generator gen = getGenerator(var.getType());
+				constrainedDepth--;
+				recursiveType.put(name, recursiveType.get(name) - 1);
+				if(recursiveType.get(name) == 0) {
+					recursiveType.remove(name);
+				}
+				return new NominalGenerator(gen, interpreter, decl);
+			} catch (ResolutionError e) {
+				throw new CannotGenerateException("Cannot resolve the nominal type " + nom.getName() + ": " + e.getMessage());
+			}
+		}
+		else if(paramType instanceof WhileyFile.Type.Record) {
+			WhileyFile.Type.Record record = (WhileyFile.Type.Record) paramType;
+			Tuple<Decl.Variable> tuple = record.getFields();
+			List<Generator> gens = new ArrayList<Generator>();
+			List<Decl.Variable> fields = new ArrayList<Decl.Variable>();
+			for(Decl.Variable var : tuple) {
+				Generator gen = getGenerator(var.getType());
+				fields.add(var);
+				gens.add(gen);
+			}
+			return new RecordGenerator(gens, fields, testType, numTests);
+		}
+		else if(paramType instanceof WhileyFile.Type.Union) {
+			WhileyFile.Type.Union union = (WhileyFile.Type.Union) paramType;
+			// Decided not to use a Set as there are few generators
+			// and it is highly unlikely a user would have a very large union
+			List<Generator> gens = new ArrayList<Generator>();
+			for(int i=0; i < union.size(); i++) {
+				WhileyFile.Type unionFieldType = union.get(i);
+				if(exceedsRecursiveLimit(unionFieldType)) {
+					// No longer be able to generate the nominal type
+					break;
+				}
+				Generator gen = getGenerator(unionFieldType);
+				if(!gens.contains(gen)) {
+					gens.add(gen);
+				}
+			}
+			if(gens.size() == 1) {
+				return gens.get(0);
+			}
+			return new UnionGenerator(gens, testType, numTests);
+		}
+		else if(paramType instanceof WhileyFile.Type.Reference) {
+			WhileyFile.Type.Reference ref = (WhileyFile.Type.Reference) paramType;
+			int depth = constrainedDepth;
+			constrainedDepth = 0;
+			Generator gen = getGenerator(ref.getElement());
+			constrainedDepth = depth;
+			// A recursive type through a reference is limited by the depth of its nominal type
+			return new ReferenceGenerator(gen);
+		}
+		else if(paramType instanceof WhileyFile.Type.Function || paramType instanceof WhileyFile.Type.Method) {
+			WhileyFile.Type.Callable func = (WhileyFile.Type.Callable) paramType;
+			List<Generator> gens = new ArrayList<Generator>();
+			int depth = constrainedDepth;
+			constrainedDepth = 0;
+			for(WhileyFile.Type type : func.getReturns()) {
+				gens.add(getGenerator(type));
+			}
+			constrainedDepth = depth;
+			return new LambdaGenerator(gens, func, interpreter, testType, numTests);
+		}
+		throw new CannotGenerateException("Cannot generate values of the type " + paramType);
+	}
+
+	/**
+	 * Check whether a type in a union can no longer be generated,
+	 * as the recursive type it contains has reached the recursive limit.
+	 * @param unionFieldType A type in the union
+	 * @return Whether the recursive limit has been reached
+	 */
+	private boolean exceedsRecursiveLimit(WhileyFile.Type unionFieldType) {
+		if(unionFieldType instanceof WhileyFile.Type.Nominal) {
+			WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) unionFieldType;
+			if(recursiveType.containsKey(nom.getName()) && recursiveType.get(nom.getName()) > RunTest.RECURSIVE_LIMIT) {
+				return true;
+			}
+		}
+		// Check nominals in the record (and in nested records), are/are not recursive types
+		else if(unionFieldType instanceof WhileyFile.Type.Record) {
+			boolean limitReached = false;
+			Stack<WhileyFile.Type.Record> stack = new Stack<WhileyFile.Type.Record>();
+			stack.push((WhileyFile.Type.Record) unionFieldType);
+			while(!stack.isEmpty()) {
+				WhileyFile.Type.Record record = stack.pop();
+				Tuple<Decl.Variable> tuple = record.getFields();
+				for(Decl.Variable var : tuple) {
+					if(var.getType() instanceof WhileyFile.Type.Nominal) {
+						WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) var.getType();
+						if(recursiveType.containsKey(nom.getName()) && recursiveType.get(nom.getName()) > RunTest.RECURSIVE_LIMIT) {
+							limitReached = true;
+							break;
+						}
+					}
+					else if(var.getType() instanceof WhileyFile.Type.Record) {
+						stack.push((WhileyFile.Type.Record) var.getType());
+					}
+				}
+			}
+			return limitReached;
+		}
+		else if(unionFieldType instanceof WhileyFile.Type.Reference) {
+			return exceedsRecursiveLimit(((WhileyFile.Type.Reference) unionFieldType).getElement());
+		}
+		else if(unionFieldType instanceof WhileyFile.Type.Array) {
+			WhileyFile.Type.Array arr = (WhileyFile.Type.Array) unionFieldType;
+			if(arr.getElement() instanceof WhileyFile.Type.Nominal) {
+				WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) arr.getElement();
+				Name nomName = nom.getName();
+				if(recursiveArray.containsKey(nomName) && recursiveArray.get(nomName) > RunTest.RECURSIVE_ARRAY_LIMIT) {
+					return true;
+				}
+				else if(recursiveType.containsKey(nomName) && recursiveType.get(nomName) > RunTest.RECURSIVE_LIMIT) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Key for sharing a generator.
+	 * The same type can produce different generators
+	 * depending on how deep it is in a recursive type,
+	 * so the recursive depths are part of the key.
+	 */
+	private static final class Key {
+		private final WhileyFile.Type type;
+		private final Map<Name, Integer> recursiveType;
+		private final Map<Name, Integer> recursiveArray;
+
+		public Key(WhileyFile.Type type, Map<Name, Integer> recursiveType, Map<Name, Integer> recursiveArray) {
+			this.type = type;
+			this.recursiveType = new HashMap<Name, Integer>(recursiveType);
+			this.recursiveArray = new HashMap<Name, Integer>(recursiveArray);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + type.hashCode();
+			result = prime * result + recursiveType.hashCode();
+			result = prime * result + recursiveArray.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return type.equals(other.type) && recursiveType.equals(other.recursiveType)
+					&& recursiveArray.equals(other.recursiveArray);
+		}
+	}
+}
@@ -3,23 +3,16 @@ package quickcheck.generator;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Stack;
 
-import quickcheck.RunTest;
 import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
 import quickcheck.generator.type.*;
+import quickcheck.shard.Shard;
 import quickcheck.util.TestType;
-import wybs.lang.NameResolver.ResolutionError;
-import wybs.util.AbstractCompilationUnit.Name;
 import wybs.util.AbstractCompilationUnit.Tuple;
-import wyc.lang.WhileyFile;
 import wyc.lang.WhileyFile.Decl;
-import wyc.lang.WhileyFile.Decl.Variable;
 import wyil.interpreter.ConcreteSemantics.RValue;
 import wyil.interpreter.Interpreter;
 
@@ -37,12 +30,6 @@ public class RandomGenerateTest implements GenerateTest{
 	/**Combinations for random test generation*/
 	private List<Integer> testCombos;
 	
-	private Interpreter interpreter;
-	
-	private BigInteger lowerLimit;
-	private BigInteger upperLimit;
-
-	
 	private BigInteger totalCombinations;
 	private int numTested = 1;
     private int numTests;
@@ -50,13 +37,9 @@ public class RandomGenerateTest implements GenerateTest{
     private boolean allCombos;
     /** Whether the tests have exceeded the test combos*/
     private boolean hasExceeded;
-    
-	/** All the user created types that are recursive structures */
-	private Map<Name, Integer> recursiveType = new HashMap<Name, Integer>();
-	/** All the user created types that are recursive array structures */
-	private Map<Name, Integer> recursiveArray = new HashMap<Name, Integer>();
+
 	/** Randomiser */
-	private Random randomiser = new Random(); 
+	private Random randomiser; 
 	
 	/** Last combo used, when iterating through exhaustively. 
 	    Used when we cannot generate value for a nominal type */
@@ -65,17 +48,28 @@ public class RandomGenerateTest implements GenerateTest{
 	private int currentIndex = 0;
 
     public RandomGenerateTest(Tuple<Decl.Variable> valuesToGenerate, Interpreter interpreter, int numTests, BigInteger lowerLimit, BigInteger upperLimit) throws IntegerRangeException {
+		this(valuesToGenerate, interpreter, numTests, lowerLimit, upperLimit, new Random(), Shard.ALL);
+    }
+    
+    /**
+     * Generate the tests of a shard, where every shard uses the same randomiser seed
+     * so they choose the same combinations, and each shard executes its share of them. 
+     * @param valuesToGenerate The parameters
+     * @param interpreter The interpreter
+     * @param numTests The number of tests executed by all the shards
+     * @param lowerLimit The lower limit of the integers generated
+     * @param upperLimit The upper limit of the integers generated
+     * @param randomiser The randomiser, with the same seed for every shard
+     * @param shard The shard executing the tests
+     * @throws IntegerRangeException
+     */
+    public RandomGenerateTest(Tuple<Decl.Variable> valuesToGenerate, Interpreter interpreter, int numTests, BigInteger lowerLimit, BigInteger upperLimit, Random randomiser, Shard shard) throws IntegerRangeException {
 		super();
         this.numTests = numTests;
-		this.interpreter = interpreter;
-		this.lowerLimit = lowerLimit;
-		this.upperLimit = upperLimit;
-		this.parameterGenerators = new ArrayList<Generator>();	
+        this.randomiser = randomiser;
 		// Get the generators
-		for(Variable var : valuesToGenerate) {
-			WhileyFile.Type paramType = var.getType();
-			this.parameterGenerators.add(getGenerator(paramType));
-		}
+		GeneratorFactory factory = new GeneratorFactory(interpreter, TestType.RANDOM, numTests, lowerLimit, upperLimit);
+		this.parameterGenerators = factory.getGenerators(valuesToGenerate);
 		// Number of combinations
 		if(parameterGenerators.isEmpty()) {
 			this.totalCombinations = BigInteger.valueOf(0);
@@ -122,165 +116,17 @@ public class RandomGenerateTest implements GenerateTest{
 		}
 		// Shuffle test values so they are not in order
 		Collections.shuffle(testCombos, randomiser);
-	}	
-
-	/**
-	 * Get the generator based on a type
-	 * @param paramType The type of a parameter for a function/method
-	 * @return The generator that corresponds to the parameter's type
-	 * @throws IntegerRangeException 
-	 */
-	private Generator getGenerator(WhileyFile.Type paramType) throws IntegerRangeException {
-		if(paramType instanceof WhileyFile.Type.Int) {
-			return new IntegerGenerator(TestType.RANDOM, numTests, lowerLimit, upperLimit);
-		}
-		else if(paramType instanceof WhileyFile.Type.Bool) {
-			return new BooleanGenerator(TestType.RANDOM, numTests);
-		}
-		else if(paramType instanceof WhileyFile.Type.Byte) {
-			return new ByteGenerator(TestType.RANDOM, numTests);
-		}
-		else if(paramType instanceof WhileyFile.Type.Null) {
-			return new NullGenerator();
-		}
-		else if(paramType instanceof WhileyFile.Type.Array) {
-			WhileyFile.Type arrEle = ((WhileyFile.Type.Array) paramType).getElement();
-			List<Generator> generators = new ArrayList<Generator>();
-			Name nomName = null;
-			if(arrEle instanceof WhileyFile.Type.Nominal) {
-				nomName  = ((WhileyFile.Type.Nominal) arrEle).getName();
-				recursiveArray.put(nomName, recursiveType.getOrDefault(nomName, 0) + 1);
-			}
-			for(int i=0; i < RunTest.ARRAY_UPPER_LIMIT; i++) {
-				Generator gen = getGenerator(arrEle);
-				generators.add(gen);
-			}
-			if(nomName != null) {
-				recursiveArray.put(nomName, recursiveType.getOrDefault(nomName, 0) - 1);
-			}
-			return new ArrayGenerator(generators, TestType.RANDOM, numTests, RunTest.ARRAY_LOWER_LIMIT, RunTest.ARRAY_UPPER_LIMIT);
-		}
-		else if(paramType instanceof WhileyFile.Type.Nominal) {
-			// Nominal generator takes another generator
-			WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) paramType;
-			try {
-				Decl.Type decl = interpreter.getTypeSystem().resolveExactly(nom.getName(), Decl.Type.class);
-				Decl.Variable var = decl.getVariableDeclaration();
-				Name name = nom.getName();
-				recursiveType.put(name, recursiveType.getOrDefault(name, 0) + 1);
-//				if(recursiveType.get(name) > RunTest.RECURSIVE_LIMIT) {
-//					return new NullGenerator();
-//				}
-				Generator gen = getGenerator(var.getType());
-				recursiveType.put(name, recursiveType.get(name) - 1);
-				if(recursiveType.get(name) == 0) {
-					recursiveType.remove(name);
+		if(shard.isPartitioned()) {
+			List<Integer> shardCombos = new ArrayList<Integer>();
+			for(int i=0; i < testCombos.size(); i++) {
+				if(shard.contains(i)) {
+					shardCombos.add(testCombos.get(i));
 				}
-				return new NominalGenerator(gen, interpreter, decl);
-			} catch (ResolutionError e) {
-				// TODO What to do with resolution error?
-				e.printStackTrace();
-				assert false;
-			}
-		}
-		else if(paramType instanceof WhileyFile.Type.Record) {
-			WhileyFile.Type.Record record = (WhileyFile.Type.Record) paramType;
-			Tuple<Decl.Variable> tuple = record.getFields();
-			List<Generator> generators = new ArrayList<Generator>();
-			List<Decl.Variable> fields = new ArrayList<Decl.Variable>();
-			for(Decl.Variable var : tuple) {
-				Generator gen = getGenerator(var.getType());
-				fields.add(var);
-				generators.add(gen);
 			}
-			return new RecordGenerator(generators, fields, TestType.RANDOM, numTests);
+			testCombos = shardCombos;
 		}
-		else if(paramType instanceof WhileyFile.Type.Union) {
-			boolean limitReached = false;
-			WhileyFile.Type.Union union = (WhileyFile.Type.Union) paramType;
-			// Decided not to use a Set as there are few generators
-			// and it is highly unlikely a user would have a very large union
-			List<Generator> generators = new ArrayList<Generator>();
-			for(int i=0; i < union.size(); i++) {
-				WhileyFile.Type unionFieldType = union.get(i);
-				if(unionFieldType instanceof WhileyFile.Type.Nominal) {
-					WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) unionFieldType;
-					if(recursiveType.containsKey(nom.getName()) && recursiveType.get(nom.getName()) > RunTest.RECURSIVE_LIMIT) {
-						limitReached = true;
-						// No longer be able to generate the nominal type
-						break;
-					}
-				}
-				// Check nominals in the record (and in nested records), are/are not recursive types
-				else if(unionFieldType instanceof WhileyFile.Type.Record) {
-					Stack<WhileyFile.Type.Record> stack = new Stack<WhileyFile.Type.Record>();
-					stack.push((WhileyFile.Type.Record) unionFieldType);
-					while(!stack.isEmpty()) {
-						WhileyFile.Type.Record record = stack.pop();
-						Tuple<Decl.Variable> tuple = record.getFields();
-						for(Decl.Variable var : tuple) {
-							if(var.getType() instanceof WhileyFile.Type.Nominal) {
-								WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) var.getType();
-								if(recursiveType.containsKey(nom.getName()) && recursiveType.get(nom.getName()) > RunTest.RECURSIVE_LIMIT) {
-									limitReached = true;
-									// No longer be able to generate the nominal type
-									break;
-								}
-							}
-							else if(var.getType() instanceof WhileyFile.Type.Nominal) {
-								stack.push((WhileyFile.Type.Record) var.getType());
-							}
-						}
-					}
-				} else if(unionFieldType instanceof WhileyFile.Type.Array) {
-					WhileyFile.Type.Array arr = (WhileyFile.Type.Array) unionFieldType;
-					if(arr.getElement() instanceof WhileyFile.Type.Nominal) {
-						WhileyFile.Type.Nominal nom = (WhileyFile.Type.Nominal) arr.getElement();
-						Name nomName = nom.getName();
-						if(recursiveArray.containsKey(nomName) && recursiveArray.get(nomName) > RunTest.RECURSIVE_ARRAY_LIMIT) {
-							limitReached = true;
-							// No longer be able to generate the nominal type
-							break;	
-						}
-						else if(recursiveType.containsKey(nomName) && recursiveType.get(nomName) > RunTest.RECURSIVE_LIMIT) {
-							limitReached = true;
-							// No longer be able to generate the nominal type
-							break;
-						}
-					}
+	}	
 
-				}
-				
-				
-				if(!limitReached) {
-					Generator gen = getGenerator(unionFieldType);
-					if(!generators.contains(gen)) {
-						generators.add(gen);
-					}
-				}
-			}
-			if(generators.size() == 1) {
-				return generators.get(0);
-			}
-			return new UnionGenerator(generators, TestType.RANDOM, numTests);
-		}
-		else if(paramType instanceof WhileyFile.Type.Reference) {
-			WhileyFile.Type.Reference ref = (WhileyFile.Type.Reference) paramType;
-			Generator gen = getGenerator(ref.getElement());
-			return new ReferenceGenerator(gen);
-		}
-		else if(paramType instanceof WhileyFile.Type.Function || paramType instanceof WhileyFile.Type.Method) {
-			WhileyFile.Type.Callable func = (WhileyFile.Type.Callable) paramType;
-			List<Generator> generators = new ArrayList<Generator>();
-			for(WhileyFile.Type type : func.getReturns()) {
-				generators.add(getGenerator(type));
-			}
-			return new LambdaGenerator(generators, func, interpreter, TestType.RANDOM, numTests);
-		}
-		assert false;
-		return null;
-	}
-	
 	@Override
 	public RValue[] generateParameters() {
 		if(parameterGenerators.size() == 0) {
@@ -0,0 +1,163 @@
+package quickcheck.generator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import quickcheck.exception.CannotGenerateException;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.type.Generator;
+import quickcheck.util.Combinations;
+import quickcheck.util.TestType;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter;
+
+/**
+ * Generate candidate test parameters exhaustively
+ * in order of increasing size (SmallCheck-style).
+ * The size of the parameters is the sum of the sizes of each parameter value,
+ * i.e. the sum of the integer magnitudes, array lengths and record depths.
+ *
+ * Unlike exhaustive testing, every parameter is varied early on,
+ * so small counterexamples are found within the first few tests.
+ *
+ * @author Janice Chin
+ *
+ */
+public class SizedGenerateTest implements GenerateTest {
+	/** A list of generators, each corresponding to a parameter in the function/method */
+	private List<Generator> parameterGenerators;
+	/** The values generated for each parameter, indexed by their size */
+	private List<List<List<RValue>>> parameterValues;
+	/** The largest size of each parameter */
+	private int[] limits;
+	/** The largest total size of the parameters */
+	private int maxSize;
+
+	/** Total size of the parameters currently being generated */
+	private int currentSize = -1;
+	/** The ways the current size can be split between the parameters */
+	private List<int[]> compositions;
+	private int compositionIndex;
+	/** The values that can be chosen for each parameter in the current composition */
+	private List<List<RValue>> choices;
+	/** Index of the value chosen for each parameter */
+	private int[] indices;
+
+	/** The next parameters to be used, found in advance */
+	private RValue[] nextParameters;
+
+	public SizedGenerateTest(Tuple<Decl.Variable> valuesToGenerate, Interpreter interpreter, int numTests, BigInteger lowerLimit, BigInteger upperLimit) throws IntegerRangeException {
+		// Get the generators
+		GeneratorFactory factory = new GeneratorFactory(interpreter, TestType.SIZED, numTests, lowerLimit, upperLimit);
+		this.parameterGenerators = factory.getGenerators(valuesToGenerate);
+		this.parameterValues = new ArrayList<List<List<RValue>>>();
+		this.limits = new int[parameterGenerators.size()];
+		this.maxSize = 0;
+		for(int i=0; i < limits.length; i++) {
+			parameterValues.add(new ArrayList<List<RValue>>());
+			limits[i] = parameterGenerators.get(i).maxValueSize();
+			maxSize = Combinations.addSize(maxSize, limits[i]);
+		}
+	}
+
+	@Override
+	public RValue[] generateParameters() {
+		if(nextParameters == null) {
+			nextParameters = findNext();
+			if(nextParameters == null) {
+				throw new CannotGenerateException("No possible values can be generated.");
+			}
+		}
+		RValue[] parameters = nextParameters;
+		nextParameters = null;
+		return parameters;
+	}
+
+	@Override
+	public boolean exceedSize() {
+		if(nextParameters == null) {
+			nextParameters = findNext();
+		}
+		return nextParameters == null;
+	}
+
+	/**
+	 * Find the next combination of parameters,
+	 * moving onto a larger size once all combinations of the current size are used.
+	 * @return The next parameters, or null if all combinations have been generated
+	 */
+	private RValue[] findNext() {
+		while(true) {
+			if(choices != null) {
+				if(indices == null) {
+					indices = new int[choices.size()];
+				}
+				else if(!nextIndices()) {
+					choices = null;
+					continue;
+				}
+				RValue[] parameters = new RValue[indices.length];
+				for(int i=0; i < indices.length; i++) {
+					parameters[i] = choices.get(i).get(indices[i]);
+				}
+				return parameters;
+			}
+			if(compositions != null && compositionIndex < compositions.size()) {
+				int[] composition = compositions.get(compositionIndex);
+				compositionIndex++;
+				choices = new ArrayList<List<RValue>>();
+				for(int i=0; i < composition.length; i++) {
+					List<RValue> values = getValues(i, composition[i]);
+					// No combinations can be made with this composition
+					if(values.isEmpty()) {
+						choices = null;
+						break;
+					}
+					choices.add(values);
+				}
+				indices = null;
+				continue;
+			}
+			if(currentSize >= maxSize) {
+				return null;
+			}
+			currentSize++;
+			compositions = Combinations.compositions(currentSize, limits);
+			compositionIndex = 0;
+		}
+	}
+
+	/**
+	 * Move onto the next combination of values for the current composition.
+	 * The last parameter is varied the fastest.
+	 * @return Whether there was another combination
+	 */
+	private boolean nextIndices() {
+		for(int i=indices.length - 1; i >= 0; i--) {
+			if(indices[i] + 1 < choices.get(i).size()) {
+				indices[i]++;
+				return true;
+			}
+			indices[i] = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Get the values of a specific size for a parameter.
+	 * The values are kept, as each size is used by many compositions.
+	 * @param index The index of the parameter
+	 * @param valueSize The size of the values
+	 * @return The values of the size for the parameter
+	 */
+	private List<RValue> getValues(int index, int valueSize) {
+		List<List<RValue>> values = parameterValues.get(index);
+		while(values.size() <= valueSize) {
+			values.add(parameterGenerators.get(index).generateSized(values.size()));
+		}
+		return values.get(valueSize);
+	}
+}
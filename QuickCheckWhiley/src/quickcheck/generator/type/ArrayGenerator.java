@@ -1,10 +1,16 @@
 package quickcheck.generator.type;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import quickcheck.constraints.IntegerRange;
+import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.util.Combinations;
 import quickcheck.util.TestType;
 import wyil.interpreter.ConcreteSemantics;
 import wyil.interpreter.ConcreteSemantics.RValue;
@@ -18,6 +24,9 @@ import wyil.interpreter.ConcreteSemantics.RValue;
  * would require a IntegerGenerator 
  * and could return [4, 6].
  * 
+ * The generators for the array elements are only created
+ * when an array of that size is first generated.
+ * 
  * @author Janice Chin
  *
  */
@@ -26,122 +35,166 @@ public class ArrayGenerator implements Generator{
 	private static final ConcreteSemantics semantics = new ConcreteSemantics();
 	
 	private TestType testType;
-	/** Generators corresponding to each array element */
+	/** Generators corresponding to each array element, created so far */
 	private List<Generator> generators;
-	/** Current array elements generated */
-	private RValue[] arrElements;
+	/** Creates the generators for the array elements */
+	private ElementSupplier elements;
+	/** Identifies the generators created for the array elements, e.g. by the element type and its recursive depth */
+	private Object elementKey;
 
 	/** Lower limit (inclusive) and upper limit (exclusive) for the size of the array generated */
 	private IntegerRange range;
 	
 	private int size = 0;
-	/** Number of combinations completed so far for the current size of the array */
-	private int currentCombinations;
-	private int count = 1;
-	
 
-	public ArrayGenerator(List<Generator> generators, TestType testType, int numTests, int lower, int upper) throws IntegerRangeException {
-		this.generators = generators;
+	/** The last array generated and its combination, shared if it is generated again */
+	private int lastComboNum = -1;
+	private RValue lastValue;
+
+	public ArrayGenerator(ElementSupplier elements, TestType testType, int numTests, int lower, int upper) throws IntegerRangeException {
+		this(elements, null, testType, numTests, lower, upper);
+	}
+
+	/**
+	 * @param elements Creates the generators for the array elements
+	 * @param elementKey Identifies the generators created for the array elements,
+	 * or null if they are identified by the generator of the first element
+	 * @param testType The type of test generation
+	 * @param numTests The number of tests
+	 * @param lower Lower limit (inclusive) for the length of the array
+	 * @param upper Upper limit (inclusive) for the length of the array
+	 * @throws IntegerRangeException
+	 */
+	public ArrayGenerator(ElementSupplier elements, Object elementKey, TestType testType, int numTests, int lower, int upper) throws IntegerRangeException {
+		this.elements = elements;
+		this.generators = new ArrayList<Generator>();
+		// The first element is needed to calculate the size
+		this.generators.add(elements.get());
+		this.elementKey = elementKey != null ? elementKey : generators.get(0);
 		this.testType = testType;
 		this.range = new IntegerRange(lower, upper + 1);
-		this.currentCombinations = 0;
 		checkValidRange();
 		calculateSize();
 	}
 	
+	/**
+	 * The arrays are ordered by their length, from the shortest length in the range,
+	 * and the arrays of the same length are ordered by their elements,
+	 * where the last element changes the fastest.
+	 * Consecutive tests often generate the same array, which is shared.
+	 */
 	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		// Empty array
-		if(count == 1 && range.lowerBound().equals(BigInteger.valueOf(0))) {
-			count++;
-			return semantics.Array(new RValue[0]);
+	public RValue generate(int comboNum) {
+		if(comboNum == lastComboNum) {
+			return lastValue;
 		}
-		else {
-			int size = range.lowerBound().intValue() > 0 ? range.lowerBound().intValue() : 1;
-			// Get the size of the array
-			if(arrElements != null) {
-				if(currentCombinations >= Math.pow(generators.get(0).size(), arrElements.length)) {
-					size = arrElements.length + 1;
-					currentCombinations = 0;
-				}
-			}
-
-			// Resetting as it is a new array size
-			if(arrElements == null || arrElements.length < size) {
-				arrElements = new RValue[size];
-				// When the size is greater than value generated. 
-				if(size >= range.upperBound().intValue()) {
-					resetCount();
-					return this.generate();
-				}
-				assert size < range.upperBound().intValue();
-				for(int i=0; i < arrElements.length; i++) {
-					Generator gen = generators.get(i);
-					gen.resetCount();
-					arrElements[i] = gen.generate();
-				}
-			}
-			else {
-				// Generate the array elements backwards 
-				for(int i=arrElements.length - 1; i >= 0 ; i--) {
-					Generator gen = generators.get(i);
-					if(!gen.exceedCount()) {
-						arrElements[i] = gen.generate();
-						break;
-					}
-					else {
-						gen.resetCount();
-						arrElements[i] = gen.generate();
+		int generatorRange = getGenerator(0).size();
+		int length = Math.max(0, range.lowerBound().intValue());
+		int maxLength = range.upperBound().intValue() - 1;
+		// Find the length of the array, and its position amongst the arrays of that length
+		long leftover = comboNum;
+		double numArrays = Math.pow(generatorRange, length);
+		while(leftover >= numArrays && length < maxLength) {
+			leftover -= numArrays;
+			length++;
+			numArrays = Math.pow(generatorRange, length);
+		}
+		RValue[] arrElements = new RValue[length];
+		for(int i=length - 1; i >= 0; i--) {
+			arrElements[i] = getGenerator(i).generate((int) (leftover % generatorRange));
+			leftover /= generatorRange;
+		}
+		lastValue = semantics.Array(arrElements);
+		lastComboNum = comboNum;
+		return lastValue;
+	}
+	
+	/**
+	 * The size of an array is its length
+	 * plus the size of each of its elements.
+	 */
+	@Override
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		// All elements are the same type, so only one generator is required
+		Generator gen = getGenerator(0);
+		int elementMax = gen.maxValueSize();
+		List<List<RValue>> elementValues = new ArrayList<List<RValue>>();
+		int upper = Math.min(range.upperBound().intValue() - 1, valueSize);
+		for(int length = Math.max(0, range.lowerBound().intValue()); length <= upper; length++) {
+			int[] limits = new int[length];
+			Arrays.fill(limits, elementMax);
+			for(int[] composition : Combinations.compositions(valueSize - length, limits)) {
+				List<List<RValue>> choices = new ArrayList<List<RValue>>();
+				for(int elementSize : composition) {
+					// Elements of the same size are reused across compositions
+					while(elementValues.size() <= elementSize) {
+						elementValues.add(gen.generateSized(elementValues.size()));
 					}
+					choices.add(elementValues.get(elementSize));
+				}
+				for(RValue[] elements : Combinations.product(choices)) {
+					values.add(semantics.Array(elements));
 				}
 			}
-			count++;
-			currentCombinations++;
-			return semantics.Array(arrElements);
 		}
-
+		return values;
 	}
 	
 	@Override
-	public RValue generate(int comboNum) {
-		if(comboNum == 0) {
-			return semantics.Array(new RValue[0]);
+	public int maxValueSize() {
+		int maxLength = range.upperBound().intValue() - 1;
+		int elementMax = getGenerator(0).maxValueSize();
+		return Combinations.multiplySize(maxLength, Combinations.addSize(elementMax, 1));
+	}
+	
+	/**
+	 * The boundary values are the arrays of the shortest, second shortest and longest length,
+	 * each filled with one of the boundary values of the elements.
+	 */
+	@Override
+	public List<RValue> generateBoundary() {
+		List<RValue> values = new ArrayList<RValue>();
+		List<RValue> elementBoundaries = getGenerator(0).generateBoundary();
+		int min = Math.max(0, range.lowerBound().intValue());
+		int max = range.upperBound().intValue() - 1;
+		// Remove the duplicates, when the range is small
+		Set<Integer> lengths = new LinkedHashSet<Integer>();
+		lengths.add(min);
+		lengths.add(Math.min(min + 1, max));
+		lengths.add(max);
+		for(int length : lengths) {
+			if(length == 0) {
+				values.add(semantics.Array(new RValue[0]));
+				continue;
+			}
+			for(RValue element : elementBoundaries) {
+				RValue[] elements = new RValue[length];
+				Arrays.fill(elements, element);
+				values.add(semantics.Array(elements));
+			}
 		}
-		else { 
-//			System.out.println("Combo: " + comboNum);
-			int arrSize = 1;
-			int leftover = comboNum - 1;
-			while(leftover > 0) {
-				int generatorRange = generators.get(arrSize - 1).size();
-				double sub = Math.pow(generatorRange, arrSize);
-//				System.out.println("Sub " + sub);
-				if(leftover - sub < 0) {
-					break;
-				}
-				leftover -= sub;
-				arrSize++;
+		return values;
+	}
+	
+	/**
+	 * Get the generator for an array element,
+	 * creating it (and the generators for the elements before it) if required.
+	 * @param index The index of the array element
+	 * @return The generator for the array element
+	 */
+	private Generator getGenerator(int index) {
+		while(generators.size() <= index) {
+			try {
+				generators.add(elements.get());
 			}
-//			System.out.println("Leftover " + leftover);
-//			System.out.println("Array size " + arrSize);
-			RValue[] elements = new RValue[arrSize];
-			for(int i=arrSize - 1; i >= 0 ; i--) {
-				Generator gen = generators.get(i);
-				int divNum = (int) Math.pow(gen.size(), i);
-				int num = leftover;
-				// Note: Num is always rounded down
-				if(divNum != 0) {
-					num /= divNum;
-				}
-//				System.out.println("Div " + divNum);
-//				System.out.println(combo);
-				elements[arrSize-i-1] = gen.generate(num);
-				leftover -= num * divNum;
+			catch(IntegerRangeException e) {
+				// Cannot happen as the first element generator was created successfully
+				throw new CannotGenerateException("Could not create a generator for the array element " + index);
 			}
-			return semantics.Array(elements);
 		}
+		return generators.get(index);
 	}
-
 	
 	private void checkValidRange() throws IntegerRangeException {
 		// Throw an error if the range is bigger than the other
@@ -158,13 +211,15 @@ public class ArrayGenerator implements Generator{
 	 * @throws IntegerRangeException 
 	 */
 	public void joinRange(IntegerRange other) throws IntegerRangeException {
-		assert count == 1;
 		this.range = range.intersection(other);
 		checkValidRange();
 		calculateSize();
 	}
 	
 	private void calculateSize(){
+		// The range of the array may have changed
+		this.lastComboNum = -1;
+		this.lastValue = null;
 		// Calculate size
 		int start = range.lowerBound().intValue();
 		if(start == 0) {
@@ -174,7 +229,7 @@ public class ArrayGenerator implements Generator{
 		else {
 			this.size = 0;
 		}
-		int generatorRange = generators.get(0).size();
+		int generatorRange = getGenerator(0).size();
 		for(int i=start; i < range.upperBound().intValue(); i++) {
 			this.size += Math.pow(generatorRange, i);
 		}
@@ -188,27 +243,15 @@ public class ArrayGenerator implements Generator{
 		return size;
 	}
 
-	@Override
-	public void resetCount() {
-		count = 1;
-		currentCombinations = 0;
-		this.arrElements = null;
-	}
-
-	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
-	}
-
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((generators == null) ? 0 : generators.hashCode());
-		result = prime * result + range.lowerBound().intValue();
+		result = prime * result + elementKey.hashCode();
+		result = prime * result + range.lowerBound().hashCode();
 		result = prime * result + size;
 		result = prime * result + ((testType == null) ? 0 : testType.hashCode());
-		result = prime * result + range.upperBound().intValue();
+		result = prime * result + range.upperBound().hashCode();
 		return result;
 	}
 
@@ -221,12 +264,9 @@ public class ArrayGenerator implements Generator{
 		if (getClass() != obj.getClass())
 			return false;
 		ArrayGenerator other = (ArrayGenerator) obj;
-		if (generators == null) {
-			if (other.generators != null)
-				return false;
-		} else if (!generators.equals(other.generators))
+		if (!elementKey.equals(other.elementKey))
 			return false;
-		if (range != other.range)
+		if (!range.lowerBound().equals(other.range.lowerBound()) || !range.upperBound().equals(other.range.upperBound()))
 			return false;
 		if (size != other.size)
 			return false;
@@ -234,4 +274,16 @@ public class ArrayGenerator implements Generator{
 			return false;
 		return true;
 	}
+
+	/**
+	 * Creates a generator for an array element.
+	 */
+	public interface ElementSupplier {
+		/**
+		 * Create a generator for an array element
+		 * @return The generator for an array element
+		 * @throws IntegerRangeException
+		 */
+		public Generator get() throws IntegerRangeException;
+	}
 }
@@ -1,5 +1,8 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import quickcheck.util.TestType;
 import wyil.interpreter.ConcreteSemantics;
 import wyil.interpreter.ConcreteSemantics.RValue;
@@ -17,38 +20,40 @@ public final class BooleanGenerator implements Generator {
 	private static final ConcreteSemantics semantics = new ConcreteSemantics();
 		
 	private TestType testType;
-	private int count = 1;
 
 	public BooleanGenerator(TestType testType, int numTests) {
 		this.testType = testType;
 	}
 
 	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		count++;
-		return semantics.Bool(count % 2 == 0);
+	public RValue generate(int comboNum) {
+		return semantics.Bool(comboNum == 0);
 	}
 	
 	@Override
-	public RValue generate(int comboNum) {
-		return semantics.Bool(comboNum == 0);
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		if(valueSize == 0) {
+			values.add(semantics.Bool(true));
+			values.add(semantics.Bool(false));
+		}
+		return values;
 	}
-
-
+	
 	@Override
-	public int size() {
-		return 2;
+	public int maxValueSize() {
+		return 0;
 	}
-
+	
 	@Override
-	public void resetCount() {
-		count = 1;
+	public List<RValue> generateBoundary() {
+		return generateSized(0);
 	}
 
+
 	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
+	public int size() {
+		return 2;
 	}
 
 	@Override
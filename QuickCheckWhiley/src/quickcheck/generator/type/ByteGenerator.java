@@ -1,7 +1,10 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import quickcheck.util.InternedValues;
 import quickcheck.util.TestType;
-import wyil.interpreter.ConcreteSemantics;
 import wyil.interpreter.ConcreteSemantics.RValue;
 
 
@@ -14,46 +17,57 @@ import wyil.interpreter.ConcreteSemantics.RValue;
  *
  */
 public class ByteGenerator implements Generator{
-	/** Used for generating appropriate values */
-	private static final ConcreteSemantics semantics = new ConcreteSemantics();
-	
 	private TestType testType;
 	private int LOWER_LIMIT = 0;
 	private int UPPER_LIMIT = 256;
-
-	private int count = 1;
 		
 	public ByteGenerator(TestType testType, int numTests) {
 		this.testType = testType;
 	}
 
 	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		byte binary = (byte) (count - 1);
-		count++;
-		return semantics.Byte(binary);
+	public RValue generate(int comboNum) {
+		assert LOWER_LIMIT <= comboNum && comboNum < UPPER_LIMIT;
+		return InternedValues.Byte((byte) comboNum);
 	}
 	
+	/**
+	 * The size of a byte is the number of bits set,
+	 * so a byte is never larger than a small integer.
+	 */
 	@Override
-	public RValue generate(int comboNum) {
-		assert LOWER_LIMIT <= comboNum && comboNum < UPPER_LIMIT;
-		return semantics.Byte((byte) comboNum);
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		for(int i=LOWER_LIMIT; i < UPPER_LIMIT; i++) {
+			if(Integer.bitCount(i) == valueSize) {
+				values.add(InternedValues.Byte((byte) i));
+			}
+		}
+		return values;
 	}
-
+	
 	@Override
-	public int size() {
-		return UPPER_LIMIT;
+	public int maxValueSize() {
+		return Byte.SIZE;
 	}
-
+	
+	/**
+	 * The boundary values are no bits set, the lowest bit set,
+	 * either side of the highest bit and all bits set.
+	 */
 	@Override
-	public void resetCount() {
-		count = 1;
+	public List<RValue> generateBoundary() {
+		List<RValue> values = new ArrayList<RValue>();
+		int[] boundaries = {0b00000000, 0b00000001, 0b01111111, 0b10000000, 0b11111111};
+		for(int boundary : boundaries) {
+			values.add(InternedValues.Byte((byte) boundary));
+		}
+		return values;
 	}
 
 	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
+	public int size() {
+		return UPPER_LIMIT;
 	}
 
 }
@@ -1,5 +1,7 @@
 package quickcheck.generator.type;
 
+import java.util.List;
+
 import wyil.interpreter.ConcreteSemantics.RValue;
 
 /**
@@ -13,13 +15,12 @@ import wyil.interpreter.ConcreteSemantics.RValue;
 public interface Generator{
 		
 	/**
-	 * Generate a test value for a type
-	 * @return A test value
-	 */
-	public RValue generate();
-	
-	/**
-	 * Generate a test value for a type based on the specific combination
+	 * Generate a test value for a type based on the specific combination.
+	 * Every combination from 0 to the size of the generator (exclusive)
+	 * corresponds to a unique value, so the values can be generated in any order,
+	 * e.g. exhaustively from any combination onwards.
+	 * @param comboNum The combination (rank) of the value
+	 * @return The test value
 	 */
 	public RValue generate(int comboNum);
 	
@@ -30,15 +31,29 @@ public interface Generator{
 	public int size();
 	
 	/**
-	 * Reset the counting for the generator.
-	 * Used in exhaustive testing when all possible values has been generated.
+	 * Generate all the test values of a specific value size.
+	 * The size of a value is the sum of its integer magnitudes,
+	 * array lengths and number of records, so deeper recursive values are larger.
+	 * Used in sized testing to enumerate the smallest values first.
+	 * 
+	 * @param valueSize The size of the values to generate
+	 * @return All the test values of the size
+	 */
+	public List<RValue> generateSized(int valueSize);
+	
+	/**
+	 * Get the largest value size that could be generated.
+	 * @return The maximum size of a value that can be generated
 	 */
-	public void resetCount();
+	public int maxValueSize();
 	
 	/**
-	 * Check if all possible values have been generated by the generator.
-	 * @return If all possible values have been generated.
+	 * Generate the boundary values of a type,
+	 * i.e. the values at the edges of its range which are most likely to expose faults.
+	 * Used in boundary testing before any random values are generated.
+	 * 
+	 * @return The boundary values, from the most to the least interesting
 	 */
-	public boolean exceedCount();
+	public List<RValue> generateBoundary();
 		
 }
@@ -1,11 +1,15 @@
 package quickcheck.generator.type;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import quickcheck.constraints.IntegerRange;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.util.InternedValues;
 import quickcheck.util.TestType;
-import wyil.interpreter.ConcreteSemantics;
 import wyil.interpreter.ConcreteSemantics.RValue;
 
 /**
@@ -19,9 +23,6 @@ import wyil.interpreter.ConcreteSemantics.RValue;
  *
  */
 public final class IntegerGenerator implements Generator {
-	/** Used for generating appropriate values */
-	private static final ConcreteSemantics semantics = new ConcreteSemantics();
-	
 	private TestType testType;
 	
 	/** Lower limit (inclusive) for the integer generated */
@@ -30,7 +31,6 @@ public final class IntegerGenerator implements Generator {
 	private IntegerRange range;
 
 	private int size;
-	private int count = 1;
 
     public IntegerGenerator(TestType testType, int numTests, BigInteger lower, BigInteger upper) throws IntegerRangeException {
 		this.testType = testType;
@@ -40,21 +40,66 @@ public final class IntegerGenerator implements Generator {
 	}
 	
 	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		BigInteger value =  range.lowerBound().add(BigInteger.valueOf(count-1));
-		if(value.compareTo(range.upperBound()) >= 0) {
-			resetCount();
-			value = range.lowerBound().add(BigInteger.valueOf(count-1));
+	public RValue generate(int comboNum) {
+		BigInteger value = range.lowerBound().add(BigInteger.valueOf(comboNum));
+		return InternedValues.Int(value);
+	}
+	
+	@Override
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		BigInteger positive = BigInteger.valueOf(valueSize);
+		if(inRange(positive)) {
+			values.add(InternedValues.Int(positive));
+		}
+		BigInteger negative = positive.negate();
+		if(valueSize != 0 && inRange(negative)) {
+			values.add(InternedValues.Int(negative));
 		}
-		count++;
-		return semantics.Int(value);
+		return values;
 	}
 	
 	@Override
-	public RValue generate(int comboNum) {
-		BigInteger value = range.lowerBound().add(BigInteger.valueOf(comboNum));
-		return semantics.Int(value);
+	public int maxValueSize() {
+		BigInteger lower = range.lowerBound().abs();
+		BigInteger upper = range.upperBound().subtract(BigInteger.ONE).abs();
+		BigInteger max = lower.max(upper);
+		if(max.bitLength() >= Integer.SIZE - 1) {
+			return Integer.MAX_VALUE;
+		}
+		return max.intValue();
+	}
+	
+	/**
+	 * The boundary values are zero and one either side of it,
+	 * and the two values at each end of the range.
+	 */
+	@Override
+	public List<RValue> generateBoundary() {
+		BigInteger last = range.upperBound().subtract(BigInteger.ONE);
+		BigInteger[] candidates = {BigInteger.ZERO, BigInteger.ONE.negate(), BigInteger.ONE,
+				range.lowerBound(), last, range.lowerBound().add(BigInteger.ONE), last.subtract(BigInteger.ONE)};
+		// Remove the duplicates, when the range is small
+		Set<BigInteger> boundaries = new LinkedHashSet<BigInteger>();
+		for(BigInteger candidate : candidates) {
+			if(inRange(candidate)) {
+				boundaries.add(candidate);
+			}
+		}
+		List<RValue> values = new ArrayList<RValue>();
+		for(BigInteger boundary : boundaries) {
+			values.add(InternedValues.Int(boundary));
+		}
+		return values;
+	}
+	
+	/**
+	 * Check if a value is within the range of this generator.
+	 * @param value The value to check
+	 * @return Whether the value is between the lower limit (inclusive) and upper limit (exclusive)
+	 */
+	private boolean inRange(BigInteger value) {
+		return range.lowerBound().compareTo(value) <= 0 && value.compareTo(range.upperBound()) < 0;
 	}
 	
 	private void checkValidRange() throws IntegerRangeException {
@@ -72,7 +117,6 @@ public final class IntegerGenerator implements Generator {
 	 * @throws IntegerRangeException 
 	 */
 	public void joinRange(IntegerRange other) throws IntegerRangeException {
-		assert count == 1;
 		this.range = range.intersection(other);
 		checkValidRange();
 		calculateSize();
@@ -90,16 +134,6 @@ public final class IntegerGenerator implements Generator {
 		return size;
 	}
 
-	@Override
-	public void resetCount() {
-		count = 1;
-	}
-
-	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
-	}	
-
 	@Override
 	public int hashCode() {
 		final int prime = 31;
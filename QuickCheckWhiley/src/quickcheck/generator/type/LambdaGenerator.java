@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import quickcheck.util.Combinations;
 import quickcheck.util.TestType;
 import wybs.util.AbstractCompilationUnit.Identifier;
 import wybs.util.AbstractCompilationUnit.Tuple;
@@ -38,9 +39,6 @@ public class LambdaGenerator implements Generator{
 
 	private Interpreter interpreter;
 
-	/** Current return elements generated */
-	private RValue[] returnElements;
-		
 	private Decl.Lambda lambda;
 	private Stmt body;
 	private List<Identifier> returnNames;
@@ -48,7 +46,6 @@ public class LambdaGenerator implements Generator{
 	private TestType testType;
 
 	private int size;
-	private int count = 1;
 
 	public LambdaGenerator(List<Generator> generators, WhileyFile.Type.Callable lambdaType, Interpreter interpreter, TestType testType, int numTests) {
 		this.generators = generators;
@@ -105,39 +102,6 @@ public class LambdaGenerator implements Generator{
 		return builder.toString();
 	}
 
-	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		if(returnElements == null) {
-			returnElements = new RValue[generators.size()];
-			for(int i=0; i < returnElements.length; i++) {
-				Generator gen = generators.get(i);
-				gen.resetCount();
-				returnElements[i] = gen.generate();
-			}
-		}
-		else {
-			// Generate the array elements backwards
-			for(int i=returnElements.length - 1; i >= 0 ; i--) {
-				Generator gen = generators.get(i);
-				if(!gen.exceedCount()) {
-					returnElements[i] = gen.generate();
-					break;
-				}
-				else {
-					gen.resetCount();
-					returnElements[i] = gen.generate();
-				}
-			}
-		}
-		count++;
-		CallStack frame = interpreter.new CallStack();
-		for(int i=0; i < returnElements.length; i++) {
-			frame.putLocal(returnNames.get(i), returnElements[i]);
-		}
-		return semantics.Lambda(this.lambda, frame, this.body);
-	}
-	
 	@Override
 	public RValue generate(int comboNum) {
 		RValue[] returnEles = new RValue[generators.size()];
@@ -160,11 +124,66 @@ public class LambdaGenerator implements Generator{
 			returnEles[i] = gen.generate(num);
 			leftover -= num * divNum;
 		}
+		return createLambda(returnEles);
+	}
+	
+	/**
+	 * The size of a lambda is the size of the values it returns.
+	 */
+	@Override
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		int[] limits = new int[generators.size()];
+		for(int i=0; i < limits.length; i++) {
+			limits[i] = generators.get(i).maxValueSize();
+		}
+		for(int[] composition : Combinations.compositions(valueSize, limits)) {
+			List<List<RValue>> choices = new ArrayList<List<RValue>>();
+			for(int i=0; i < composition.length; i++) {
+				choices.add(generators.get(i).generateSized(composition[i]));
+			}
+			for(RValue[] returnEles : Combinations.product(choices)) {
+				values.add(createLambda(returnEles));
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * The boundary values vary one return value at a time.
+	 */
+	@Override
+	public List<RValue> generateBoundary() {
+		List<RValue> values = new ArrayList<RValue>();
+		List<List<RValue>> choices = new ArrayList<List<RValue>>();
+		for(Generator gen : generators) {
+			choices.add(gen.generateBoundary());
+		}
+		for(RValue[] returnEles : Combinations.oneFactor(choices)) {
+			values.add(createLambda(returnEles));
+		}
+		return values;
+	}
+	
+	@Override
+	public int maxValueSize() {
+		int max = 0;
+		for(Generator gen : generators) {
+			max = Combinations.addSize(max, gen.maxValueSize());
+		}
+		return max;
+	}
+	
+	/**
+	 * Create a lambda which returns the given values.
+	 * @param returnEles The values returned by the lambda
+	 * @return The lambda value
+	 */
+	private RValue createLambda(RValue[] returnEles) {
 		CallStack frame = interpreter.new CallStack();
 		for(int i=0; i < returnEles.length; i++) {
 			frame.putLocal(returnNames.get(i), returnEles[i]);
 		}
-
 		return semantics.Lambda(this.lambda, frame, this.body);
 	}
 
@@ -189,14 +208,4 @@ public class LambdaGenerator implements Generator{
 		return size;
 	}
 
-	@Override
-	public void resetCount() {
-		count = 1;
-		this.returnElements = null;
-	}
-
-	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
-	}
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import quickcheck.constraints.RangeHelper;
 import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.util.InvariantCache;
 import wybs.util.AbstractCompilationUnit.Identifier;
 import wybs.util.AbstractCompilationUnit.Tuple;
 import wyc.lang.WhileyFile.Decl;
@@ -28,10 +32,6 @@ public class NominalGenerator implements Generator{
 	private Generator generator;
 	private Interpreter interpreter;
 	private Decl.Type decl;
-	/**The next value that was generated*/
-	private RValue nextValue;
-	/**Used to check if the generators were resetted internally, due to failing invariants*/
-	private boolean internalReset;
 
 	public NominalGenerator(Generator generator, Interpreter interpreter, Decl.Type decl) throws IntegerRangeException {
 		super();
@@ -45,21 +45,16 @@ public class NominalGenerator implements Generator{
 
 	}
 
-	@Override
-	public RValue generate() {
-		RValue value = this.nextValue;
-		if(value == null) {
-			value = generateNext();
-		}
-		this.nextValue = null;
-		return value;
-	}
-
+	/**
+	 * Generate the value of the renamed type for the combination,
+	 * which cannot be generated if it does not meet the invariant.
+	 * @throws CannotGenerateException If the value does not meet the invariant
+	 */
 	@Override
 	public RValue generate(int comboNum) {
 		RValue value = generator.generate(comboNum);
 		try {
-			RValue.Bool isValid =  value.checkInvariant(decl.getVariableDeclaration(), decl.getInvariant(), interpreter);
+			RValue.Bool isValid = InvariantCache.check(interpreter, decl, value);
 			if(isValid == RValue.Bool.False) {
 				throw new CannotGenerateException("Value:" + value + " does not meet type constraint.");
 			}
@@ -69,6 +64,44 @@ public class NominalGenerator implements Generator{
 			throw new CannotGenerateException("Value:" + value + " does not meet type constraint.");
 		}
 	}
+	
+	@Override
+	public List<RValue> generateSized(int valueSize) {
+		return filterInvariant(generator.generateSized(valueSize));
+	}
+	
+	/**
+	 * The boundary values of the renamed type which meet the invariant.
+	 * The ranges of the renamed type are already narrowed to the invariant.
+	 */
+	@Override
+	public List<RValue> generateBoundary() {
+		return filterInvariant(generator.generateBoundary());
+	}
+	
+	/**
+	 * Remove the values that do not meet the type invariant.
+	 * @param candidates The values generated for the renamed type
+	 * @return The values that meet the type invariant
+	 */
+	private List<RValue> filterInvariant(List<RValue> candidates) {
+		List<RValue> values = new ArrayList<RValue>();
+		for(RValue value : candidates) {
+			// If an assertion error is thrown for the value, then invariant failed. Skip the value
+			try {
+				if(InvariantCache.check(interpreter, decl, value) == RValue.Bool.True) {
+					values.add(value);
+				}
+			}
+			catch(AssertionError e) {}
+		}
+		return values;
+	}
+	
+	@Override
+	public int maxValueSize() {
+		return generator.maxValueSize();
+	}
 
 	/**
 	 * Check the ranges on the invariants against the generators.
@@ -99,64 +132,14 @@ public class NominalGenerator implements Generator{
 	}
 	
 	/**
-	 * Internally generate the next value possible.
-	 * @return
-	 * @throws CannotGenerateException 
+	 * The values of the renamed type which do not meet the invariant
+	 * are counted, but cannot be generated.
 	 */
-	private RValue generateNext() {
-		RValue.Bool isValid = RValue.Bool.False;
-		int i = 1;
-		RValue value = null;
-		while(isValid == RValue.Bool.False) {
-            // TODO might be a good idea to redefine the size of the nominal?
-			// When the generator's limit has reached, reset the generator
-			if(generator.exceedCount()) {
-				internalReset = true;
-				generator.resetCount();
-			}
-			value = generator.generate();
-			// If an assertion error is thrown for the value, then invariant failed. Skip the value
-			try {
-				isValid = value.checkInvariant(decl.getVariableDeclaration(), decl.getInvariant(), interpreter);
-			}
-			catch(AssertionError e) {}
-			// No valid values
-			if(i > generator.size()) {
-				throw new CannotGenerateException("No possible values can be generated for the nominal type: " + decl.getName());
-			}
-			i++;
-		}
-		return value;
-	}
-
 	@Override
 	public int size() {
 		return generator.size();
 	}
 
-	@Override
-	public void resetCount() {
-		if(!internalReset) {
-			nextValue = null;
-			generator.resetCount();
-		}
-		internalReset = false;
-	}
-
-	@Override
-	public boolean exceedCount() {
-		if(nextValue == null) {
-			// Check if the generator has exceeded the count
-			if(generator.exceedCount()) {
-				return true;
-			}
-			// Generate next value to check if it will exceed the count
-			this.nextValue = generateNext();
-		}
-		// If the count was resetted internally, return true.
-		return internalReset;
-	}
-
 	@Override
 	public int hashCode() {
 		final int prime = 31;
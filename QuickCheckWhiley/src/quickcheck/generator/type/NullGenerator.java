@@ -1,5 +1,8 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import wyil.interpreter.ConcreteSemantics;
 import wyil.interpreter.ConcreteSemantics.RValue;
 
@@ -12,37 +15,38 @@ import wyil.interpreter.ConcreteSemantics.RValue;
 public class NullGenerator implements Generator{
 	/** Used for generating appropriate values */
 	private static final ConcreteSemantics semantics = new ConcreteSemantics();
-	/** Check if the null value has been generated yet */
-	private boolean generated = false;
 	
 	public NullGenerator() {
 		super();
 	}
 
 	@Override
-	public RValue generate() {
-		generated = true;
+	public RValue generate(int comboNum) {
 		return semantics.Null();
 	}
 	
 	@Override
-	public RValue generate(int comboNum) {
-		return semantics.Null();
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		if(valueSize == 0) {
+			values.add(semantics.Null());
+		}
+		return values;
 	}
-
+	
 	@Override
-	public int size() {
-		return 1;
+	public int maxValueSize() {
+		return 0;
 	}
-
+	
 	@Override
-	public void resetCount() {
-		generated = false;
+	public List<RValue> generateBoundary() {
+		return generateSized(0);
 	}
 
 	@Override
-	public boolean exceedCount() {
-		return generated;
+	public int size() {
+		return 1;
 	}
 
 }
@@ -1,9 +1,11 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import quickcheck.constraints.RangeHelper;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.util.Combinations;
 import quickcheck.util.TestType;
 import wybs.util.AbstractCompilationUnit.Identifier;
 import wybs.util.AbstractCompilationUnit.Tuple;
@@ -36,13 +38,16 @@ public class RecordGenerator implements Generator{
 	/** Field names for the record */
 	private List<Decl.Variable> fields;
 
-	/** Current field elements generated */
-	private Field[] elements;
-
 	private TestType testType;
 
 	private int size;
-	private int count = 1;
+
+	/** The last record generated and its combination, shared if it is generated again */
+	private int lastComboNum;
+	private RValue lastValue;
+	/** The last field generated for each field and its combination */
+	private Field[] lastFields;
+	private int[] lastNums;
 
 	public RecordGenerator(List<Generator> generators, List<Decl.Variable> fields, TestType testType, int numTests) {
 		this.generators = generators;
@@ -51,38 +56,15 @@ public class RecordGenerator implements Generator{
 		calculateSize();
 	}
 
-	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		if(elements == null) {
-			elements = new Field[generators.size()];
-			for(int i=0; i < elements.length; i++) {
-				Generator gen = generators.get(i);
-				gen.resetCount();
-				elements[i] = semantics.Field(fields.get(i).getName(), gen.generate());
-			}
-		}
-		else {
-			// Generate the array elements backwards
-			for(int i=elements.length - 1; i >= 0 ; i--) {
-				Generator gen = generators.get(i);
-				if(!gen.exceedCount()) {
-					elements[i] = semantics.Field(fields.get(i).getName(), gen.generate());
-					break;
-				}
-				else {
-					gen.resetCount();
-					elements[i] = semantics.Field(fields.get(i).getName(), gen.generate());
-				}
-			}
-		}
-		count++;
-		// Need to clone (shallow is fine) so the elements array doesn't get sorted
-		return semantics.Record(elements.clone());
-	}
-	
+	/**
+	 * The fields which are the same as the last record generated
+	 * are shared with it, instead of being generated again.
+	 */
 	@Override
 	public RValue generate(int comboNum) {
+		if(comboNum == lastComboNum) {
+			return lastValue;
+		}
 		Field[] recordFields = new Field[generators.size()];
 		int leftover = comboNum;
 		for(int i=0; i < recordFields.length ; i++) {
@@ -99,13 +81,76 @@ public class RecordGenerator implements Generator{
 			if(divNum != 0) {
 				num /= divNum;
 			}
-			Generator gen = generators.get(i);
-			RValue val =  gen.generate(num);
-			recordFields[i] = semantics.Field(fields.get(i).getName(), val);
+			if(lastFields[i] == null || lastNums[i] != num) {
+				Generator gen = generators.get(i);
+				RValue val =  gen.generate(num);
+				lastFields[i] = semantics.Field(fields.get(i).getName(), val);
+				lastNums[i] = num;
+			}
+			recordFields[i] = lastFields[i];
 			leftover -= num * divNum;
 		}
-		return semantics.Record(recordFields);
-		
+		// The record sorts its fields, so it is given a new array
+		lastValue = semantics.Record(recordFields);
+		lastComboNum = comboNum;
+		return lastValue;
+	}
+	
+	/**
+	 * The size of a record is one plus the size of each of its fields,
+	 * so records nested through recursive types are larger.
+	 */
+	@Override
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		int[] limits = new int[generators.size()];
+		for(int i=0; i < limits.length; i++) {
+			limits[i] = generators.get(i).maxValueSize();
+		}
+		for(int[] composition : Combinations.compositions(valueSize - 1, limits)) {
+			List<List<RValue>> choices = new ArrayList<List<RValue>>();
+			for(int i=0; i < composition.length; i++) {
+				choices.add(generators.get(i).generateSized(composition[i]));
+			}
+			for(RValue[] vals : Combinations.product(choices)) {
+				Field[] recordFields = new Field[vals.length];
+				for(int i=0; i < vals.length; i++) {
+					recordFields[i] = semantics.Field(fields.get(i).getName(), vals[i]);
+				}
+				values.add(semantics.Record(recordFields));
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * The boundary values vary one field at a time,
+	 * so the number of values only grows with the number of fields.
+	 */
+	@Override
+	public List<RValue> generateBoundary() {
+		List<RValue> values = new ArrayList<RValue>();
+		List<List<RValue>> choices = new ArrayList<List<RValue>>();
+		for(Generator gen : generators) {
+			choices.add(gen.generateBoundary());
+		}
+		for(RValue[] vals : Combinations.oneFactor(choices)) {
+			Field[] recordFields = new Field[vals.length];
+			for(int i=0; i < vals.length; i++) {
+				recordFields[i] = semantics.Field(fields.get(i).getName(), vals[i]);
+			}
+			values.add(semantics.Record(recordFields));
+		}
+		return values;
+	}
+	
+	@Override
+	public int maxValueSize() {
+		int max = 1;
+		for(Generator gen : generators) {
+			max = Combinations.addSize(max, gen.maxValueSize());
+		}
+		return max;
 	}
 
 	/**
@@ -145,6 +190,11 @@ public class RecordGenerator implements Generator{
 	}
 
 	private void calculateSize() {
+		// The ranges of the fields may have changed
+		this.lastComboNum = -1;
+		this.lastValue = null;
+		this.lastFields = new Field[generators.size()];
+		this.lastNums = new int[generators.size()];
 		//Calculate size
 		if(generators.size() > 0) {
 			this.size = 1;
@@ -165,17 +215,6 @@ public class RecordGenerator implements Generator{
 		return size;
 	}
 
-	@Override
-	public void resetCount() {
-		count = 1;
-		this.elements = null;
-	}
-
-	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
-	}
-
 	@Override
 	public int hashCode() {
 		final int prime = 31;
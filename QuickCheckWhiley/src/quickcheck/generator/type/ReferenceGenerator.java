@@ -1,5 +1,8 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import wyil.interpreter.ConcreteSemantics;
 import wyil.interpreter.ConcreteSemantics.RValue;
 
@@ -28,28 +31,41 @@ public class ReferenceGenerator implements Generator{
 	}
 	
 	@Override
-	public RValue generate() {
-		return semantics.Reference(semantics.Cell(generator.generate()));
+	public RValue generate(int comboNum) {
+		return semantics.Reference(semantics.Cell(generator.generate(comboNum)));
 	}
 	
 	@Override
-	public RValue generate(int comboNum) {
-		return semantics.Reference(semantics.Cell(generator.generate(comboNum)));
+	public List<RValue> generateSized(int valueSize) {
+		return createReferences(generator.generateSized(valueSize));
 	}
-
+	
 	@Override
-	public int size() {
-		return generator.size();
+	public List<RValue> generateBoundary() {
+		return createReferences(generator.generateBoundary());
 	}
-
+	
+	/**
+	 * Create a reference to each value.
+	 * @param referenced The values referenced
+	 * @return The references to the values
+	 */
+	private List<RValue> createReferences(List<RValue> referenced) {
+		List<RValue> values = new ArrayList<RValue>();
+		for(RValue value : referenced) {
+			values.add(semantics.Reference(semantics.Cell(value)));
+		}
+		return values;
+	}
+	
 	@Override
-	public void resetCount() {
-		generator.resetCount();
+	public int maxValueSize() {
+		return generator.maxValueSize();
 	}
 
 	@Override
-	public boolean exceedCount() {
-		return generator.exceedCount();
+	public int size() {
+		return generator.size();
 	}
 
 	@Override
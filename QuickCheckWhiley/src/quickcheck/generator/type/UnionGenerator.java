@@ -1,8 +1,10 @@
 package quickcheck.generator.type;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import quickcheck.constraints.RangeHelper;
+import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
 import quickcheck.util.TestType;
 import wybs.util.AbstractCompilationUnit.Identifier;
@@ -27,63 +29,80 @@ import wyil.interpreter.ConcreteSemantics.RValue;
 public final class UnionGenerator implements Generator {
 	/** Generators corresponding to each type in the union*/
 	private List<Generator> generators;
-	/**Index of the next generator used for generating values (exhaustive)*/
-	private int currentIndex;
 
 	private TestType testType;
 
 	private int size = 0;
-	private int count = 1;
 
 	public UnionGenerator(List<Generator> generators, TestType testType, int numTests) {
 		this.generators = generators;
 		this.testType = testType;
-		currentIndex = 0;
 		calculateSize();
 	}
 
+	/**
+	 * The values of the types are interleaved, taking a value from each type in turn,
+	 * and skipping the types which have no values left.
+	 * e.g. (bool|int) generates true, -5, false, -4, -3...
+	 */
 	@Override
-	public RValue generate() {
-		assert testType == TestType.EXHAUSTIVE;
-		// Iterate through the different generators
-		if(currentIndex >= generators.size()) {
-			currentIndex = 0;
-		}
-		// Generate all possible values, skip generators that have already finished generating values
-		Generator currentGen = generators.get(currentIndex);
-		if(exceedCount()) {
-			resetCount();
-		}
-		int startIndex = currentIndex;
-		while(currentGen.exceedCount()) {
-			currentIndex++;
-			if(currentIndex >= generators.size()) {
-				currentIndex = 0;
+	public RValue generate(int comboNum) {
+		int leftover = comboNum;
+		int round = 0;
+		while(true) {
+			// The generators with values left, and the number of rounds until one of them has none left
+			int numActive = 0;
+			int minSize = Integer.MAX_VALUE;
+			for(Generator gen : generators) {
+				if(gen.size() > round) {
+					numActive++;
+					minSize = Math.min(minSize, gen.size());
+				}
 			}
-			currentGen = generators.get(currentIndex);
-			// In the case, when nominal generator has exceeded (but its size is incorrect).
-			if(startIndex == currentIndex) {
-				resetCount();
-				break;
+			if(numActive == 0) {
+				throw new CannotGenerateException("No value for the combination " + comboNum + " of the union");
 			}
+			long numValues = (long) (minSize - round) * numActive;
+			if(leftover < numValues) {
+				// The same generators have values left until the minimum size is reached
+				round += leftover / numActive;
+				int index = leftover % numActive;
+				for(Generator gen : generators) {
+					if(gen.size() > round && index-- == 0) {
+						return gen.generate(round);
+					}
+				}
+			}
+			leftover -= numValues;
+			round = minSize;
 		}
-		currentIndex++;
-		count++;
-		return currentGen.generate();
 	}
 	
 	@Override
-	public RValue generate(int comboNum) {
-		int lowerLimit = 0;
-		Generator gen = generators.get(0);
-		for(int i=0; i< generators.size(); i++) {
-			gen = generators.get(i);
-			if(lowerLimit <= comboNum && comboNum < gen.size() + lowerLimit) {
-				break;
-			}
-			lowerLimit += gen.size();
+	public List<RValue> generateSized(int valueSize) {
+		List<RValue> values = new ArrayList<RValue>();
+		for(Generator gen : generators) {
+			values.addAll(gen.generateSized(valueSize));
+		}
+		return values;
+	}
+	
+	@Override
+	public List<RValue> generateBoundary() {
+		List<RValue> values = new ArrayList<RValue>();
+		for(Generator gen : generators) {
+			values.addAll(gen.generateBoundary());
+		}
+		return values;
+	}
+	
+	@Override
+	public int maxValueSize() {
+		int max = 0;
+		for(Generator gen : generators) {
+			max = Math.max(max, gen.maxValueSize());
 		}
-		return gen.generate(comboNum - lowerLimit);
+		return max;
 	}
 
 	/**
@@ -131,19 +150,6 @@ public final class UnionGenerator implements Generator {
 		return size;
 	}
 
-	@Override
-	public void resetCount() {
-		count = 1;
-		for(Generator gen : generators) {
-			gen.resetCount();
-		}
-	}
-
-	@Override
-	public boolean exceedCount() {
-		return this.size() < count;
-	}
-
 	@Override
 	public int hashCode() {
 		final int prime = 31;
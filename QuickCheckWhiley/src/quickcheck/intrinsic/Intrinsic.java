@@ -0,0 +1,21 @@
+package quickcheck.intrinsic;
+
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * A Java implementation of a Whiley function or method,
+ * which is executed instead of interpreting its body.
+ *
+ * @author Janice Chin
+ *
+ */
+public interface Intrinsic {
+
+	/**
+	 * Execute the function or method.
+	 * The precondition of the function or method has already been checked.
+	 * @param args The arguments, which are not modified
+	 * @return The return values
+	 */
+	public RValue[] apply(RValue... args);
+}
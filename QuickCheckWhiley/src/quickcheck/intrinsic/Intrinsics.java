@@ -0,0 +1,113 @@
+package quickcheck.intrinsic;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+
+/**
+ * A registry of the Java implementations of Whiley functions and methods,
+ * identified by their qualified name and type signature.
+ * The interpreter executes a registered implementation instead of the body,
+ * so commonly used library functions run at native speed
+ * and native functions or methods can be executed.
+ *
+ * @author Janice Chin
+ *
+ */
+public class Intrinsics {
+	/** Marks a signature which has no implementation */
+	private static final Intrinsic NONE = args -> null;
+
+	/** The implementations for each name, by the printed signature */
+	private final Map<NameID, Map<String, Intrinsic>> intrinsics;
+	/** The implementation found for each name and signature, so the signature is only printed once */
+	private final Map<NameID, Map<Type.Callable, Intrinsic>> resolved;
+	/** The implementation found for each declaration, so each call only looks up the declaration */
+	private final Map<Decl.Callable, Intrinsic> declarations;
+
+	/**
+	 * An empty registry, so every function or method is interpreted.
+	 */
+	public Intrinsics() {
+		this.intrinsics = new HashMap<NameID, Map<String, Intrinsic>>();
+		this.resolved = new HashMap<NameID, Map<Type.Callable, Intrinsic>>();
+		this.declarations = new IdentityHashMap<Decl.Callable, Intrinsic>();
+	}
+
+	/**
+	 * Register the implementation of a function or method.
+	 * @param name The qualified name of the function or method
+	 * @param signature The printed type signature, e.g. "function(int)->(int)"
+	 * @param intrinsic The implementation
+	 */
+	public void register(NameID name, String signature, Intrinsic intrinsic) {
+		Map<String, Intrinsic> overloads = intrinsics.get(name);
+		if(overloads == null) {
+			overloads = new HashMap<String, Intrinsic>();
+			intrinsics.put(name, overloads);
+		}
+		overloads.put(signature, intrinsic);
+		resolved.clear();
+		declarations.clear();
+	}
+
+	/**
+	 * Get the implementation of a function or method.
+	 * @param name The qualified name of the function or method
+	 * @param signature The type signature
+	 * @return The implementation, or null if the function or method is interpreted
+	 */
+	public Intrinsic get(NameID name, Type.Callable signature) {
+		Map<Type.Callable, Intrinsic> signatures = resolved.get(name);
+		if(signatures == null) {
+			// The signatures are compared by their identity
+			signatures = new IdentityHashMap<Type.Callable, Intrinsic>();
+			resolved.put(name, signatures);
+		}
+		Intrinsic intrinsic = signatures.get(signature);
+		if(intrinsic == null) {
+			Map<String, Intrinsic> overloads = intrinsics.get(name);
+			if(overloads != null) {
+				intrinsic = overloads.get(signature.toString());
+			}
+			if(intrinsic == null) {
+				intrinsic = NONE;
+			}
+			signatures.put(signature, intrinsic);
+		}
+		return intrinsic == NONE ? null : intrinsic;
+	}
+
+	/**
+	 * Get the implementation of a declared function or method,
+	 * which is found the first time the declaration is called.
+	 * @param decl The function or method
+	 * @return The implementation, or null if the function or method is interpreted
+	 */
+	public Intrinsic get(Decl.Callable decl) {
+		Intrinsic intrinsic = declarations.get(decl);
+		if(intrinsic == null) {
+			intrinsic = get(decl.getQualifiedName().toNameID(), decl.getType());
+			if(intrinsic == null) {
+				intrinsic = NONE;
+			}
+			declarations.put(decl, intrinsic);
+		}
+		return intrinsic == NONE ? null : intrinsic;
+	}
+
+	/**
+	 * @return The number of functions and methods registered
+	 */
+	public int size() {
+		int size = 0;
+		for(Map<String, Intrinsic> overloads : intrinsics.values()) {
+			size += overloads.size();
+		}
+		return size;
+	}
+}
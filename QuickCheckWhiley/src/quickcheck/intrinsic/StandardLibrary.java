@@ -0,0 +1,219 @@
+package quickcheck.intrinsic;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import quickcheck.util.InternedValues;
+import wybs.lang.NameID;
+import wyfs.lang.Path;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Java implementations of the pure functions of the Whiley standard library (wystd)
+ * which are used the most, and of its native printing methods.
+ * Each implementation returns the same values as the body of the function.
+ *
+ * @author Janice Chin
+ *
+ */
+public final class StandardLibrary {
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	private static final Path.ID MATH = Trie.fromString("std/math");
+	private static final Path.ID ARRAY = Trie.fromString("std/array");
+	private static final Path.ID IO = Trie.fromString("std/io");
+
+	private static final RValue[] NO_RETURNS = new RValue[0];
+
+	private StandardLibrary() {}
+
+	/**
+	 * Create a registry of the standard library implementations.
+	 * @param out Where the printing methods write to
+	 * @return The registry
+	 */
+	public static Intrinsics create(PrintStream out) {
+		Intrinsics intrinsics = new Intrinsics();
+		register(intrinsics, out);
+		return intrinsics;
+	}
+
+	/**
+	 * Register the standard library implementations.
+	 * @param intrinsics The registry
+	 * @param out Where the printing methods write to
+	 */
+	public static void register(Intrinsics intrinsics, PrintStream out) {
+		// std::math
+		intrinsics.register(new NameID(MATH, "abs"), "function(int)->(int)",
+				args -> returns(abs((RValue.Int) args[0])));
+		intrinsics.register(new NameID(MATH, "max"), "function(int,int)->(int)",
+				args -> returns(lessThan(args[0], args[1]) ? args[1] : args[0]));
+		intrinsics.register(new NameID(MATH, "min"), "function(int,int)->(int)",
+				args -> returns(lessThan(args[1], args[0]) ? args[1] : args[0]));
+		intrinsics.register(new NameID(MATH, "pow"), "function(int,int)->(int)",
+				args -> returns(pow((RValue.Int) args[0], ((RValue.Int) args[1]).intValue())));
+		intrinsics.register(new NameID(MATH, "isqrt"), "function(int)->(int)",
+				args -> returns(isqrt((RValue.Int) args[0])));
+
+		// std::array
+		NameID indexOf = new NameID(ARRAY, "indexOf");
+		intrinsics.register(indexOf, "function(int[],int)->(int|null)",
+				args -> returns(indexOf(elements(args[0]), args[1], 0)));
+		intrinsics.register(indexOf, "function(int[],int,int)->(int|null)",
+				args -> returns(indexOf(elements(args[0]), args[1], ((RValue.Int) args[2]).intValue())));
+		intrinsics.register(new NameID(ARRAY, "lastIndexOf"), "function(int[],int)->(int|null)",
+				args -> returns(lastIndexOf(elements(args[0]), args[1])));
+		intrinsics.register(new NameID(ARRAY, "replace"), "function(int[],int,int)->(int[])",
+				args -> returns(replace(elements(args[0]), args[1], args[2])));
+		intrinsics.register(new NameID(ARRAY, "slice"), "function(int[],int,int)->(int[])",
+				args -> returns(semantics.Array(Arrays.copyOfRange(elements(args[0]),
+						((RValue.Int) args[1]).intValue(), ((RValue.Int) args[2]).intValue()))));
+		intrinsics.register(new NameID(ARRAY, "resize"), "function(int[],int,int)->(int[])",
+				args -> returns(resize(elements(args[0]), ((RValue.Int) args[1]).intValue(), args[2])));
+		intrinsics.register(new NameID(ARRAY, "copy"), "function(int[],int,int[],int,int)->(int[])",
+				args -> returns(copy(elements(args[0]), ((RValue.Int) args[1]).intValue(), elements(args[2]),
+						((RValue.Int) args[3]).intValue(), ((RValue.Int) args[4]).intValue())));
+		NameID append = new NameID(ARRAY, "append");
+		for(String element : new String[] {"int", "bool"}) {
+			intrinsics.register(append, "function(" + element + "[]," + element + "[])->(" + element + "[])",
+					args -> returns(append(elements(args[0]), elements(args[1]))));
+			intrinsics.register(append, "function(" + element + "[]," + element + ")->(" + element + "[])",
+					args -> returns(append(elements(args[0]), args[1])));
+			intrinsics.register(append, "function(" + element + "," + element + "[])->(" + element + "[])",
+					args -> returns(append(new RValue[] {args[0]}, elements(args[1]))));
+		}
+
+		// std::io, which are native methods
+		NameID print = new NameID(IO, "print");
+		NameID println = new NameID(IO, "println");
+		intrinsics.register(print, "method(int)->()", args -> {
+			out.print(args[0]);
+			return NO_RETURNS;
+		});
+		intrinsics.register(println, "method(int)->()", args -> {
+			out.println(args[0]);
+			return NO_RETURNS;
+		});
+		intrinsics.register(print, "method(ascii::string)->()", args -> {
+			out.print(toString(elements(args[0])));
+			return NO_RETURNS;
+		});
+		intrinsics.register(println, "method(ascii::string)->()", args -> {
+			out.println(toString(elements(args[0])));
+			return NO_RETURNS;
+		});
+	}
+
+	private static RValue[] returns(RValue value) {
+		return new RValue[] {value};
+	}
+
+	private static RValue[] elements(RValue array) {
+		return ((RValue.Array) array).getElements();
+	}
+
+	private static boolean lessThan(RValue lhs, RValue rhs) {
+		return ((RValue.Int) lhs).lessThan((RValue.Int) rhs) == RValue.True;
+	}
+
+	private static RValue.Int abs(RValue.Int x) {
+		return lessThan(x, InternedValues.Int(BigInteger.ZERO)) ? x.negate() : x;
+	}
+
+	private static RValue.Int pow(RValue.Int base, int exponent) {
+		RValue.Int result = InternedValues.Int(BigInteger.ONE);
+		for(int i=0; i < exponent; i++) {
+			result = result.multiply(base);
+		}
+		return result;
+	}
+
+	/**
+	 * The largest integer whose square is at most x, found by Newton's method.
+	 * @param x A non-negative integer
+	 * @return The integer square root of x
+	 */
+	private static RValue.Int isqrt(RValue.Int x) {
+		BigInteger value = new BigInteger(x.toString());
+		if(value.signum() <= 0) {
+			return x;
+		}
+		BigInteger root = BigInteger.ONE.shiftLeft(value.bitLength() / 2 + 1);
+		while(true) {
+			BigInteger next = root.add(value.divide(root)).shiftRight(1);
+			if(next.compareTo(root) >= 0) {
+				return InternedValues.Int(root);
+			}
+			root = next;
+		}
+	}
+
+	private static RValue indexOf(RValue[] items, RValue item, int start) {
+		for(int i=start; i < items.length; i++) {
+			if(items[i].equals(item)) {
+				return InternedValues.Int(BigInteger.valueOf(i));
+			}
+		}
+		return RValue.Null;
+	}
+
+	private static RValue lastIndexOf(RValue[] items, RValue item) {
+		for(int i=items.length - 1; i >= 0; i--) {
+			if(items[i].equals(item)) {
+				return InternedValues.Int(BigInteger.valueOf(i));
+			}
+		}
+		return RValue.Null;
+	}
+
+	private static RValue.Array replace(RValue[] items, RValue old, RValue n) {
+		RValue[] result = items.clone();
+		for(int i=0; i < result.length; i++) {
+			if(result[i].equals(old)) {
+				result[i] = n;
+			}
+		}
+		return semantics.Array(result);
+	}
+
+	private static RValue.Array resize(RValue[] items, int size, RValue element) {
+		RValue[] result = new RValue[size];
+		int copied = Math.min(size, items.length);
+		System.arraycopy(items, 0, result, 0, copied);
+		Arrays.fill(result, copied, size, element);
+		return semantics.Array(result);
+	}
+
+	private static RValue.Array copy(RValue[] src, int srcStart, RValue[] dest, int destStart, int length) {
+		RValue[] result = dest.clone();
+		// Copies nothing when the length is not positive, as the body does
+		for(int i=0; i < length; i++) {
+			result[destStart + i] = src[srcStart + i];
+		}
+		return semantics.Array(result);
+	}
+
+	private static RValue.Array append(RValue[] lhs, RValue item) {
+		RValue[] result = Arrays.copyOf(lhs, lhs.length + 1);
+		result[lhs.length] = item;
+		return semantics.Array(result);
+	}
+
+	private static RValue.Array append(RValue[] lhs, RValue[] rhs) {
+		RValue[] result = Arrays.copyOf(lhs, lhs.length + rhs.length);
+		System.arraycopy(rhs, 0, result, lhs.length, rhs.length);
+		return semantics.Array(result);
+	}
+
+	private static String toString(RValue[] chars) {
+		StringBuilder str = new StringBuilder(chars.length);
+		for(RValue c : chars) {
+			str.append((char) ((RValue.Int) c).intValue());
+		}
+		return str.toString();
+	}
+}
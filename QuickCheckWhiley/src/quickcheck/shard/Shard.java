@@ -0,0 +1,82 @@
+package quickcheck.shard;
+
+/**
+ * A part of a test campaign which is split between multiple processes,
+ * i.e. shard i of N, numbered from 0.
+ *
+ * The tests of a function are numbered in the order a single process would execute them,
+ * and shard i executes every Nth test starting from test i.
+ *
+ * @author Janice Chin
+ *
+ */
+public class Shard {
+	/** The only shard, when the tests are not split */
+	public static final Shard ALL = new Shard(0, 1);
+
+	private final int index;
+	private final int count;
+
+	public Shard(int index, int count) {
+		if(count < 1 || index < 0 || index >= count) {
+			throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+		}
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * Read a shard in the form i/N
+	 * @param spec The shard specification
+	 * @return The shard
+	 * @throws IllegalArgumentException If the specification is invalid
+	 */
+	public static Shard parse(String spec) {
+		int slash = spec.indexOf('/');
+		if(slash < 0) {
+			throw new IllegalArgumentException("Invalid shard " + spec + ", expected i/N");
+		}
+		return new Shard(Integer.parseInt(spec.substring(0, slash)), Integer.parseInt(spec.substring(slash + 1)));
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Whether the tests are split between more than one shard
+	 */
+	public boolean isPartitioned() {
+		return count > 1;
+	}
+
+	/**
+	 * Check whether a test, or a function, belongs to this shard
+	 * @param number The number of the test or function
+	 * @return Whether it belongs to this shard
+	 */
+	public boolean contains(int number) {
+		return number % count == index;
+	}
+
+	/**
+	 * Get how many of the first tests belong to this shard
+	 * @param total The number of tests
+	 * @return The number of tests in [0, total) which belong to this shard
+	 */
+	public int size(int total) {
+		if(total <= index) {
+			return 0;
+		}
+		return (total - index + count - 1) / count;
+	}
+
+	@Override
+	public String toString() {
+		return index + "/" + count;
+	}
+}
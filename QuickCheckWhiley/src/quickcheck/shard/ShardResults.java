@@ -0,0 +1,216 @@
+package quickcheck.shard;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import quickcheck.util.TestStatistics;
+import quickcheck.util.TestType;
+
+/**
+ * The statistics of each function tested by a shard,
+ * which are merged with the results of the other shards
+ * to give the results of the whole test campaign.
+ *
+ * The first line of the file is the test type, the second line is the shard (i/N),
+ * then each line is a function's number (in the order the functions are tested),
+ * key, name and statistics, separated by tabs.
+ * The results record which shards they contain, so a shard can't be merged twice,
+ * and the shards which are missing can be found.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ShardResults {
+	private static final String SEPARATOR = "\t";
+	private static final String TYPE = "TYPE";
+	private static final String SHARD = "SHARD";
+
+	private TestType testType;
+	/** The number of shards the tests were split between */
+	private final int count;
+	/** The index of each shard whose results these are */
+	private final Set<Integer> shards;
+	/** The results of each function, ordered by the function's number */
+	private final Map<Integer, FunctionResult> results;
+
+	/**
+	 * @param testType The type of the tests
+	 * @param shard The shard the tests were executed by
+	 */
+	public ShardResults(TestType testType, Shard shard) {
+		this.testType = testType;
+		this.count = shard.getCount();
+		this.shards = new TreeSet<Integer>();
+		this.shards.add(shard.getIndex());
+		this.results = new TreeMap<Integer, FunctionResult>();
+	}
+
+	public TestType getTestType() {
+		return testType;
+	}
+
+	/**
+	 * Add the statistics of a function,
+	 * combining them with any statistics already recorded for the function.
+	 * @param number The number of the function, in the order the functions are tested
+	 * @param key The key identifying the function
+	 * @param name The name of the function
+	 * @param statistics The statistics of the tests executed on the function
+	 */
+	public void add(int number, String key, String name, TestStatistics statistics) {
+		FunctionResult result = results.get(number);
+		if(result == null) {
+			result = new FunctionResult(key, name);
+			results.put(number, result);
+		}
+		else if(!result.key.equals(key)) {
+			throw new IllegalArgumentException("Shards tested different functions: " + result.key + ", " + key);
+		}
+		result.statistics.add(statistics);
+	}
+
+	/**
+	 * Merge the results of another shard into these results
+	 * @param other The results of the other shard
+	 * @throws IllegalArgumentException If the shards are from different test campaigns, or a shard is merged twice
+	 */
+	public void merge(ShardResults other) {
+		if(other.testType != testType) {
+			throw new IllegalArgumentException("Shards used different test types: " + testType + ", " + other.testType);
+		}
+		if(other.count != count) {
+			throw new IllegalArgumentException("Shards were split into a different number of shards: " + count + ", " + other.count);
+		}
+		for(int index : other.shards) {
+			if(shards.contains(index)) {
+				throw new IllegalArgumentException("Shard " + new Shard(index, count) + " was merged more than once");
+			}
+		}
+		shards.addAll(other.shards);
+		for(Map.Entry<Integer, FunctionResult> entry : other.results.entrySet()) {
+			FunctionResult result = entry.getValue();
+			add(entry.getKey(), result.key, result.name, result.statistics);
+		}
+	}
+
+	/**
+	 * @return The shards whose results have not been merged
+	 */
+	public List<Shard> getMissingShards() {
+		List<Shard> missing = new ArrayList<Shard>();
+		for(int i=0; i < count; i++) {
+			if(!shards.contains(i)) {
+				missing.add(new Shard(i, count));
+			}
+		}
+		return missing;
+	}
+
+	/**
+	 * @return The results of each function, in the order they were tested
+	 */
+	public Collection<FunctionResult> getResults() {
+		return results.values();
+	}
+
+	/**
+	 * Write the results to a file
+	 * @param file The file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		try(PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			writer.println(TYPE + SEPARATOR + testType);
+			for(int index : shards) {
+				writer.println(SHARD + SEPARATOR + new Shard(index, count));
+			}
+			for(Map.Entry<Integer, FunctionResult> entry : results.entrySet()) {
+				FunctionResult result = entry.getValue();
+				TestStatistics s = result.statistics;
+				writer.println(String.join(SEPARATOR, entry.getKey().toString(), result.key, result.name,
+						Integer.toString(s.getNumTest()), Integer.toString(s.getNumPassed()),
+						Integer.toString(s.getNumFailed()), Integer.toString(s.getNumSkipped()),
+						Boolean.toString(s.hasCompletedAll()), Boolean.toString(s.hasErrors())));
+			}
+		}
+	}
+
+	/**
+	 * Read the results written by a shard
+	 * @param file The file
+	 * @return The results
+	 * @throws IOException If the file cannot be read or is invalid
+	 */
+	public static ShardResults load(File file) throws IOException {
+		try(BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line = reader.readLine();
+			if(line == null || !line.startsWith(TYPE + SEPARATOR)) {
+				throw new IOException("Not a shard results file: " + file);
+			}
+			TestType testType = TestType.valueOf(line.substring(TYPE.length() + 1));
+			line = reader.readLine();
+			if(line == null || !line.startsWith(SHARD + SEPARATOR)) {
+				throw new IOException("No shard recorded in " + file);
+			}
+			ShardResults shardResults = new ShardResults(testType, Shard.parse(line.substring(SHARD.length() + 1)));
+			while((line = reader.readLine()) != null) {
+				if(line.startsWith(SHARD + SEPARATOR)) {
+					// The results of shards merged before they were written
+					ShardResults other = new ShardResults(testType, Shard.parse(line.substring(SHARD.length() + 1)));
+					shardResults.merge(other);
+					continue;
+				}
+				String[] parts = line.split(SEPARATOR);
+				if(parts.length != 9) {
+					throw new IOException("Invalid line in " + file + ": " + line);
+				}
+				TestStatistics statistics = new TestStatistics(Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+						Integer.parseInt(parts[5]), Integer.parseInt(parts[6]),
+						Boolean.parseBoolean(parts[7]), Boolean.parseBoolean(parts[8]));
+				shardResults.add(Integer.parseInt(parts[0]), parts[1], parts[2], statistics);
+			}
+			return shardResults;
+		}
+		catch(IllegalArgumentException e) {
+			throw new IOException("Invalid shard results in " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * The statistics of a function, combined from every shard which tested it
+	 */
+	public static class FunctionResult {
+		private final String key;
+		private final String name;
+		private final TestStatistics statistics;
+
+		public FunctionResult(String key, String name) {
+			this.key = key;
+			this.name = name;
+			this.statistics = new TestStatistics();
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public TestStatistics getStatistics() {
+			return statistics;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package quickcheck.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import wybs.lang.NameResolver.ResolutionError;
+import wybs.lang.SyntacticItem;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Expr;
+import wyil.type.TypeSystem;
+
+/**
+ * The calls between the functions and methods of a module,
+ * used to test the functions called by a function before the function itself.
+ * The results verified when testing a function can then be reused
+ * when testing the functions calling it.
+ *
+ * @author Janice Chin
+ *
+ */
+public class CallGraph {
+	/** The functions and methods, in the order they are declared */
+	private final List<Decl.FunctionOrMethod> functions;
+	/** The functions and methods of the module called by each function or method */
+	private final Map<Decl.FunctionOrMethod, List<Decl.FunctionOrMethod>> callees;
+
+	/**
+	 * @param functions The functions and methods of a module
+	 * @param typeSystem Used to resolve the functions and methods called
+	 */
+	public CallGraph(List<Decl.FunctionOrMethod> functions, TypeSystem typeSystem) {
+		this.functions = functions;
+		this.callees = new IdentityHashMap<Decl.FunctionOrMethod, List<Decl.FunctionOrMethod>>();
+		Map<Decl.Callable, Decl.FunctionOrMethod> inModule = new IdentityHashMap<Decl.Callable, Decl.FunctionOrMethod>();
+		for(Decl.FunctionOrMethod function : functions) {
+			inModule.put(function, function);
+		}
+		for(Decl.FunctionOrMethod function : functions) {
+			List<Decl.FunctionOrMethod> called = new ArrayList<Decl.FunctionOrMethod>();
+			findCalls(function, function, inModule, typeSystem, called, new IdentityHashMap<SyntacticItem, Boolean>());
+			callees.put(function, called);
+		}
+	}
+
+	/**
+	 * Find the functions and methods of the module called within an item,
+	 * including the calls in its specification.
+	 * @param item The item to search
+	 * @param caller The function or method containing the item
+	 * @param inModule The functions and methods of the module
+	 * @param typeSystem Used to resolve the functions and methods called
+	 * @param called The functions and methods called, in the order they are first called
+	 * @param visited The items searched, as items can be shared
+	 */
+	private static void findCalls(SyntacticItem item, Decl.FunctionOrMethod caller, Map<Decl.Callable, Decl.FunctionOrMethod> inModule,
+			TypeSystem typeSystem, List<Decl.FunctionOrMethod> called, Map<SyntacticItem, Boolean> visited) {
+		if(item == null || visited.put(item, Boolean.TRUE) != null) {
+			return;
+		}
+		if(item instanceof Expr.Invoke) {
+			Expr.Invoke invoke = (Expr.Invoke) item;
+			try {
+				Decl.FunctionOrMethod callee = inModule.get(typeSystem.resolveExactly(invoke.getName(), invoke.getSignature(), Decl.Callable.class));
+				if(callee != null && callee != caller && !called.contains(callee)) {
+					called.add(callee);
+				}
+			}
+			catch(ResolutionError e) {
+				// Not a function of the module
+			}
+		}
+		SyntacticItem[] operands = item.getAll();
+		if(operands == null) {
+			return;
+		}
+		for(SyntacticItem operand : operands) {
+			findCalls(operand, caller, inModule, typeSystem, called, visited);
+		}
+	}
+
+	/**
+	 * Get the functions and methods of the module called by a function or method.
+	 * @param function The function or method
+	 * @return The functions and methods it calls, excluding itself
+	 */
+	public List<Decl.FunctionOrMethod> getCallees(Decl.FunctionOrMethod function) {
+		return callees.get(function);
+	}
+
+	/**
+	 * Order the functions and methods so each is after the functions and methods it calls,
+	 * except for mutually recursive functions, and otherwise in the order they are declared.
+	 * @return The functions and methods, from the bottom of the call graph up
+	 */
+	public List<Decl.FunctionOrMethod> bottomUp() {
+		List<Decl.FunctionOrMethod> order = new ArrayList<Decl.FunctionOrMethod>();
+		Map<Decl.FunctionOrMethod, Boolean> visited = new IdentityHashMap<Decl.FunctionOrMethod, Boolean>();
+		for(Decl.FunctionOrMethod function : functions) {
+			visit(function, visited, order);
+		}
+		return order;
+	}
+
+	private void visit(Decl.FunctionOrMethod function, Map<Decl.FunctionOrMethod, Boolean> visited, List<Decl.FunctionOrMethod> order) {
+		if(visited.put(function, Boolean.TRUE) != null) {
+			return;
+		}
+		for(Decl.FunctionOrMethod callee : callees.get(function)) {
+			visit(callee, visited, order);
+		}
+		order.add(function);
+	}
+}
@@ -0,0 +1,157 @@
+package quickcheck.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Helper functions for enumerating combinations of values
+ * in order of increasing size.
+ *
+ * @author Janice Chin
+ *
+ */
+public class Combinations {
+
+	/**
+	 * Get all the ways a total can be split into a number of parts,
+	 * where each part is between 0 and its limit (inclusive).
+	 * The parts are ordered from the first part varying the slowest.
+	 *
+	 * e.g. a total of 2 with the limits [2, 1]
+	 * gives [1, 1] and [2, 0], as [0, 2] exceeds the limit of the last part.
+	 *
+	 * @param total The total the parts must add up to
+	 * @param limits The maximum value of each part
+	 * @return All the ways to split the total
+	 */
+	public static List<int[]> compositions(int total, int[] limits) {
+		List<int[]> result = new ArrayList<int[]>();
+		if(total < 0) {
+			return result;
+		}
+		int[] remaining = new int[limits.length + 1];
+		for(int i=limits.length - 1; i >= 0; i--) {
+			remaining[i] = remaining[i+1] + limits[i];
+			// Avoid overflow for very large limits
+			if(remaining[i] < 0) {
+				remaining[i] = Integer.MAX_VALUE;
+			}
+		}
+		compositions(total, limits, remaining, 0, new int[limits.length], result);
+		return result;
+	}
+
+	/**
+	 * Recursively split the total over the remaining parts.
+	 * @param total The total left to split
+	 * @param limits The maximum value of each part
+	 * @param remaining The maximum total the parts from an index onwards can add up to
+	 * @param index The part to choose
+	 * @param parts The parts chosen so far
+	 * @param result The ways the total was split
+	 */
+	private static void compositions(int total, int[] limits, int[] remaining, int index, int[] parts, List<int[]> result) {
+		if(index == limits.length) {
+			if(total == 0) {
+				result.add(parts.clone());
+			}
+			return;
+		}
+		// The remaining parts must be able to add up to what is left
+		int lower = Math.max(0, total - remaining[index+1]);
+		int upper = Math.min(total, limits[index]);
+		for(int i=lower; i <= upper; i++) {
+			parts[index] = i;
+			compositions(total - i, limits, remaining, index + 1, parts, result);
+		}
+	}
+
+	/**
+	 * Add two sizes together,
+	 * limiting the result to the maximum integer value.
+	 * @param first The first size
+	 * @param second The second size
+	 * @return The sum of the sizes
+	 */
+	public static int addSize(int first, int second) {
+		long sum = (long) first + second;
+		return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+	}
+
+	/**
+	 * Multiply two sizes together,
+	 * limiting the result to the maximum integer value.
+	 * @param first The first size
+	 * @param second The second size
+	 * @return The product of the sizes
+	 */
+	public static int multiplySize(int first, int second) {
+		long product = (long) first * second;
+		return product > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) product;
+	}
+
+	/**
+	 * Get the combinations of the choices which vary one position at a time.
+	 * The first combination uses the first choice of every position,
+	 * then each position is varied in turn while the others keep their first choice.
+	 *
+	 * @param choices The values that can be chosen for each position
+	 * @return The combinations varying a single position from the first combination
+	 */
+	public static List<RValue[]> oneFactor(List<List<RValue>> choices) {
+		List<RValue[]> result = new ArrayList<RValue[]>();
+		RValue[] first = new RValue[choices.size()];
+		for(int i=0; i < first.length; i++) {
+			if(choices.get(i).isEmpty()) {
+				return result;
+			}
+			first[i] = choices.get(i).get(0);
+		}
+		result.add(first);
+		for(int i=0; i < first.length; i++) {
+			List<RValue> choice = choices.get(i);
+			for(int j=1; j < choice.size(); j++) {
+				RValue[] values = first.clone();
+				values[i] = choice.get(j);
+				result.add(values);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the cartesian product of the choices for each position.
+	 * The last position varies the fastest.
+	 *
+	 * @param choices The values that can be chosen for each position
+	 * @return All the combinations of the choices
+	 */
+	public static List<RValue[]> product(List<List<RValue>> choices) {
+		List<RValue[]> result = new ArrayList<RValue[]>();
+		for(List<RValue> choice : choices) {
+			if(choice.isEmpty()) {
+				return result;
+			}
+		}
+		int[] indices = new int[choices.size()];
+		while(true) {
+			RValue[] values = new RValue[indices.length];
+			for(int i=0; i < indices.length; i++) {
+				values[i] = choices.get(i).get(indices[i]);
+			}
+			result.add(values);
+			// Move onto the next combination, backwards
+			int i = indices.length - 1;
+			while(i >= 0 && indices[i] + 1 >= choices.get(i).size()) {
+				indices[i] = 0;
+				i--;
+			}
+			if(i < 0) {
+				return result;
+			}
+			indices[i]++;
+		}
+	}
+}
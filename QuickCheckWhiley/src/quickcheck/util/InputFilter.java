@@ -0,0 +1,240 @@
+package quickcheck.util;
+
+import quickcheck.RunTest.Result;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.type.TypeSystem;
+
+/**
+ * Records the inputs tested on a function, so an input which is generated again
+ * (e.g. the random tests loop over the combinations when there are more tests than combinations)
+ * can be counted with the outcome of its first test, without executing it again.
+ *
+ * Only a 64 bit fingerprint of each input is kept, in an open addressing hash table,
+ * so a large number of tests uses little memory.
+ * The fingerprint is computed from the structure of the values (see {@link ValueTypes}),
+ * so inputs are only filtered when their values are equal exactly when their structure is equal,
+ * which excludes lambdas and references.
+ * The fingerprints can be saved with the progress of the tests, so resumed tests
+ * still count the inputs tested before they were stopped.
+ *
+ * @author Janice Chin
+ *
+ */
+public class InputFilter {
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	/** The fingerprint of an empty slot */
+	private static final long EMPTY = 0;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final Result[] OUTCOMES = {Result.PASSED, Result.FAILED, Result.SKIPPED};
+
+	/** Whether the inputs are filtered */
+	private final boolean enabled;
+	/** The types of the parameters, which name the fields of the records */
+	private Type[] types;
+	private TypeSystem typeSystem;
+	/** The fingerprints of the inputs tested */
+	private long[] fingerprints;
+	/** The outcome of each input tested, as the index of the outcome */
+	private byte[] outcomes;
+	private int size;
+
+	/**
+	 * A filter which does not filter any inputs.
+	 */
+	public InputFilter() {
+		this.enabled = false;
+	}
+
+	/**
+	 * @param parameters The parameters of the function
+	 * @param typeSystem Used to resolve the nominal types of the parameters
+	 */
+	public InputFilter(Tuple<Decl.Variable> parameters, TypeSystem typeSystem) {
+		boolean comparable = parameters.size() > 0;
+		for(int i=0; i < parameters.size() && comparable; i++) {
+			comparable = ValueTypes.isStructural(parameters.get(i).getType(), typeSystem);
+		}
+		this.enabled = comparable;
+		if(enabled) {
+			this.types = new Type[parameters.size()];
+			for(int i=0; i < parameters.size(); i++) {
+				types[i] = parameters.get(i).getType();
+			}
+			this.typeSystem = typeSystem;
+			this.fingerprints = new long[INITIAL_CAPACITY];
+			this.outcomes = new byte[INITIAL_CAPACITY];
+		}
+	}
+
+	/**
+	 * A filter holding the fingerprints saved with the progress of the tests.
+	 * @param saved The fingerprints and outcomes, as saved by {@link #save()}
+	 * @return The filter
+	 * @throws NumberFormatException If the fingerprints are invalid
+	 */
+	public static InputFilter load(String saved) {
+		InputFilter inputs = new InputFilter(true);
+		for(String entry : saved.split(" ")) {
+			if(entry.isEmpty()) {
+				continue;
+			}
+			int separator = entry.indexOf(':');
+			if(separator < 0) {
+				throw new NumberFormatException("Not a fingerprint of an input: " + entry);
+			}
+			long fingerprint = Long.parseUnsignedLong(entry.substring(0, separator), 16);
+			int outcome = Integer.parseInt(entry.substring(separator + 1));
+			if(fingerprint == EMPTY || outcome < 0 || outcome >= OUTCOMES.length) {
+				throw new NumberFormatException("Not a fingerprint of an input: " + entry);
+			}
+			inputs.put(fingerprint, OUTCOMES[outcome]);
+		}
+		return inputs;
+	}
+
+	private InputFilter(boolean enabled) {
+		this.enabled = enabled;
+		this.fingerprints = new long[INITIAL_CAPACITY];
+		this.outcomes = new byte[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return Whether the inputs are filtered
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * The 64 bit fingerprint of the structure of an input, which is never the fingerprint of an empty slot.
+	 * @param input The values of the parameters
+	 * @return The fingerprint, or the fingerprint of an empty slot if the inputs aren't filtered
+	 */
+	public long fingerprint(RValue[] input) {
+		if(!enabled) {
+			return EMPTY;
+		}
+		long hash = FNV_OFFSET;
+		for(int i=0; i < input.length; i++) {
+			hash = ValueTypes.fingerprint(input[i], types == null ? null : types[i], typeSystem, hash);
+		}
+		return hash == EMPTY ? 1 : hash;
+	}
+
+	/**
+	 * Get the outcome of an input, if it has been tested before.
+	 * @param fingerprint The fingerprint of the input
+	 * @return The outcome of the input, or null if it hasn't been tested
+	 */
+	public Result get(long fingerprint) {
+		if(!enabled || fingerprint == EMPTY) {
+			return null;
+		}
+		int slot = find(fingerprint);
+		return fingerprints[slot] == EMPTY ? null : OUTCOMES[outcomes[slot]];
+	}
+
+	/**
+	 * Record the outcome of testing an input.
+	 * @param fingerprint The fingerprint of the input
+	 * @param outcome The outcome, either passed, failed or skipped
+	 */
+	public void put(long fingerprint, Result outcome) {
+		if(!enabled || fingerprint == EMPTY) {
+			return;
+		}
+		int slot = find(fingerprint);
+		if(fingerprints[slot] == EMPTY) {
+			fingerprints[slot] = fingerprint;
+			size++;
+		}
+		outcomes[slot] = (byte) indexOf(outcome);
+		// Keep the table at most half full
+		if(size * 2 > fingerprints.length) {
+			resize();
+		}
+	}
+
+	/**
+	 * Record the outcomes of the inputs recorded by another filter,
+	 * e.g. the inputs tested before the tests were stopped.
+	 * @param other The other filter
+	 */
+	public void putAll(InputFilter other) {
+		if(!enabled || !other.enabled) {
+			return;
+		}
+		for(int i=0; i < other.fingerprints.length; i++) {
+			if(other.fingerprints[i] != EMPTY) {
+				put(other.fingerprints[i], OUTCOMES[other.outcomes[i]]);
+			}
+		}
+	}
+
+	/**
+	 * @return The fingerprints and outcomes of the inputs recorded,
+	 * as the hexadecimal fingerprint and the index of the outcome of each input, separated by spaces
+	 */
+	public String save() {
+		StringBuilder saved = new StringBuilder();
+		if(enabled) {
+			for(int i=0; i < fingerprints.length; i++) {
+				if(fingerprints[i] != EMPTY) {
+					if(saved.length() > 0) {
+						saved.append(' ');
+					}
+					saved.append(Long.toHexString(fingerprints[i])).append(':').append(outcomes[i]);
+				}
+			}
+		}
+		return saved.toString();
+	}
+
+	/**
+	 * @return The number of inputs recorded
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static int indexOf(Result outcome) {
+		for(int i=0; i < OUTCOMES.length; i++) {
+			if(OUTCOMES[i] == outcome) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Not the outcome of a test: " + outcome);
+	}
+
+	/**
+	 * Find the slot of a fingerprint, which is empty if the fingerprint isn't in the table.
+	 * @param fingerprint The fingerprint
+	 * @return The slot
+	 */
+	private int find(long fingerprint) {
+		int mask = fingerprints.length - 1;
+		int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+		while(fingerprints[slot] != EMPTY && fingerprints[slot] != fingerprint) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void resize() {
+		long[] oldFingerprints = fingerprints;
+		byte[] oldOutcomes = outcomes;
+		fingerprints = new long[oldFingerprints.length * 2];
+		outcomes = new byte[oldOutcomes.length * 2];
+		for(int i=0; i < oldFingerprints.length; i++) {
+			if(oldFingerprints[i] != EMPTY) {
+				int slot = find(oldFingerprints[i]);
+				fingerprints[slot] = oldFingerprints[i];
+				outcomes[slot] = oldOutcomes[i];
+			}
+		}
+	}
+}
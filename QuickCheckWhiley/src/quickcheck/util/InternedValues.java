@@ -0,0 +1,62 @@
+package quickcheck.util;
+
+import java.math.BigInteger;
+
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Shared instances of the primitive values generated,
+ * so generating the same value many times does not create a new value each time.
+ * Every byte and the small integers are created once, when first needed.
+ * Booleans and null are already shared by the semantics.
+ *
+ * @author Janice Chin
+ *
+ */
+public final class InternedValues {
+	/** Used for creating the values */
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/** Lower limit (inclusive) of the integers shared */
+	public static final int SMALL_INT_LOWER = -1024;
+	/** Upper limit (exclusive) of the integers shared */
+	public static final int SMALL_INT_UPPER = 1024;
+
+	private static final RValue.Int[] ints = new RValue.Int[SMALL_INT_UPPER - SMALL_INT_LOWER];
+	private static final RValue.Byte[] bytes = new RValue.Byte[256];
+
+	private InternedValues() {}
+
+	/**
+	 * Get an integer value, which is shared if the integer is small.
+	 * @param value The integer
+	 * @return The integer value
+	 */
+	public static RValue.Int Int(BigInteger value) {
+		if(value.bitLength() < Integer.SIZE) {
+			int small = value.intValue();
+			if(SMALL_INT_LOWER <= small && small < SMALL_INT_UPPER) {
+				int index = small - SMALL_INT_LOWER;
+				if(ints[index] == null) {
+					ints[index] = semantics.Int(value);
+				}
+				return ints[index];
+			}
+		}
+		return semantics.Int(value);
+	}
+
+	/**
+	 * Get a shared byte value.
+	 * @param value The byte
+	 * @return The byte value
+	 */
+	public static RValue.Byte Byte(byte value) {
+		int index = value & 0xFF;
+		if(bytes[index] == null) {
+			bytes[index] = semantics.Byte(value);
+		}
+		return bytes[index];
+	}
+}
@@ -0,0 +1,161 @@
+package quickcheck.util;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import quickcheck.QCInterpreter;
+import wyc.lang.WhileyFile.Decl;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter;
+import wyil.type.TypeSystem;
+
+/**
+ * Caches whether a value meets the invariant of a nominal type,
+ * so the invariant is not executed again for a value checked before
+ * (e.g. the same element generated for many arrays, or the same value returned by many tests).
+ *
+ * Only the invariants of types whose values are plain data are cached,
+ * as these values are immutable and compared by their structure.
+ * The cache is bounded, removing the least recently used value when it is full.
+ *
+ * @author Janice Chin
+ *
+ */
+public class InvariantCache {
+	/** The maximum number of values cached by default */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	private final TypeSystem typeSystem;
+	/** Whether the values of each nominal type can be cached */
+	private final Map<Decl.Type, Boolean> cacheable;
+	/** Whether each value met the invariant of a nominal type, from the least to the most recently used */
+	private final LinkedHashMap<Key, RValue.Bool> results;
+
+	private int hits;
+	private int misses;
+
+	public InvariantCache(TypeSystem typeSystem) {
+		this(typeSystem, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param typeSystem Used to resolve the nominal types within a type
+	 * @param capacity The maximum number of values cached
+	 */
+	public InvariantCache(TypeSystem typeSystem, final int capacity) {
+		this.typeSystem = typeSystem;
+		this.cacheable = new IdentityHashMap<Decl.Type, Boolean>();
+		this.results = new LinkedHashMap<Key, RValue.Bool>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, RValue.Bool> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Check whether a value meets the invariant of a nominal type,
+	 * using the interpreter's cache if it has one.
+	 * @param interpreter The interpreter executing the invariant
+	 * @param decl The nominal type
+	 * @param value A value of the type renamed by the nominal type
+	 * @return Whether the value meets the invariant
+	 */
+	public static RValue.Bool check(Interpreter interpreter, Decl.Type decl, RValue value) {
+		if(interpreter instanceof QCInterpreter) {
+			return ((QCInterpreter) interpreter).getInvariantCache().checkInvariant(decl, value, interpreter);
+		}
+		return value.checkInvariant(decl.getVariableDeclaration(), decl.getInvariant(), interpreter);
+	}
+
+	/**
+	 * Check whether a value meets the invariant of a nominal type,
+	 * executing the invariant only if the value hasn't been checked before.
+	 * An invariant which fails with an error is not cached.
+	 * @param decl The nominal type
+	 * @param value A value of the type renamed by the nominal type
+	 * @param interpreter The interpreter executing the invariant
+	 * @return Whether the value meets the invariant
+	 */
+	public RValue.Bool checkInvariant(Decl.Type decl, RValue value, Interpreter interpreter) {
+		if(!isCacheable(decl)) {
+			return value.checkInvariant(decl.getVariableDeclaration(), decl.getInvariant(), interpreter);
+		}
+		Key key = new Key(decl, value);
+		RValue.Bool valid = results.get(key);
+		if(valid != null) {
+			hits++;
+			return valid;
+		}
+		misses++;
+		valid = value.checkInvariant(decl.getVariableDeclaration(), decl.getInvariant(), interpreter);
+		results.put(key, valid);
+		return valid;
+	}
+
+	/**
+	 * @param decl The nominal type
+	 * @return Whether the values of the nominal type can be cached
+	 */
+	public boolean isCacheable(Decl.Type decl) {
+		Boolean canCache = cacheable.get(decl);
+		if(canCache == null) {
+			canCache = ValueTypes.isStructural(decl.getVariableDeclaration().getType(), typeSystem);
+			cacheable.put(decl, canCache);
+		}
+		return canCache;
+	}
+
+	/**
+	 * @return The number of values cached
+	 */
+	public int size() {
+		return results.size();
+	}
+
+	/**
+	 * @return The number of checks answered by the cache
+	 */
+	public int getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return The number of checks which executed the invariant and were cached
+	 */
+	public int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * A value checked against a nominal type.
+	 * The nominal types are compared by their identity.
+	 */
+	private static class Key {
+		private final Decl.Type decl;
+		private final RValue value;
+
+		public Key(Decl.Type decl, RValue value) {
+			this.decl = decl;
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(decl) + value.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return decl == other.decl && value.equals(other.value);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package quickcheck.util;
+
+/**
+ * Decides whether the return values of a function are generated
+ * instead of calling it (function optimisation), from how often
+ * the generated values met the postcondition and how much work generating them took,
+ * compared to the work calling the function took.
+ * The work is counted in steps, e.g. the statements and expressions the interpreter executed,
+ * rather than timed, so the decisions are the same each time the tests are run with the same seed.
+ *
+ * Generating stops for a function once the generated values rarely meet its postcondition,
+ * or generating takes more steps than calling the function.
+ * Generating is then tried again once every so many calls,
+ * in case the values passed to the function change.
+ *
+ * @author Janice Chin
+ *
+ */
+public class OptimisationBudget {
+	/** The number of calls generating or executing before deciding by default */
+	public static final int DEFAULT_MIN_CALLS = 8;
+	/** The fraction of calls whose generated values met the postcondition, below which generating stops by default */
+	public static final double DEFAULT_MIN_SUCCESS_RATE = 0.2;
+	/** The number of calls, after generating stopped, before it is tried again by default */
+	public static final int DEFAULT_RETRY_INTERVAL = 64;
+
+	private final int minCalls;
+	private final double minSuccessRate;
+	private final int retryInterval;
+
+	/** The number of calls the return values were generated for, and the number which met the postcondition */
+	private int generated;
+	private int succeeded;
+	/** The total steps generating the return values */
+	private long generateCost;
+	/** The number of calls executed, and the total steps executing them */
+	private int executed;
+	private long executeCost;
+	/** The number of calls since the last call generating the return values, when generating stopped */
+	private int skipped;
+
+	public OptimisationBudget() {
+		this(DEFAULT_MIN_CALLS, DEFAULT_MIN_SUCCESS_RATE, DEFAULT_RETRY_INTERVAL);
+	}
+
+	/**
+	 * @param minCalls The number of calls generating, or executing, before deciding to stop generating
+	 * @param minSuccessRate The fraction of calls whose generated values met the postcondition, below which generating stops
+	 * @param retryInterval The number of calls, after generating stopped, before it is tried again
+	 */
+	public OptimisationBudget(int minCalls, double minSuccessRate, int retryInterval) {
+		this.minCalls = minCalls;
+		this.minSuccessRate = minSuccessRate;
+		this.retryInterval = retryInterval;
+	}
+
+	/**
+	 * Decide whether to generate the return values of the next call.
+	 * @return Whether the return values should be generated, instead of executing the call
+	 */
+	public boolean shouldGenerate() {
+		if(isWorthwhile()) {
+			return true;
+		}
+		if(++skipped >= retryInterval) {
+			skipped = 0;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Check whether the generated values met the postcondition often enough,
+	 * and were cheaper than executing the calls.
+	 * @return Whether generating the return values is worthwhile
+	 */
+	public boolean isWorthwhile() {
+		if(generated < minCalls) {
+			return true;
+		}
+		if(succeeded < minSuccessRate * generated) {
+			return false;
+		}
+		if(executed < minCalls) {
+			return true;
+		}
+		return (double) generateCost / generated <= (double) executeCost / executed;
+	}
+
+	/**
+	 * Record the return values generated for a call.
+	 * @param success Whether the values generated met the postcondition
+	 * @param cost The steps generating the values
+	 */
+	public void recordGenerated(boolean success, long cost) {
+		generated++;
+		generateCost += cost;
+		if(success) {
+			succeeded++;
+		}
+	}
+
+	/**
+	 * Record a call executed.
+	 * @param cost The steps executing the call
+	 */
+	public void recordExecuted(long cost) {
+		executed++;
+		executeCost += cost;
+	}
+
+	/**
+	 * @return The number of calls the return values were generated for
+	 */
+	public int getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return The number of calls whose generated values met the postcondition
+	 */
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	/**
+	 * @return The number of calls executed
+	 */
+	public int getExecuted() {
+		return executed;
+	}
+}
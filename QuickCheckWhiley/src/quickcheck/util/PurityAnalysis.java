@@ -0,0 +1,187 @@
+package quickcheck.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import wybs.lang.NameResolver.ResolutionError;
+import wybs.lang.SyntacticItem;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Expr;
+import wyc.lang.WhileyFile.Modifier;
+import wyc.lang.WhileyFile.Stmt;
+import wyc.lang.WhileyFile.Type;
+import wyil.type.TypeSystem;
+
+/**
+ * Finds the functions, methods and properties whose calls have no effects,
+ * so calling them again with the same arguments returns the same values
+ * and the calls can be memoised.
+ *
+ * Functions and properties are always pure.
+ * A method is pure if it doesn't dereference or allocate references,
+ * print debug output, call a lambda which may be a method, or call an impure method.
+ * Native methods, and methods calling something which can't be resolved, are impure.
+ * The methods called by a method are analysed together, so recursive methods
+ * are pure unless one of them has an effect.
+ *
+ * @author Janice Chin
+ *
+ */
+public class PurityAnalysis {
+	private final TypeSystem typeSystem;
+	/** Whether each method analysed is pure */
+	private final Map<Decl.Callable, Boolean> pure;
+
+	/**
+	 * @param typeSystem Used to resolve the functions and methods called
+	 */
+	public PurityAnalysis(TypeSystem typeSystem) {
+		this.typeSystem = typeSystem;
+		this.pure = new IdentityHashMap<Decl.Callable, Boolean>();
+	}
+
+	/**
+	 * Check whether calling a function, method or property has no effects.
+	 * @param decl The function, method or property
+	 * @return Whether it is pure
+	 */
+	public boolean isPure(Decl.Callable decl) {
+		if(!(decl instanceof Decl.Method)) {
+			return true;
+		}
+		Boolean isPure = pure.get(decl);
+		if(isPure == null) {
+			analyse((Decl.Method) decl);
+			isPure = pure.get(decl);
+		}
+		return isPure;
+	}
+
+	/**
+	 * Analyse a method and the methods it calls which haven't been analysed.
+	 * Every method starts as pure, then the methods with an effect
+	 * and the methods calling them are marked as impure.
+	 * @param method The method
+	 */
+	private void analyse(Decl.Method method) {
+		Map<Decl.Method, List<Decl.Method>> callers = new IdentityHashMap<Decl.Method, List<Decl.Method>>();
+		Deque<Decl.Method> impure = new ArrayDeque<Decl.Method>();
+		Deque<Decl.Method> unvisited = new ArrayDeque<Decl.Method>();
+		callers.put(method, new ArrayList<Decl.Method>());
+		unvisited.push(method);
+		while(!unvisited.isEmpty()) {
+			Decl.Method current = unvisited.pop();
+			List<Decl.Method> called = new ArrayList<Decl.Method>();
+			boolean hasEffect = isNative(current) || hasEffect(current.getBody(), called, new IdentityHashMap<SyntacticItem, Boolean>());
+			if(hasEffect) {
+				impure.push(current);
+			}
+			for(Decl.Method callee : called) {
+				Boolean calleePure = pure.get(callee);
+				if(calleePure != null) {
+					if(!calleePure && !hasEffect) {
+						hasEffect = true;
+						impure.push(current);
+					}
+					continue;
+				}
+				List<Decl.Method> calleeCallers = callers.get(callee);
+				if(calleeCallers == null) {
+					calleeCallers = new ArrayList<Decl.Method>();
+					callers.put(callee, calleeCallers);
+					unvisited.push(callee);
+				}
+				calleeCallers.add(current);
+			}
+		}
+		for(Decl.Method analysed : callers.keySet()) {
+			pure.put(analysed, true);
+		}
+		// The callers of an impure method are impure
+		while(!impure.isEmpty()) {
+			Decl.Method current = impure.pop();
+			if(pure.put(current, false)) {
+				impure.addAll(callers.get(current));
+			}
+		}
+	}
+
+	private static boolean isNative(Decl.Method method) {
+		Tuple<Modifier> modifiers = method.getModifiers();
+		for(int i=0; i < modifiers.size(); i++) {
+			if(modifiers.get(i) instanceof Modifier.Native) {
+				return true;
+			}
+		}
+		return method.getBody() == null;
+	}
+
+	/**
+	 * Check whether an item has an effect, and find the methods it calls.
+	 * @param item The item to search
+	 * @param called The methods called
+	 * @param visited The items searched, as items can be shared
+	 * @return Whether the item has an effect, other than calling a method
+	 */
+	private boolean hasEffect(SyntacticItem item, List<Decl.Method> called, Map<SyntacticItem, Boolean> visited) {
+		if(item == null || visited.put(item, Boolean.TRUE) != null) {
+			return false;
+		}
+		if(item instanceof Expr.Dereference || item instanceof Expr.New || item instanceof Stmt.Debug) {
+			return true;
+		}
+		else if(item instanceof Expr.IndirectInvoke) {
+			if(!isFunction(((Expr.IndirectInvoke) item).getSource().getType())) {
+				return true;
+			}
+		}
+		else if(item instanceof Expr.Invoke) {
+			Expr.Invoke invoke = (Expr.Invoke) item;
+			try {
+				Decl.Callable decl = typeSystem.resolveExactly(invoke.getName(), invoke.getSignature(), Decl.Callable.class);
+				if(decl instanceof Decl.Method) {
+					called.add((Decl.Method) decl);
+				}
+			}
+			catch(ResolutionError e) {
+				return true;
+			}
+		}
+		SyntacticItem[] operands = item.getAll();
+		if(operands == null) {
+			return false;
+		}
+		for(SyntacticItem operand : operands) {
+			if(hasEffect(operand, called, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check whether the lambdas of a type are functions or properties, rather than methods.
+	 * @param type The type of a lambda
+	 * @return Whether calling the lambda is pure
+	 */
+	private boolean isFunction(Type type) {
+		if(type instanceof Type.Function || type instanceof Type.Property) {
+			return true;
+		}
+		else if(type instanceof Type.Nominal) {
+			try {
+				Decl.Type decl = typeSystem.resolveExactly(((Type.Nominal) type).getName(), Decl.Type.class);
+				return isFunction(decl.getVariableDeclaration().getType());
+			}
+			catch(ResolutionError e) {
+				return false;
+			}
+		}
+		return false;
+	}
+}
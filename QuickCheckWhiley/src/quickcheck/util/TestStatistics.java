@@ -0,0 +1,90 @@
+package quickcheck.util;
+
+/**
+ * The number of tests executed on a function and their outcomes.
+ *
+ * @author Janice Chin
+ *
+ */
+public class TestStatistics {
+	/** The number of tests that were meant to be executed */
+	private int numTest;
+	private int numPassed;
+	private int numFailed;
+	private int numSkipped;
+	/** Whether the tests stopped early as all combinations were tested */
+	private boolean completedAll;
+	/** Whether an error stopped the tests */
+	private boolean errors;
+
+	public TestStatistics() {}
+
+	public TestStatistics(int numTest, int numPassed, int numFailed, int numSkipped, boolean completedAll, boolean errors) {
+		this.numTest = numTest;
+		this.numPassed = numPassed;
+		this.numFailed = numFailed;
+		this.numSkipped = numSkipped;
+		this.completedAll = completedAll;
+		this.errors = errors;
+	}
+
+	/**
+	 * Set the outcomes of the tests
+	 * @param numTest The number of tests meant to be executed
+	 * @param numPassed The number of tests passed
+	 * @param numFailed The number of tests failed
+	 * @param numSkipped The number of tests skipped
+	 * @param completedAll Whether all combinations were tested
+	 */
+	public void set(int numTest, int numPassed, int numFailed, int numSkipped, boolean completedAll) {
+		this.numTest = numTest;
+		this.numPassed = numPassed;
+		this.numFailed = numFailed;
+		this.numSkipped = numSkipped;
+		this.completedAll = completedAll;
+	}
+
+	/**
+	 * Record an error stopping the tests
+	 */
+	public void setErrors() {
+		this.errors = true;
+	}
+
+	/**
+	 * Add the tests executed separately on the same function, e.g. by another shard.
+	 * @param other The statistics of the other tests
+	 */
+	public void add(TestStatistics other) {
+		this.numTest += other.numTest;
+		this.numPassed += other.numPassed;
+		this.numFailed += other.numFailed;
+		this.numSkipped += other.numSkipped;
+		this.completedAll |= other.completedAll;
+		this.errors |= other.errors;
+	}
+
+	public int getNumTest() {
+		return numTest;
+	}
+
+	public int getNumPassed() {
+		return numPassed;
+	}
+
+	public int getNumFailed() {
+		return numFailed;
+	}
+
+	public int getNumSkipped() {
+		return numSkipped;
+	}
+
+	public boolean hasCompletedAll() {
+		return completedAll;
+	}
+
+	public boolean hasErrors() {
+		return errors;
+	}
+}
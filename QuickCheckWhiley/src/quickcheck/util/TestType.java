@@ -8,5 +8,5 @@ package quickcheck.util;
  *
  */
 public enum TestType {
-	RANDOM, EXHAUSTIVE
+	RANDOM, EXHAUSTIVE, SIZED, BOUNDARY, COVERAGE
 }
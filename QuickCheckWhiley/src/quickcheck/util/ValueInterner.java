@@ -0,0 +1,145 @@
+package quickcheck.util;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Creates the keys of the memoised function calls,
+ * so looking up the arguments of a call does not compare their structure each time.
+ *
+ * Equal values share one canonical entry, with its structural hash computed once
+ * (hash-consing). Each value is mapped to its entry by its identity, so after a value
+ * is seen once, its entry is found without walking its arrays and records.
+ * The keys compare their entries by identity.
+ * Values are not changed once they are passed to a function,
+ * so the entry of a value stays valid.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ValueInterner {
+	/** The maximum number of values mapped by their identity by default */
+	public static final int DEFAULT_IDENTITY_CAPACITY = 100000;
+
+	/** The entry of each value, by the structure of the value */
+	private final Map<RValue, Canonical> canonical;
+	/** The entry of each value seen, by the identity of the value */
+	private final Map<RValue, Canonical> seen;
+	private final int identityCapacity;
+
+	private int identityHits;
+
+	public ValueInterner() {
+		this(DEFAULT_IDENTITY_CAPACITY);
+	}
+
+	/**
+	 * @param identityCapacity The maximum number of values mapped by their identity,
+	 * after which the values are forgotten, keeping their entries
+	 */
+	public ValueInterner(int identityCapacity) {
+		this.canonical = new HashMap<RValue, Canonical>();
+		this.seen = new IdentityHashMap<RValue, Canonical>();
+		this.identityCapacity = identityCapacity;
+	}
+
+	/**
+	 * Create the key of the arguments of a call.
+	 * @param args The arguments
+	 * @return The key, which is equal to the key of equal arguments
+	 */
+	public Key key(RValue[] args) {
+		Canonical[] values = new Canonical[args.length];
+		int hash = 1;
+		for(int i=0; i < args.length; i++) {
+			values[i] = intern(args[i]);
+			hash = 31 * hash + values[i].hash;
+		}
+		return new Key(values, hash);
+	}
+
+	/**
+	 * Get the entry shared by the values equal to a value.
+	 * @param value The value
+	 * @return The entry
+	 */
+	private Canonical intern(RValue value) {
+		Canonical entry = seen.get(value);
+		if(entry != null) {
+			identityHits++;
+			return entry;
+		}
+		entry = canonical.get(value);
+		if(entry == null) {
+			entry = new Canonical(value.hashCode());
+			canonical.put(value, entry);
+		}
+		if(seen.size() >= identityCapacity) {
+			seen.clear();
+		}
+		seen.put(value, entry);
+		return entry;
+	}
+
+	/**
+	 * @return The number of distinct values seen
+	 */
+	public int size() {
+		return canonical.size();
+	}
+
+	/**
+	 * @return The number of values whose entry was found by their identity
+	 */
+	public int getIdentityHits() {
+		return identityHits;
+	}
+
+	/**
+	 * The entry shared by equal values.
+	 */
+	private static final class Canonical {
+		private final int hash;
+
+		public Canonical(int hash) {
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * The arguments of a call, as the entries of the values.
+	 */
+	public static final class Key {
+		private final Canonical[] values;
+		private final int hash;
+
+		private Key(Canonical[] values, int hash) {
+			this.values = values;
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			if (hash != other.hash || values.length != other.values.length)
+				return false;
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != other.values[i])
+					return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package quickcheck.util;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import wybs.lang.NameResolver.ResolutionError;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.type.TypeSystem;
+
+/**
+ * Helper for finding the types whose values are plain data.
+ * The values of these types are immutable, and are equal (and printed the same)
+ * exactly when their structure is equal.
+ * Lambdas and references are excluded, as they are compared and printed by their identity.
+ *
+ * The values of these types can be fingerprinted by walking their structure,
+ * instead of printing them.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ValueTypes {
+	/** Multiplier mixing each part of a value into the fingerprint */
+	private static final long MIX_MULTIPLIER = 0x9e3779b97f4a7c15L;
+	/** Distinguishes the kinds of values in the fingerprint */
+	private static final int INT_TAG = 1;
+	private static final int BOOL_TAG = 2;
+	private static final int BYTE_TAG = 3;
+	private static final int ARRAY_TAG = 4;
+	private static final int RECORD_TAG = 5;
+	private static final int NULL_TAG = 6;
+
+	/**
+	 * Check whether the values of a type are immutable and compared by their structure.
+	 * @param type The type
+	 * @param typeSystem Used to resolve nominal types
+	 * @return Whether the values of the type are plain data
+	 */
+	public static boolean isStructural(Type type, TypeSystem typeSystem) {
+		return isStructural(type, typeSystem, Collections.newSetFromMap(new IdentityHashMap<Decl.Type, Boolean>()));
+	}
+
+	/**
+	 * @param type The type
+	 * @param typeSystem Used to resolve nominal types
+	 * @param visited The nominal types checked so far, as types can be recursive
+	 * @return Whether the values of the type are plain data
+	 */
+	private static boolean isStructural(Type type, TypeSystem typeSystem, Set<Decl.Type> visited) {
+		if(type instanceof Type.Int || type instanceof Type.Bool || type instanceof Type.Byte || type instanceof Type.Null) {
+			return true;
+		}
+		else if(type instanceof Type.Array) {
+			return isStructural(((Type.Array) type).getElement(), typeSystem, visited);
+		}
+		else if(type instanceof Type.Record) {
+			Tuple<Decl.Variable> fields = ((Type.Record) type).getFields();
+			for(int i=0; i < fields.size(); i++) {
+				if(!isStructural(fields.get(i).getType(), typeSystem, visited)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		else if(type instanceof Type.Union) {
+			Type.Union union = (Type.Union) type;
+			for(int i=0; i < union.size(); i++) {
+				if(!isStructural(union.get(i), typeSystem, visited)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		else if(type instanceof Type.Nominal) {
+			try {
+				Decl.Type decl = typeSystem.resolveExactly(((Type.Nominal) type).getName(), Decl.Type.class);
+				if(!visited.add(decl)) {
+					return true;
+				}
+				return isStructural(decl.getVariableDeclaration().getType(), typeSystem, visited);
+			}
+			catch(ResolutionError e) {
+				return false;
+			}
+		}
+		// Lambdas and references are compared by their identity
+		return false;
+	}
+
+	/**
+	 * Add the structure of a value of a plain data type to a 64 bit hash.
+	 * The arrays are walked element by element, and the records field by field.
+	 * Integers are added by their lower 32 bits and their hash,
+	 * which distinguishes every integer that fits in 32 bits.
+	 * The values don't expose the names of their fields, so the names are found from the type.
+	 * @param value The value
+	 * @param type The type of the value, or null if it isn't known
+	 * @param typeSystem Used to resolve nominal types
+	 * @param hash The hash of the values before the value
+	 * @return The hash including the value
+	 */
+	public static long fingerprint(RValue value, Type type, TypeSystem typeSystem, long hash) {
+		if(value instanceof RValue.Int) {
+			hash = mix(hash, INT_TAG);
+			hash = mix(hash, ((RValue.Int) value).intValue());
+			return mix(hash, value.hashCode());
+		}
+		else if(value instanceof RValue.Bool) {
+			return mix(mix(hash, BOOL_TAG), ((RValue.Bool) value).boolValue() ? 1 : 0);
+		}
+		else if(value instanceof RValue.Byte) {
+			return mix(mix(hash, BYTE_TAG), value.hashCode());
+		}
+		else if(value instanceof RValue.Array) {
+			RValue[] elements = ((RValue.Array) value).getElements();
+			Type.Array arrayType = (Type.Array) find(value, type, typeSystem);
+			Type element = arrayType == null ? null : arrayType.getElement();
+			hash = mix(mix(hash, ARRAY_TAG), elements.length);
+			for(RValue e : elements) {
+				hash = fingerprint(e, element, typeSystem, hash);
+			}
+			return hash;
+		}
+		else if(value instanceof RValue.Record) {
+			RValue.Record record = (RValue.Record) value;
+			Type.Record recordType = (Type.Record) find(value, type, typeSystem);
+			hash = mix(mix(hash, RECORD_TAG), record.size());
+			if(recordType == null) {
+				// Only the hash of the record is known without the names of the fields
+				return mix(hash, record.hashCode());
+			}
+			Tuple<Decl.Variable> fields = recordType.getFields();
+			for(int i=0; i < fields.size(); i++) {
+				Decl.Variable field = fields.get(i);
+				hash = mix(hash, field.getName().get().hashCode());
+				hash = fingerprint(record.read(field.getName()), field.getType(), typeSystem, hash);
+			}
+			return hash;
+		}
+		// Null is the only other plain data value
+		return mix(hash, NULL_TAG);
+	}
+
+	/**
+	 * Find the array or record type of an array or record value,
+	 * looking through nominal types and unions.
+	 * @param value An array or record value
+	 * @param type The type of the value, or null if it isn't known
+	 * @param typeSystem Used to resolve nominal types
+	 * @return The array or record type, or null if it can't be found
+	 */
+	private static Type find(RValue value, Type type, TypeSystem typeSystem) {
+		return find(value, type, typeSystem, Collections.newSetFromMap(new IdentityHashMap<Decl.Type, Boolean>()));
+	}
+
+	private static Type find(RValue value, Type type, TypeSystem typeSystem, Set<Decl.Type> visited) {
+		if(type instanceof Type.Array) {
+			return value instanceof RValue.Array ? type : null;
+		}
+		else if(type instanceof Type.Record) {
+			if(!(value instanceof RValue.Record)) {
+				return null;
+			}
+			// The record type with the same fields as the record
+			RValue.Record record = (RValue.Record) value;
+			Tuple<Decl.Variable> fields = ((Type.Record) type).getFields();
+			if(record.size() != fields.size()) {
+				return null;
+			}
+			for(int i=0; i < fields.size(); i++) {
+				if(!record.hasField(fields.get(i).getName())) {
+					return null;
+				}
+			}
+			return type;
+		}
+		else if(type instanceof Type.Union) {
+			Type.Union union = (Type.Union) type;
+			for(int i=0; i < union.size(); i++) {
+				Type found = find(value, union.get(i), typeSystem, visited);
+				if(found != null) {
+					return found;
+				}
+			}
+		}
+		else if(type instanceof Type.Nominal) {
+			try {
+				Decl.Type decl = typeSystem.resolveExactly(((Type.Nominal) type).getName(), Decl.Type.class);
+				if(visited.add(decl)) {
+					return find(value, decl.getVariableDeclaration().getType(), typeSystem, visited);
+				}
+			}
+			catch(ResolutionError e) {}
+		}
+		return null;
+	}
+
+	private static long mix(long hash, int value) {
+		hash = (hash ^ (value & 0xffffffffL)) * MIX_MULTIPLIER;
+		return hash ^ (hash >>> 29);
+	}
+}
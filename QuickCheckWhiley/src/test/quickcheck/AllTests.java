@@ -12,6 +12,21 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ 
 	GenerateRandomTest.class,
 	GenerateExhaustiveTest.class,
+	GenerateSizedTest.class,
+	GenerateBoundaryTest.class,
+	GenerateCoverageTest.class,
+	ResultsCacheTest.class,
+	BatchTest.class,
+	DaemonTest.class,
+	ShardTest.class,
+	CheckpointTest.class,
+	InputFilterTest.class,
+	InvariantCacheTest.class,
+	ValueInternerTest.class,
+	PurityAnalysisTest.class,
+	CallGraphTest.class,
+	OptimisationBudgetTest.class,
+	IntrinsicsTest.class,
 	RangeTest.class,
 	QCInterpreterTest.class
 })
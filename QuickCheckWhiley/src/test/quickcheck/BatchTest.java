@@ -0,0 +1,112 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import quickcheck.QuickCheck;
+import quickcheck.RunTest;
+import quickcheck.RunTest.Result;
+import test.utils.TestHelper;
+import wyc.command.Compile;
+import wyc.util.TestUtils;
+import wycc.util.Pair;
+
+/**
+ * Test the modules in a directory, or listed in a file,
+ * are tested together using the same project.
+ *
+ * @author Janice Chin
+ *
+ */
+public class BatchTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static String BATCH_DIR = TEST_DIR + File.separatorChar + "batch";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	@BeforeClass
+	public static void setupClass() throws IOException {
+		// Compiled from the batch directory, so the modules are named relative to it
+		String[] modules = {"batch_1", "sub" + File.separatorChar + "batch_2"};
+		for(String module : modules) {
+			Pair<Compile.Result, String> p = TestUtils.compile(new File(BATCH_DIR), false,
+					BATCH_DIR + File.separatorChar + module + ".whiley");
+			assertEquals("Test failed to compile!", Compile.Result.SUCCESS, p.first());
+		}
+	}
+
+	/**
+	 * Test all the modules in a directory and its subdirectories are found.
+	 */
+	@Test
+	public void testDirectoryModules() {
+		String[] modified = QuickCheck.prepareArguments(new String[] {BATCH_DIR});
+		assertEquals(BATCH_DIR, modified[0]);
+		assertArrayEquals(new String[] {"batch_1", "sub/batch_2"}, modified[1].split(RunTest.MODULE_SEPARATOR));
+	}
+
+	/**
+	 * Test the modules listed in a file are found,
+	 * relative to the directory of the file.
+	 */
+	@Test
+	public void testListedModules() {
+		String list = BATCH_DIR + File.separatorChar + "modules.txt";
+		String[] modified = QuickCheck.prepareArguments(new String[] {"@" + list});
+		assertEquals(new File(BATCH_DIR).getAbsolutePath(), modified[0]);
+		assertArrayEquals(new String[] {"batch_1", "sub/batch_2"}, modified[1].split(RunTest.MODULE_SEPARATOR));
+	}
+
+	/**
+	 * Test every module in a directory is tested.
+	 */
+	@Test
+	public void testDirectory() {
+		String output = runTest(new String[] {BATCH_DIR, "random", "10", "-5", "5"});
+		assertTrue(output.contains("Module: batch_1"));
+		assertTrue(output.contains("Name of the function/method: inc"));
+		assertTrue(output.contains("Module: sub/batch_2"));
+		assertTrue(output.contains("Name of the function/method: abs"));
+	}
+
+	/**
+	 * Test every module listed in a file is tested.
+	 */
+	@Test
+	public void testListFile() {
+		String list = BATCH_DIR + File.separatorChar + "modules.txt";
+		String output = runTest(new String[] {"@" + list, "exhaustive", "10", "-5", "5"});
+		assertTrue(output.contains("Name of the function/method: inc"));
+		assertTrue(output.contains("Name of the function/method: abs"));
+	}
+
+	/**
+	 * Run the tests, capturing the output
+	 * @param args The command line arguments
+	 * @return The output of the tests
+	 */
+	private String runTest(String[] args) {
+		PrintStream out = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			assertEquals(Result.PASSED, helper.createRunTest(args));
+		}
+		finally {
+			System.setOut(out);
+		}
+		return output.toString();
+	}
+}
@@ -0,0 +1,106 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.RunTest.Result;
+import quickcheck.util.CallGraph;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile.Decl;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the functions called by a function are tested before it,
+ * and their verified results are reused when testing the function.
+ *
+ * @author Janice Chin
+ *
+ */
+public class CallGraphTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/**
+	 * Test the functions are ordered after the functions they call,
+	 * including calls in their specifications and mutually recursive calls.
+	 */
+	@Test
+	public void testBottomUp() throws IOException {
+		String testName = "callgraph_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		CallGraph graph = new CallGraph(functions, interpreter.getTypeSystem());
+		assertEquals(Arrays.asList("sum"), names(graph.getCallees(functions.get(0))));
+		assertEquals(Arrays.asList(), names(graph.getCallees(functions.get(1))));
+		assertEquals(Arrays.asList("add"), names(graph.getCallees(functions.get(2))));
+		assertEquals(Arrays.asList("add", "sum", "mean", "isOdd", "isEven"), names(graph.bottomUp()));
+	}
+
+	/**
+	 * Test the verified results of a function are reused
+	 * instead of calling the function when the calls are memoised.
+	 */
+	@Test
+	public void testVerifiedResults() throws IOException {
+		String testName = "callgraph_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), true, false, 0);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod add = functions.get(1);
+		Decl.FunctionOrMethod sum = functions.get(2);
+		interpreter.addVerifiedResult(add, new RValue[] {integer(0), integer(1)}, new RValue[] {integer(1)});
+		interpreter.addVerifiedResult(add, new RValue[] {integer(1), integer(2)}, new RValue[] {integer(3)});
+		NameID name = new NameID(Trie.fromString(testName), sum.getName().get());
+		RValue array = semantics.Array(new RValue[] {integer(1), integer(2)});
+		RValue[] returns = interpreter.execute(name, sum.getType(), interpreter.new CallStack(), true, true, array);
+		assertEquals(integer(3), returns[0]);
+		assertEquals(2, interpreter.getMemoHits());
+	}
+
+	/**
+	 * Test the functions pass when they are tested from the bottom of the call graph up,
+	 * reusing the verified results of the functions called.
+	 */
+	@Test
+	public void testMemoisedRun() throws IOException {
+		String testName = "callgraph_1";
+		helper.compile(testName);
+		String[] args = new String[] {TEST_DIR + File.separatorChar + testName, "random", "50", "0", "5", "true", "false"};
+		assertEquals(Result.PASSED, helper.createRunTest(args));
+	}
+
+	private static List<String> names(List<Decl.FunctionOrMethod> functions) {
+		List<String> names = new ArrayList<String>();
+		for(Decl.FunctionOrMethod function : functions) {
+			names.add(function.getName().get());
+		}
+		return names;
+	}
+
+	private static RValue integer(int value) {
+		return semantics.Int(BigInteger.valueOf(value));
+	}
+}
@@ -0,0 +1,178 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.RunTest.Result;
+import test.utils.TestHelper;
+
+/**
+ * Test the progress of the tests is saved,
+ * and the tests continue from where they were stopped.
+ *
+ * @author Janice Chin
+ *
+ */
+public class CheckpointTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	/**
+	 * Test the functions tested before the tests were stopped
+	 * are not tested again when resuming.
+	 * @throws IOException
+	 */
+	@Test
+	public void testResumeFinished() throws IOException {
+		helper.compile("cache_2");
+		File checkpoint = createCheckpointFile();
+		String file = TEST_DIR + File.separatorChar + "cache_2";
+		String first = runTest(new String[] {file, "random", "10", "-5", "5", "--checkpoint=" + checkpoint.getPath()});
+		assertFalse(first.contains("Tested before resuming"));
+		String resumed = runTest(new String[] {file, "random", "10", "-5", "5", "--checkpoint=" + checkpoint.getPath(), "--resume"});
+		assertTrue(resumed.contains("Name of the function/method: square"));
+		assertTrue(resumed.contains("Tested before resuming"));
+		assertFalse(resumed.contains("INPUT:"));
+	}
+
+	/**
+	 * Test the exhaustive tests continue from the test they reached,
+	 * keeping the statistics of the tests before they were stopped.
+	 * @throws IOException
+	 */
+	@Test
+	public void testResumeExhaustive() throws IOException {
+		helper.compile("coverage_1");
+		File checkpoint = createCheckpointFile();
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		String[] args = {file, "exhaustive", "30", "-10", "10", "--checkpoint=" + checkpoint.getPath()};
+		String first = runTest(args);
+		int numInputs = countInputs(first);
+		// Stop the tests part way through the function
+		int cursor = 5;
+		List<String> lines = new ArrayList<String>();
+		for(String line : Files.readAllLines(checkpoint.toPath())) {
+			if(line.startsWith("FUNCTION")) {
+				String[] parts = line.split("\t");
+				// A single parameter, so the position is the number of combinations used
+				line = String.join("\t", parts[0], parts[1], "0", Integer.toString(cursor), Integer.toString(cursor),
+						Integer.toString(cursor), "0", "0", "false", "false");
+			}
+			lines.add(line);
+		}
+		Files.write(checkpoint.toPath(), lines);
+		String[] resumeArgs = {file, "exhaustive", "30", "-10", "10", "--checkpoint=" + checkpoint.getPath(), "--resume"};
+		String resumed = runTest(resumeArgs);
+		assertTrue(resumed.contains("Resuming from test " + cursor));
+		assertEquals(numInputs - cursor, countInputs(resumed));
+		String summary = first.substring(first.indexOf("Ok:"));
+		assertTrue(resumed.contains(summary.substring(0, summary.indexOf('\n'))));
+	}
+
+	/**
+	 * Test the inputs tested before the tests were stopped are saved,
+	 * so the inputs generated again after resuming are counted without executing them.
+	 * @throws IOException
+	 */
+	@Test
+	public void testResumeDuplicates() throws IOException {
+		helper.compile("coverage_1");
+		File checkpoint = createCheckpointFile();
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		String[] args = {file, "random", "10", "-5", "5", "--seed=7", "--checkpoint=" + checkpoint.getPath()};
+		String first = runTest(args);
+		assertEquals(10, countInputs(first));
+		// Stop the tests part way, keeping the inputs of every test
+		int cursor = 5;
+		List<String> lines = new ArrayList<String>();
+		boolean saved = false;
+		for(String line : Files.readAllLines(checkpoint.toPath())) {
+			String[] parts = line.split("\t");
+			if(parts[0].equals("FUNCTION")) {
+				line = String.join("\t", parts[0], parts[1], "0", Integer.toString(cursor), "-1",
+						Integer.toString(cursor), "0", "0", "false", "false");
+			}
+			saved |= parts[0].equals("INPUTS");
+			lines.add(line);
+		}
+		assertTrue(saved);
+		Files.write(checkpoint.toPath(), lines);
+		String[] resumeArgs = {file, "random", "10", "-5", "5", "--seed=7", "--checkpoint=" + checkpoint.getPath(), "--resume"};
+		String resumed = runTest(resumeArgs);
+		assertTrue(resumed.contains("Resuming from test " + cursor));
+		assertEquals(0, countInputs(resumed));
+		assertEquals(10 - cursor, resumed.split("Duplicate input, not executed again:", -1).length - 1);
+	}
+
+	/**
+	 * Test a checkpoint from tests with a different configuration is not resumed.
+	 * @throws IOException
+	 */
+	@Test
+	public void testResumeDifferentConfiguration() throws IOException {
+		helper.compile("coverage_1");
+		File checkpoint = createCheckpointFile();
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		runTest(new String[] {file, "exhaustive", "30", "-10", "10", "--checkpoint=" + checkpoint.getPath()});
+		String resumed = runTest(new String[] {file, "exhaustive", "30", "-5", "5", "--checkpoint=" + checkpoint.getPath(), "--resume"});
+		assertTrue(resumed.contains("No checkpoint of these tests to resume from"));
+		assertFalse(resumed.contains("Tested before resuming"));
+	}
+
+	/**
+	 * @return A temporary file for the checkpoint, which does not exist yet
+	 * @throws IOException
+	 */
+	private File createCheckpointFile() throws IOException {
+		File checkpoint = File.createTempFile("quickcheck", ".checkpoint");
+		checkpoint.delete();
+		checkpoint.deleteOnExit();
+		return checkpoint;
+	}
+
+	/**
+	 * @param output The output of the tests
+	 * @return The number of tests executed
+	 */
+	private int countInputs(String output) {
+		int count = 0;
+		for(String line : output.split("\\r?\\n")) {
+			if(line.startsWith("INPUT:")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Run the tests, capturing the output
+	 * @param args The command line arguments
+	 * @return The output of the tests
+	 */
+	private String runTest(String[] args) {
+		PrintStream out = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			assertEquals(Result.PASSED, helper.createRunTest(args));
+		}
+		finally {
+			System.setOut(out);
+		}
+		return output.toString();
+	}
+}
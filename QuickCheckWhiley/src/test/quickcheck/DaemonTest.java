@@ -0,0 +1,161 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.QuickCheckDaemon;
+import quickcheck.TestSession;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+
+/**
+ * Test the daemon executes each request it reads
+ * and writes the results of each function tested.
+ *
+ * @author Janice Chin
+ *
+ */
+public class DaemonTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	/**
+	 * Test the results of each request are written,
+	 * and the requests after quit are ignored.
+	 * @throws IOException
+	 */
+	@Test
+	public void testRequests() throws IOException {
+		helper.compile("cache_1");
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "cache_1";
+		String requests = file + " random 10 0 5\n"
+				+ "\n"
+				+ TEST_DIR + File.separatorChar + "coverage_1 exhaustive 10 -5 5\n"
+				+ "quit\n"
+				+ file + " random 10 0 5\n";
+		String[] lines = serve(requests);
+		assertArrayEquals(new String[] {
+				"RESULT\tcache_1\tfoo\tPASSED",
+				"RESULT\tcache_1\tsquare\tPASSED",
+				"DONE\tPASSED",
+				"RESULT\tcoverage_1\tclassify\tPASSED",
+				"DONE\tPASSED"}, lines);
+	}
+
+	/**
+	 * Test a request without a WyIL file is an error,
+	 * and the daemon continues with the next request.
+	 * @throws IOException
+	 */
+	@Test
+	public void testInvalidRequest() throws IOException {
+		helper.compile("coverage_1");
+		String requests = "--coverage\n"
+				+ TEST_DIR + File.separatorChar + "coverage_1 random 10 -5 5\n";
+		String[] lines = serve(requests);
+		assertEquals(4, lines.length);
+		assertTrue(lines[0].startsWith("ERROR\t"));
+		assertEquals("DONE\tERRORS", lines[1]);
+		assertEquals("RESULT\tcoverage_1\tclassify\tPASSED", lines[2]);
+		assertEquals("DONE\tPASSED", lines[3]);
+	}
+
+	/**
+	 * Test a request with invalid arguments or options is an error,
+	 * and the daemon continues with the next request.
+	 * @throws IOException
+	 */
+	@Test
+	public void testInvalidArguments() throws IOException {
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		String requests = "@" + TEST_DIR + File.separatorChar + "missing_list.txt random 10 -5 5\n"
+				+ file + " random 10 -5 5 --cache-downsample=abc --colour\n"
+				+ file + " random 10 -5 5\n";
+		String[] lines = serve(requests);
+		assertEquals(7, lines.length);
+		assertTrue(lines[0].startsWith("ERROR\tCould not read the list of Wyil files"));
+		assertEquals("DONE\tERRORS", lines[1]);
+		assertEquals("ERROR\tInvalid option: --cache-downsample=abc", lines[2]);
+		assertEquals("ERROR\tUnknown option: --colour", lines[3]);
+		assertEquals("DONE\tERRORS", lines[4]);
+		assertEquals("RESULT\tcoverage_1\tclassify\tPASSED", lines[5]);
+		assertEquals("DONE\tPASSED", lines[6]);
+	}
+
+	/**
+	 * Test the project and interpreter are kept between the requests,
+	 * until the Wyil files change.
+	 * @throws IOException
+	 */
+	@Test
+	public void testSession() throws IOException {
+		helper.compile("coverage_1");
+		String whileystd = System.getenv("WHILEYSTD");
+		String request = TEST_DIR + File.separatorChar + "coverage_1 random 10 -5 5\n";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		QuickCheckDaemon daemon = new QuickCheckDaemon(new PrintStream(output));
+		TestSession session = daemon.getSession();
+		daemon.serve(new BufferedReader(new StringReader(request)));
+		Build.Project project = session.getProject(whileystd, TEST_DIR);
+		QCInterpreter interpreter = session.getInterpreter(project, BigInteger.valueOf(-5), BigInteger.valueOf(5), false, false, QCInterpreter.NUM_GEN_FUNC_OPT);
+		output.reset();
+		daemon.serve(new BufferedReader(new StringReader(request)));
+		String[] lines = results(output);
+		assertArrayEquals(new String[] {"RESULT\tcoverage_1\tclassify\tPASSED", "DONE\tPASSED"}, lines);
+		assertSame(project, session.getProject(whileystd, TEST_DIR));
+		assertSame(interpreter, session.getInterpreter(project, BigInteger.valueOf(-5), BigInteger.valueOf(5), false, false, QCInterpreter.NUM_GEN_FUNC_OPT));
+		assertEquals(1, session.size());
+		// Changing a Wyil file creates a new project
+		File wyil = new File(TEST_DIR, "coverage_1.wyil");
+		assertTrue(wyil.setLastModified(wyil.lastModified() + 10000));
+		daemon.serve(new BufferedReader(new StringReader(request)));
+		assertNotSame(project, session.getProject(whileystd, TEST_DIR));
+	}
+
+	/**
+	 * Serve the requests, removing the time taken from the results
+	 * @param requests The requests, one per line
+	 * @return Each line of the results
+	 * @throws IOException
+	 */
+	private String[] serve(String requests) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		QuickCheckDaemon daemon = new QuickCheckDaemon(new PrintStream(output));
+		daemon.serve(new BufferedReader(new StringReader(requests)));
+		return results(output);
+	}
+
+	/**
+	 * Get the results written, removing the time taken,
+	 * and clear them for the next requests
+	 * @param output Where the results were written
+	 * @return Each line of the results
+	 */
+	private String[] results(ByteArrayOutputStream output) {
+		String[] lines = output.toString().split("\\r?\\n");
+		output.reset();
+		for(int i=0; i < lines.length; i++) {
+			if(lines[i].startsWith("DONE")) {
+				lines[i] = lines[i].substring(0, lines[i].lastIndexOf('\t'));
+			}
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,175 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.BoundaryGenerateTest;
+import quickcheck.generator.GenerateTest;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.util.AbstractCompilationUnit.Identifier;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyc.lang.WhileyFile.Decl.Function;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.Interpreter;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the boundary test generation
+ * for generating the boundary values before random test values.
+ *
+ * @author Janice Chin
+ *
+ */
+public class GenerateBoundaryTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+	/**
+	 * Base interpreter used for the tests that do not require reading from a test file
+	 */
+	private static Interpreter baseInterpreter;
+
+	@BeforeClass
+	public static void setupClass() throws IOException {
+		Build.Project project = helper.createProject();
+		baseInterpreter = new QCInterpreter(project, System.out);
+	}
+
+	/**
+	 * Test when the function has 1 int parameter,
+	 * the boundary values are generated first, then random values.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testFunctionIntParameter() throws IntegerRangeException {
+		Decl.Variable intParam = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(intParam);
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(-10);
+		BigInteger upper = BigInteger.valueOf(10);
+		GenerateTest testGen = new BoundaryGenerateTest(func.getParameters(), baseInterpreter, 20, lower, upper);
+		int[] expected = {0, -1, 1, -10, 9, -9, 8};
+		for(int i=0; i < expected.length; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			assertEquals(semantics.Int(BigInteger.valueOf(expected[i])), generatedParameters[0]);
+		}
+		for(int i=expected.length; i < 20; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			int value = ((RValue.Int) generatedParameters[0]).intValue();
+			assertTrue(lower.intValue() <= value && value < upper.intValue());
+		}
+	}
+
+	/**
+	 * Test at most half the tests use boundary values
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testBoundaryLimit() throws IntegerRangeException {
+		Decl.Variable intParam = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(intParam);
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(-1000);
+		BigInteger upper = BigInteger.valueOf(1000);
+		GenerateTest testGen = new BoundaryGenerateTest(func.getParameters(), baseInterpreter, 4, lower, upper);
+		assertEquals(semantics.Int(BigInteger.valueOf(0)), testGen.generateParameters()[0]);
+		assertEquals(semantics.Int(BigInteger.valueOf(-1)), testGen.generateParameters()[0]);
+		// The rest are random
+		for(int i=0; i < 2; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			int value = ((RValue.Int) generatedParameters[0]).intValue();
+			assertTrue(lower.intValue() <= value && value < upper.intValue());
+		}
+	}
+
+	/**
+	 * Test when the function has multiple int parameters,
+	 * the first boundary value of every parameter is used first
+	 * and then one parameter is varied at a time.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testFunctionMultiIntParameters() throws IntegerRangeException {
+		Decl.Variable firstInt = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Decl.Variable secondInt = new Decl.Variable(null, new Identifier("secondInt"), Type.Int);
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(firstInt, secondInt);
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(-10);
+		BigInteger upper = BigInteger.valueOf(10);
+		GenerateTest testGen = new BoundaryGenerateTest(func.getParameters(), baseInterpreter, 20, lower, upper);
+		int[][] expected = {{0, 0}, {0, -1}, {-1, 0}, {0, 1}, {-1, -1}, {1, 0}};
+		for(int i=0; i < expected.length; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(2, generatedParameters.length);
+			assertEquals(semantics.Int(BigInteger.valueOf(expected[i][0])), generatedParameters[0]);
+			assertEquals(semantics.Int(BigInteger.valueOf(expected[i][1])), generatedParameters[1]);
+		}
+	}
+
+	/**
+	 * Test the boundary values of a nominal type
+	 * use the range of its invariant.
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testNominalInt() throws IOException, IntegerRangeException {
+		String testName = "nominal_int_and";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		Interpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+
+		BigInteger lower = BigInteger.valueOf(-100);
+		BigInteger upper = BigInteger.valueOf(100);
+		GenerateTest testGen = new BoundaryGenerateTest(functions.get(0).getParameters(), interpreter, 10, lower, upper);
+		int[] expected = {1, 9, 2, 8};
+		for(int i=0; i < expected.length; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			assertEquals(semantics.Int(BigInteger.valueOf(expected[i])), generatedParameters[0]);
+		}
+	}
+
+	/**
+	 * Test the boundary values of a nominal array
+	 * start at the shortest length allowed by its invariant.
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testNominalArray() throws IOException, IntegerRangeException {
+		String testName = "nominal_array_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		Interpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+
+		BigInteger lower = BigInteger.valueOf(-5);
+		BigInteger upper = BigInteger.valueOf(5);
+		GenerateTest testGen = new BoundaryGenerateTest(functions.get(0).getParameters(), interpreter, 10, lower, upper);
+		RValue zero = semantics.Int(BigInteger.valueOf(0));
+		RValue[] generatedParameters = testGen.generateParameters();
+		assertEquals(1, generatedParameters.length);
+		assertEquals(semantics.Array(new RValue[] {zero, zero}), generatedParameters[0]);
+	}
+}
@@ -0,0 +1,216 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.coverage.Coverage;
+import quickcheck.coverage.CoverageReport;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.CoverageGuidedGenerateTest;
+import quickcheck.generator.GenerateTest;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Decl.Callable;
+import wyc.lang.WhileyFile.Type;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter.CallStack;
+
+/**
+ * Test the coverage recorded by the interpreter
+ * and the coverage-guided test generation.
+ *
+ * @author Janice Chin
+ *
+ */
+public class GenerateCoverageTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	/**
+	 * Test the coverage only increases when a new branch is executed,
+	 * and is not recorded when it is disabled.
+	 * @throws IOException
+	 */
+	@Test
+	public void testCoverageRecorded() throws IOException {
+		String testName = "coverage_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod func = functions.get(0);
+		NameID funcName = new NameID(Trie.fromString(testName), func.getName().get());
+
+		Coverage coverage = new Coverage();
+		interpreter.setCoverage(coverage);
+		execute(interpreter, funcName, func.getType(), 10);
+		int count = coverage.count();
+		assertTrue(count > 0);
+		execute(interpreter, funcName, func.getType(), 20);
+		assertEquals(count, coverage.count());
+		execute(interpreter, funcName, func.getType(), -10);
+		assertTrue(coverage.count() > count);
+		count = coverage.count();
+
+		interpreter.setCoverage(null);
+		execute(interpreter, funcName, func.getType(), 3);
+		assertEquals(count, coverage.count());
+	}
+
+	/**
+	 * Test the coverage-guided tests stop once no new coverage is found,
+	 * having executed the branches for positive and negative values.
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testCoverageGuided() throws IOException, IntegerRangeException {
+		String testName = "coverage_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod func = functions.get(0);
+		NameID funcName = new NameID(Trie.fromString(testName), func.getName().get());
+
+		// Coverage of the positive and negative branches
+		Coverage expected = new Coverage();
+		interpreter.setCoverage(expected);
+		execute(interpreter, funcName, func.getType(), 10);
+		execute(interpreter, funcName, func.getType(), -10);
+
+		BigInteger lower = BigInteger.valueOf(-100);
+		BigInteger upper = BigInteger.valueOf(100);
+		int numTests = 1000;
+		Coverage coverage = new Coverage();
+		interpreter.setCoverage(coverage);
+		GenerateTest testGen = new CoverageGuidedGenerateTest(func.getParameters(), interpreter, coverage, numTests, lower, upper);
+		int numTested = 0;
+		while(numTested < numTests && (numTested == 0 || !testGen.exceedSize())) {
+			RValue[] paramValues = testGen.generateParameters();
+			assertEquals(1, paramValues.length);
+			execute(interpreter, funcName, func.getType(), ((RValue.Int) paramValues[0]).intValue());
+			numTested++;
+		}
+		assertTrue(numTested < numTests);
+		assertTrue(coverage.count() >= expected.count());
+	}
+
+	/**
+	 * Test the statements and branches of a function are counted
+	 * and compared against the coverage recorded.
+	 * @throws IOException
+	 */
+	@Test
+	public void testCoverageReport() throws IOException {
+		String testName = "coverage_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod func = functions.get(0);
+		NameID funcName = new NameID(Trie.fromString(testName), func.getName().get());
+
+		Coverage coverage = new Coverage();
+		interpreter.setCoverage(coverage);
+		execute(interpreter, funcName, func.getType(), 10);
+		// 5 statements, 2 branches for each if and each operand of the or
+		CoverageReport report = new CoverageReport(coverage, func);
+		assertEquals(5, report.getNumStatements());
+		assertEquals(2, report.getCoveredStatements());
+		assertEquals(8, report.getNumBranches());
+		assertEquals(1, report.getCoveredBranches());
+
+		execute(interpreter, funcName, func.getType(), 0);
+		report = new CoverageReport(coverage, func);
+		assertEquals(4, report.getCoveredStatements());
+		assertEquals(5, report.getCoveredBranches());
+	}
+
+	/**
+	 * Test the coverage recorded separately can be merged.
+	 * @throws IOException
+	 */
+	@Test
+	public void testCoverageMerge() throws IOException {
+		String testName = "coverage_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod func = functions.get(0);
+		NameID funcName = new NameID(Trie.fromString(testName), func.getName().get());
+
+		Coverage both = new Coverage();
+		interpreter.setCoverage(both);
+		execute(interpreter, funcName, func.getType(), 10);
+		execute(interpreter, funcName, func.getType(), 3);
+
+		Coverage first = new Coverage();
+		interpreter.setCoverage(first);
+		execute(interpreter, funcName, func.getType(), 10);
+		// Coverage from another interpreter of the same file
+		QCInterpreter other = new QCInterpreter(helper.createProject(), System.out);
+		Coverage second = new Coverage();
+		other.setCoverage(second);
+		execute(other, funcName, func.getType(), 3);
+		first.merge(second);
+		assertEquals(both.count(), first.count());
+		assertEquals(new CoverageReport(both, func).toString(), new CoverageReport(first, func).toString());
+	}
+
+	/**
+	 * Test the coverage includes the functions called.
+	 * @throws IOException
+	 */
+	@Test
+	public void testCoverageCallee() throws IOException {
+		String testName = "function_op1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod func = functions.get(0);
+		NameID funcName = new NameID(Trie.fromString(testName), func.getName().get());
+
+		Coverage coverage = new Coverage();
+		interpreter.setCoverage(coverage);
+		execute(interpreter, funcName, func.getType(), 3);
+		List<Callable> callables = coverage.getCallables();
+		assertEquals(2, callables.size());
+		for(Callable callable : callables) {
+			CoverageReport report = new CoverageReport(coverage, (Decl.FunctionOrMethod) callable);
+			assertEquals(report.getNumStatements(), report.getCoveredStatements());
+		}
+	}
+
+	/**
+	 * Execute a function with a single integer parameter
+	 * @param interpreter The interpreter used
+	 * @param funcName The name of the function
+	 * @param type The type of the function
+	 * @param value The value of the parameter
+	 * @return The return values
+	 */
+	private RValue[] execute(QCInterpreter interpreter, NameID funcName, Type.Callable type, int value) {
+		CallStack frame = interpreter.new CallStack();
+		return interpreter.execute(funcName, type, frame, true, true, semantics.Int(BigInteger.valueOf(value)));
+	}
+}
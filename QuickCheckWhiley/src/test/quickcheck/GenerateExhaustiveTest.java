@@ -4,16 +4,26 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import quickcheck.QCInterpreter;
+import quickcheck.constraints.IntegerRange;
 import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
 import quickcheck.generator.ExhaustiveGenerateTest;
 import quickcheck.generator.GenerateTest;
+import quickcheck.generator.type.ArrayGenerator;
+import quickcheck.generator.type.BooleanGenerator;
+import quickcheck.generator.type.ByteGenerator;
+import quickcheck.generator.type.Generator;
+import quickcheck.generator.type.IntegerGenerator;
+import quickcheck.generator.type.RecordGenerator;
+import quickcheck.util.TestType;
 import test.utils.TestHelper;
 import wybs.lang.Build;
 import wybs.lang.NameID;
@@ -1503,4 +1513,112 @@ public class GenerateExhaustiveTest {
 			}
 		}		
 	}
+	
+	/**
+	 * Test the tests can start from any position,
+	 * generating the same combinations as generating every combination before it.
+	 * @throws IntegerRangeException 
+	 */
+	@Test
+	public void testSetPosition() throws IntegerRangeException {
+		Decl.Variable unionParam = new Decl.Variable(null, new Identifier("unionParam"), new Type.Union(Type.Bool, Type.Int));
+		Decl.Variable arrayParam = new Decl.Variable(null, new Identifier("boolArr"), new Type.Array(Type.Bool));
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(unionParam, arrayParam);
+		BigInteger lower = BigInteger.valueOf(-2);
+		BigInteger upper = BigInteger.valueOf(2);
+		ExhaustiveGenerateTest testGen = new ExhaustiveGenerateTest(parameters, baseInterpreter, 100, lower, upper);
+		List<List<RValue>> expected = new ArrayList<List<RValue>>();
+		while(!testGen.exceedSize()) {
+			expected.add(Arrays.asList(testGen.generateParameters()));
+		}
+		assertEquals(6 * boolCombinations.length, expected.size());
+		for(int position : new int[] {0, 1, 14, 15, 47, expected.size() - 1}) {
+			testGen = new ExhaustiveGenerateTest(parameters, baseInterpreter, 100, lower, upper);
+			testGen.setPosition(position);
+			assertEquals(position, testGen.getPosition());
+			for(int i=position; i < expected.size(); i++) {
+				assertEquals(expected.get(i), Arrays.asList(testGen.generateParameters()));
+			}
+			assertTrue(testGen.exceedSize());
+		}
+	}
+	
+	/**
+	 * Test the arrays generated for a combination
+	 * start from the shortest length in the range.
+	 * @throws IntegerRangeException 
+	 */
+	@Test
+	public void testArrayLowerLimit() throws IntegerRangeException {
+		ArrayGenerator gen = new ArrayGenerator(() -> new BooleanGenerator(TestType.EXHAUSTIVE, 10), TestType.EXHAUSTIVE, 10, 1, 2);
+		assertEquals(6, gen.size());
+		assertEquals(semantics.Array(boolCombinations[1]), gen.generate(0));
+		assertEquals(semantics.Array(boolCombinations[2]), gen.generate(1));
+		for(int i=2; i < gen.size(); i++) {
+			assertEquals(semantics.Array(boolCombinations[i + 1]), gen.generate(i));
+		}
+	}
+
+	/**
+	 * Test array generators are equal when their elements are identified by the same key
+	 * and their lengths have the same range, even if the ranges were created separately.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testArrayEquality() throws IntegerRangeException {
+		ArrayGenerator gen = new ArrayGenerator(() -> new BooleanGenerator(TestType.EXHAUSTIVE, 10), "bool", TestType.EXHAUSTIVE, 10, 0, 3);
+		ArrayGenerator same = new ArrayGenerator(() -> new BooleanGenerator(TestType.EXHAUSTIVE, 10), "bool", TestType.EXHAUSTIVE, 10, 0, 3);
+		assertEquals(gen, same);
+		assertEquals(gen.hashCode(), same.hashCode());
+		// Generating longer arrays creates more element generators, which doesn't change the generator
+		gen.generate(gen.size() - 1);
+		assertEquals(gen, same);
+		gen.joinRange(new IntegerRange(1, 3));
+		same.joinRange(new IntegerRange(1, 3));
+		assertEquals(gen, same);
+		assertEquals(gen.hashCode(), same.hashCode());
+
+		ArrayGenerator otherElements = new ArrayGenerator(() -> new BooleanGenerator(TestType.EXHAUSTIVE, 10), "nested bool", TestType.EXHAUSTIVE, 10, 1, 2);
+		assertNotEquals(gen, otherElements);
+		same.joinRange(new IntegerRange(1, 2));
+		assertNotEquals(gen, same);
+	}
+
+	/**
+	 * Test the bytes and small integers generated are shared,
+	 * and the value generated again for the same combination is shared.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testSharedValues() throws IntegerRangeException {
+		IntegerGenerator intGen = new IntegerGenerator(TestType.EXHAUSTIVE, 10, BigInteger.valueOf(-2), BigInteger.valueOf(3));
+		IntegerGenerator otherIntGen = new IntegerGenerator(TestType.EXHAUSTIVE, 10, BigInteger.ZERO, BigInteger.valueOf(3));
+		assertSame(intGen.generate(2), otherIntGen.generate(0));
+		ByteGenerator byteGen = new ByteGenerator(TestType.EXHAUSTIVE, 10);
+		assertSame(byteGen.generate(200), new ByteGenerator(TestType.EXHAUSTIVE, 10).generate(200));
+		// Large integers are not shared
+		BigInteger large = BigInteger.valueOf(1000000);
+		IntegerGenerator largeGen = new IntegerGenerator(TestType.EXHAUSTIVE, 10, large, large.add(BigInteger.TEN));
+		assertEquals(semantics.Int(large), largeGen.generate(0));
+
+		ArrayGenerator arrGen = new ArrayGenerator(() -> new BooleanGenerator(TestType.EXHAUSTIVE, 10), TestType.EXHAUSTIVE, 10, 0, 2);
+		RValue arr = arrGen.generate(4);
+		assertSame(arr, arrGen.generate(4));
+		assertEquals(semantics.Array(boolCombinations[4]), arrGen.generate(4));
+
+		List<Decl.Variable> fields = Arrays.asList(new Decl.Variable(null, new Identifier("x"), Type.Int),
+				new Decl.Variable(null, new Identifier("b"), Type.Bool));
+		List<Generator> generators = Arrays.asList(intGen, new BooleanGenerator(TestType.EXHAUSTIVE, 10));
+		RecordGenerator recordGen = new RecordGenerator(generators, fields, TestType.EXHAUSTIVE, 10);
+		RValue record = recordGen.generate(3);
+		assertSame(record, recordGen.generate(3));
+		// The field x is the same as the last record
+		Record next = (Record) recordGen.generate(2);
+		assertSame(((Record) record).read(new Identifier("x")), next.read(new Identifier("x")));
+		for(int i=0; i < recordGen.size(); i++) {
+			RValue.Field[] expectedFields = {semantics.Field(new Identifier("x"), semantics.Int(BigInteger.valueOf(i / 2 - 2))),
+					semantics.Field(new Identifier("b"), semantics.Bool(i % 2 == 0))};
+			assertEquals(semantics.Record(expectedFields), recordGen.generate(i));
+		}
+	}
 }
@@ -15,7 +15,10 @@ import quickcheck.QCInterpreter;
 import quickcheck.exception.CannotGenerateException;
 import quickcheck.exception.IntegerRangeException;
 import quickcheck.generator.GenerateTest;
+import quickcheck.generator.GeneratorFactory;
 import quickcheck.generator.RandomGenerateTest;
+import quickcheck.generator.type.Generator;
+import quickcheck.util.TestType;
 import test.utils.TestHelper;
 import wybs.lang.Build;
 import wybs.lang.NameID;
@@ -733,6 +736,37 @@ public class GenerateRandomTest {
 		}
 	}
 
+	/**
+	 * Test recursive types through a reference, and through a record nested in a record,
+	 * stop at the recursive limit.
+	 *
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testRecursive6() throws IOException, IntegerRangeException {
+		String testName = "recursive_6";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		Interpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+
+		BigInteger lower = BigInteger.valueOf(-5);
+		BigInteger upper = BigInteger.valueOf(5);
+		GenerateTest testGen = new RandomGenerateTest(functions.get(0).getParameters(), interpreter, 10, lower, upper);
+		for(int i=0; i < 10; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			assertTrue(generatedParameters[0] instanceof RValue.Null || generatedParameters[0] instanceof RValue.Reference);
+		}
+		testGen = new RandomGenerateTest(functions.get(1).getParameters(), interpreter, 10, lower, upper);
+		for(int i=0; i < 10; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			assertTrue(generatedParameters[0] instanceof RValue.Null || generatedParameters[0] instanceof RValue.Record);
+		}
+	}
+
 	/**
 	 * Test when there is only one reference generated
 	 * 
@@ -993,4 +1027,57 @@ public class GenerateRandomTest {
 			fail("Did not generate correct type for the union: " + returns[0]); 
 		}
 	}
+
+	/**
+	 * Test that identical types share the same generator when generating randomly,
+	 * and when generating exhaustively, as the generators do not keep any state.
+	 * 
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testSharedGenerators() throws IntegerRangeException {
+		Decl.Variable intOne = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Decl.Variable intTwo = new Decl.Variable(null, new Identifier("secInt"), Type.Int);
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(intOne, intTwo);
+		BigInteger lower = BigInteger.valueOf(-10);
+		BigInteger upper = BigInteger.valueOf(10);
+
+		GeneratorFactory factory = new GeneratorFactory(baseInterpreter, TestType.RANDOM, 10, lower, upper);
+		List<Generator> generators = factory.getGenerators(parameters);
+		assertSame(generators.get(0), generators.get(1));
+
+		factory = new GeneratorFactory(baseInterpreter, TestType.EXHAUSTIVE, 10, lower, upper);
+		generators = factory.getGenerators(parameters);
+		assertSame(generators.get(0), generators.get(1));
+	}
+
+	/**
+	 * Test a record with an invariant on each of its fields.
+	 * The fields have the same type but must not share a generator,
+	 * as the invariant constrains each field differently.
+	 * 
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testRecordInvariantNotShared() throws IOException, IntegerRangeException {
+		String testName = "record_invariant_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		Interpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+
+		BigInteger lower = BigInteger.valueOf(-10);
+		BigInteger upper = BigInteger.valueOf(10);
+		GenerateTest testGen = new RandomGenerateTest(functions.get(0).getParameters(), interpreter, 10, lower, upper);
+		for (int i = 0; i < 10; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			RValue.Record record = (Record) generatedParameters[0];
+			RValue.Int x = (RValue.Int) record.read(new Identifier("x"));
+			RValue.Int y = (RValue.Int) record.read(new Identifier("y"));
+			assertTrue(x.intValue() > 0);
+			assertTrue(y.intValue() < 0);
+		}
+	}
 }
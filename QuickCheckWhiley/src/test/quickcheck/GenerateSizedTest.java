@@ -0,0 +1,219 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.GenerateTest;
+import quickcheck.generator.SizedGenerateTest;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.util.AbstractCompilationUnit.Identifier;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyc.lang.WhileyFile.Decl.Function;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.Interpreter;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the sized test generation
+ * for generating all combinations of possible test values
+ * in order of increasing size.
+ *
+ * @author Janice Chin
+ *
+ */
+public class GenerateSizedTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+	/**
+	 * Base interpreter used for the tests that do not require reading from a test file
+	 */
+	private static Interpreter baseInterpreter;
+
+	@BeforeClass
+	public static void setupClass() throws IOException {
+		Build.Project project = helper.createProject();
+		baseInterpreter = new QCInterpreter(project, System.out);
+	}
+
+	/**
+	 * Test when the function has no parameters
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testFunctionNoParameters() throws IntegerRangeException {
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>();
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(-10);
+		BigInteger upper = BigInteger.valueOf(10);
+		GenerateTest testGen = new SizedGenerateTest(func.getParameters(), baseInterpreter, 10, lower, upper);
+		assertArrayEquals(new RValue[0], testGen.generateParameters());
+		assertTrue(testGen.exceedSize());
+	}
+
+	/**
+	 * Test when the function has 1 int parameter,
+	 * the smallest magnitudes are generated first.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testFunctionIntParameter() throws IntegerRangeException {
+		Decl.Variable intParam = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(intParam);
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(-2);
+		BigInteger upper = BigInteger.valueOf(4);
+		GenerateTest testGen = new SizedGenerateTest(func.getParameters(), baseInterpreter, 10, lower, upper);
+		int[] expected = {0, 1, -1, 2, -2, 3};
+		for(int i=0; i < expected.length; i++) {
+			assertFalse(testGen.exceedSize());
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			assertEquals(semantics.Int(BigInteger.valueOf(expected[i])), generatedParameters[0]);
+		}
+		assertTrue(testGen.exceedSize());
+	}
+
+	/**
+	 * Test when the function has multiple int parameters,
+	 * every parameter is varied before the size increases.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testFunctionMultiIntParameters() throws IntegerRangeException {
+		Decl.Variable firstInt = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Decl.Variable secondInt = new Decl.Variable(null, new Identifier("secondInt"), Type.Int);
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(firstInt, secondInt);
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(-2);
+		BigInteger upper = BigInteger.valueOf(3);
+		GenerateTest testGen = new SizedGenerateTest(func.getParameters(), baseInterpreter, 30, lower, upper);
+		Set<List<RValue>> generated = new HashSet<List<RValue>>();
+		int previousSize = 0;
+		while(!testGen.exceedSize()) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(2, generatedParameters.length);
+			int first = ((RValue.Int) generatedParameters[0]).intValue();
+			int second = ((RValue.Int) generatedParameters[1]).intValue();
+			int size = Math.abs(first) + Math.abs(second);
+			assertTrue(size >= previousSize);
+			previousSize = size;
+			assertTrue(generated.add(Arrays.asList(generatedParameters)));
+		}
+		assertEquals(25, generated.size());
+	}
+
+	/**
+	 * Test when the function has a integer array,
+	 * the shorter arrays with smaller elements are generated first.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testFunctionArraySingleInt() throws IntegerRangeException {
+		Decl.Variable arrayParam = new Decl.Variable(null, new Identifier("intArr"), new Type.Array(Type.Int));
+		Tuple<Decl.Variable> parameters = new Tuple<Decl.Variable>(arrayParam);
+		Function func = new Function(null, new Identifier("testF"), parameters, null, null, null, null);
+		BigInteger lower = BigInteger.valueOf(0);
+		BigInteger upper = BigInteger.valueOf(3);
+		GenerateTest testGen = new SizedGenerateTest(func.getParameters(), baseInterpreter, 40, lower, upper);
+		int[][] expected = {{}, {0}, {1}, {0, 0}, {2}, {0, 1}, {1, 0}, {0, 0, 0}};
+		for(int i=0; i < expected.length; i++) {
+			RValue[] generatedParameters = testGen.generateParameters();
+			assertEquals(1, generatedParameters.length);
+			RValue[] elements = new RValue[expected[i].length];
+			for(int j=0; j < elements.length; j++) {
+				elements[j] = semantics.Int(BigInteger.valueOf(expected[i][j]));
+			}
+			assertEquals(semantics.Array(elements), generatedParameters[0]);
+		}
+	}
+
+	/**
+	 * Test a record with an invariant,
+	 * the smallest record meeting the invariant is generated first.
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testRecordInvariant() throws IOException, IntegerRangeException {
+		String testName = "record_invariant_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		Interpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+
+		BigInteger lower = BigInteger.valueOf(-5);
+		BigInteger upper = BigInteger.valueOf(5);
+		GenerateTest testGen = new SizedGenerateTest(functions.get(0).getParameters(), interpreter, 10, lower, upper);
+		RValue.Field[] fields = new RValue.Field[2];
+		fields[0] = semantics.Field(new Identifier("x"), semantics.Int(BigInteger.valueOf(1)));
+		fields[1] = semantics.Field(new Identifier("y"), semantics.Int(BigInteger.valueOf(-1)));
+		RValue[] generatedParameters = testGen.generateParameters();
+		assertEquals(1, generatedParameters.length);
+		assertEquals(semantics.Record(fields), generatedParameters[0]);
+	}
+
+	/**
+	 * Test a recursive type,
+	 * the records that are nested the least are generated first.
+	 * @throws IOException
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testRecursiveType1() throws IOException, IntegerRangeException {
+		String testName = "recursive_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		Interpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+
+		BigInteger lower = BigInteger.valueOf(0);
+		BigInteger upper = BigInteger.valueOf(2);
+		GenerateTest testGen = new SizedGenerateTest(functions.get(0).getParameters(), interpreter, 40, lower, upper);
+
+		RValue.Field[] fields = new RValue.Field[2];
+		fields[0] = semantics.Field(new Identifier("data"), semantics.Int(BigInteger.valueOf(0)));
+		fields[1] = semantics.Field(new Identifier("n"), semantics.Null());
+		RValue.Record expectedRecordOne = semantics.Record(fields);
+		fields = new RValue.Field[2];
+		fields[0] = semantics.Field(new Identifier("data"), semantics.Int(BigInteger.valueOf(1)));
+		fields[1] = semantics.Field(new Identifier("n"), semantics.Null());
+		RValue.Record expectedRecordTwo = semantics.Record(fields);
+		fields = new RValue.Field[2];
+		fields[0] = semantics.Field(new Identifier("data"), semantics.Int(BigInteger.valueOf(0)));
+		fields[1] = semantics.Field(new Identifier("n"), expectedRecordOne);
+		RValue.Record expectedRecordThree = semantics.Record(fields);
+
+		RValue[] generatedParameters = testGen.generateParameters();
+		assertEquals(1, generatedParameters.length);
+		assertEquals(expectedRecordOne, generatedParameters[0]);
+
+		generatedParameters = testGen.generateParameters();
+		assertEquals(1, generatedParameters.length);
+		assertEquals(expectedRecordTwo, generatedParameters[0]);
+
+		generatedParameters = testGen.generateParameters();
+		assertEquals(1, generatedParameters.length);
+		assertEquals(expectedRecordThree, generatedParameters[0]);
+	}
+}
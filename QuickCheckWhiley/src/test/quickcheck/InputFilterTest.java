@@ -0,0 +1,190 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.RunTest.Result;
+import quickcheck.util.InputFilter;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.util.AbstractCompilationUnit.Identifier;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter;
+
+/**
+ * Test the inputs generated more than once for a function
+ * are counted without executing them again.
+ *
+ * @author Janice Chin
+ *
+ */
+public class InputFilterTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+	/**
+	 * Base interpreter used for the tests that do not require reading from a test file
+	 */
+	private static Interpreter baseInterpreter;
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	@BeforeClass
+	public static void setupClass() throws IOException {
+		Build.Project project = helper.createProject();
+		baseInterpreter = new QCInterpreter(project, System.out);
+	}
+
+	/**
+	 * Test the outcome of each input is recorded,
+	 * including when the table grows.
+	 */
+	@Test
+	public void testOutcomes() {
+		Decl.Variable intParam = new Decl.Variable(null, new Identifier("x"), Type.Int);
+		InputFilter inputs = new InputFilter(new Tuple<Decl.Variable>(intParam), baseInterpreter.getTypeSystem());
+		assertTrue(inputs.isEnabled());
+		Result[] outcomes = {Result.PASSED, Result.FAILED, Result.SKIPPED};
+		for(int i=0; i < 1000; i++) {
+			assertNull(inputs.get(inputs.fingerprint(intInput(i))));
+			inputs.put(inputs.fingerprint(intInput(i)), outcomes[i % outcomes.length]);
+		}
+		assertEquals(1000, inputs.size());
+		for(int i=0; i < 1000; i++) {
+			assertEquals(outcomes[i % outcomes.length], inputs.get(inputs.fingerprint(intInput(i))));
+		}
+		assertNull(inputs.get(inputs.fingerprint(intInput(1000))));
+
+		// The fingerprints are saved with the progress of the tests
+		InputFilter loaded = InputFilter.load(inputs.save());
+		assertEquals(1000, loaded.size());
+		InputFilter resumed = new InputFilter(new Tuple<Decl.Variable>(intParam), baseInterpreter.getTypeSystem());
+		resumed.putAll(loaded);
+		for(int i=0; i < 1000; i++) {
+			assertEquals(outcomes[i % outcomes.length], resumed.get(resumed.fingerprint(intInput(i))));
+		}
+	}
+
+	/**
+	 * Test the fingerprint follows the structure of the values,
+	 * including the names of the fields of the records.
+	 */
+	@Test
+	public void testStructuralFingerprint() {
+		Decl.Variable x = new Decl.Variable(null, new Identifier("x"), Type.Int);
+		Decl.Variable y = new Decl.Variable(null, new Identifier("y"), Type.Int);
+		Type.Record xRecord = new Type.Record(false, new Tuple<Decl.Variable>(x));
+		Type.Record yRecord = new Type.Record(false, new Tuple<Decl.Variable>(y));
+		Decl.Variable arrayParam = new Decl.Variable(null, new Identifier("xs"), new Type.Array(Type.Int));
+		Decl.Variable recordParam = new Decl.Variable(null, new Identifier("r"), new Type.Union(xRecord, yRecord));
+		InputFilter inputs = new InputFilter(new Tuple<Decl.Variable>(arrayParam, recordParam), baseInterpreter.getTypeSystem());
+		assertTrue(inputs.isEnabled());
+		RValue xs = semantics.Array(new RValue[] {semantics.Int(BigInteger.ONE), semantics.Int(BigInteger.valueOf(2))});
+		RValue sameXs = semantics.Array(new RValue[] {semantics.Int(BigInteger.ONE), semantics.Int(BigInteger.valueOf(2))});
+		RValue otherXs = semantics.Array(new RValue[] {semantics.Int(BigInteger.valueOf(2)), semantics.Int(BigInteger.ONE)});
+		RValue xField = semantics.Record(new RValue.Field[] {semantics.Field(new Identifier("x"), semantics.Int(BigInteger.ONE))});
+		RValue sameXField = semantics.Record(new RValue.Field[] {semantics.Field(new Identifier("x"), semantics.Int(BigInteger.ONE))});
+		RValue yField = semantics.Record(new RValue.Field[] {semantics.Field(new Identifier("y"), semantics.Int(BigInteger.ONE))});
+		long fingerprint = inputs.fingerprint(new RValue[] {xs, xField});
+		assertEquals(fingerprint, inputs.fingerprint(new RValue[] {sameXs, sameXField}));
+		assertNotEquals(fingerprint, inputs.fingerprint(new RValue[] {otherXs, xField}));
+		assertNotEquals(fingerprint, inputs.fingerprint(new RValue[] {xs, yField}));
+		// An array differs from the arrays starting with it
+		RValue longer = semantics.Array(new RValue[] {semantics.Int(BigInteger.ONE), semantics.Int(BigInteger.valueOf(2)), semantics.Int(BigInteger.ONE)});
+		assertNotEquals(fingerprint, inputs.fingerprint(new RValue[] {longer, xField}));
+	}
+
+	/**
+	 * Test the inputs are only filtered when every parameter
+	 * is printed the same exactly when the values are equal.
+	 */
+	@Test
+	public void testComparableTypes() {
+		Decl.Variable intParam = new Decl.Variable(null, new Identifier("x"), Type.Int);
+		Decl.Variable arrayParam = new Decl.Variable(null, new Identifier("xs"), new Type.Array(new Type.Union(Type.Bool, Type.Null)));
+		Decl.Variable refParam = new Decl.Variable(null, new Identifier("r"), new Type.Reference(Type.Int));
+		assertTrue(new InputFilter(new Tuple<Decl.Variable>(intParam, arrayParam), baseInterpreter.getTypeSystem()).isEnabled());
+		InputFilter inputs = new InputFilter(new Tuple<Decl.Variable>(intParam, refParam), baseInterpreter.getTypeSystem());
+		assertFalse(inputs.isEnabled());
+		long fingerprint = inputs.fingerprint(intInput(1));
+		inputs.put(fingerprint, Result.PASSED);
+		assertNull(inputs.get(fingerprint));
+		assertFalse(new InputFilter().isEnabled());
+	}
+
+	/**
+	 * Test the duplicate boundary and random inputs are counted,
+	 * but only the unique inputs are executed.
+	 * @throws IOException
+	 */
+	@Test
+	public void testDuplicateInputs() throws IOException {
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		String output = runTest(new String[] {file, "boundary", "30", "-5", "5"});
+		int numExecuted = count(output, "INPUT:");
+		int numDuplicates = count(output, "Duplicate input, not executed again:");
+		assertTrue(numDuplicates > 0);
+		// Only the 10 integers in the range can be generated
+		assertTrue(numExecuted <= 10);
+		assertTrue(output.contains("ran " + (numExecuted + numDuplicates) + " tests"));
+	}
+
+	/**
+	 * @param i An integer
+	 * @return An input of the integer
+	 */
+	private RValue[] intInput(int i) {
+		return new RValue[] {semantics.Int(BigInteger.valueOf(i))};
+	}
+
+	/**
+	 * @param output The output of the tests
+	 * @param prefix The start of the lines to count
+	 * @return The number of lines starting with the prefix
+	 */
+	private int count(String output, String prefix) {
+		int count = 0;
+		for(String line : output.split("\\r?\\n")) {
+			if(line.startsWith(prefix)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Run the tests, capturing the output
+	 * @param args The command line arguments
+	 * @return The output of the tests
+	 */
+	private String runTest(String[] args) {
+		PrintStream out = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			assertEquals(Result.PASSED, helper.createRunTest(args));
+		}
+		finally {
+			System.setOut(out);
+		}
+		return output.toString();
+	}
+}
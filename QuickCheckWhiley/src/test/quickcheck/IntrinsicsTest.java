@@ -0,0 +1,150 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.GenerateTest;
+import quickcheck.generator.RandomGenerateTest;
+import quickcheck.intrinsic.Intrinsic;
+import quickcheck.intrinsic.Intrinsics;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile;
+import wyc.lang.WhileyFile.Decl;
+import wyfs.lang.Path;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the Java implementations of the standard library
+ * return the same values as interpreting the functions.
+ *
+ * @author Janice Chin
+ *
+ */
+public class IntrinsicsTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	/**
+	 * The jar file of the standard library
+	 */
+	private final static String STANDARD_LIBRARY = "wystd-v0.2.3.jar";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/**
+	 * Test each implemented function of std::math and std::array
+	 * returns the same values as interpreting its body, for random inputs.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testStandardLibrary() throws IOException, IntegerRangeException {
+		Build.Project project = helper.createProject(STANDARD_LIBRARY);
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		QCInterpreter interpreted = new QCInterpreter(project, System.out);
+		interpreted.setIntrinsics(new Intrinsics());
+		int implemented = 0;
+		for(String module : new String[] {"std/math", "std/array"}) {
+			Path.ID id = Trie.fromString(module);
+			WhileyFile file = project.get(id, WhileyFile.BinaryContentType).read();
+			for(Decl decl : file.getDeclarations()) {
+				if(!(decl instanceof Decl.FunctionOrMethod)) {
+					continue;
+				}
+				Decl.FunctionOrMethod fun = (Decl.FunctionOrMethod) decl;
+				NameID name = new NameID(id, fun.getName().get());
+				// The implementation of the declaration is the implementation of its name and signature
+				assertSame(interpreter.getIntrinsics().get(name, fun.getType()), interpreter.getIntrinsics().get(fun));
+				if(interpreter.getIntrinsics().get(name, fun.getType()) == null) {
+					continue;
+				}
+				implemented++;
+				GenerateTest testGen = new RandomGenerateTest(fun.getParameters(), interpreter, 100,
+						BigInteger.valueOf(-3), BigInteger.valueOf(3));
+				for(int i=0; i < 100; i++) {
+					RValue[] args = testGen.generateParameters();
+					String message = name + " " + fun.getType() + " " + Arrays.toString(args);
+					RValue[] expected = execute(interpreted, name, fun, args);
+					RValue[] actual = execute(interpreter, name, fun, args);
+					if(expected == null) {
+						assertNull(message, actual);
+					}
+					else {
+						assertArrayEquals(message, expected, actual);
+					}
+				}
+			}
+		}
+		// abs, max, min, pow, isqrt, indexOf (2), lastIndexOf, replace, slice, resize, copy and append (6)
+		assertEquals(18, implemented);
+	}
+
+	/**
+	 * Test a function calling the standard library uses its Java implementation,
+	 * and a native method can be executed.
+	 */
+	@Test
+	public void testNativeMethod() throws IOException {
+		String testName = "intrinsic_1";
+		helper.compile(testName, STANDARD_LIBRARY);
+		Build.Project project = helper.createProject(STANDARD_LIBRARY);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		QCInterpreter interpreter = new QCInterpreter(project, new PrintStream(output, true));
+		int[] calls = new int[1];
+		Intrinsic abs = args -> {
+			calls[0]++;
+			return new RValue[] {((RValue.Int) args[0]).lessThan(semantics.Int(BigInteger.ZERO)) == RValue.True
+					? ((RValue.Int) args[0]).negate() : args[0]};
+		};
+		interpreter.getIntrinsics().register(new NameID(Trie.fromString("std/math"), "abs"), "function(int)->(int)", abs);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Path.ID id = Trie.fromString(testName);
+
+		Decl.FunctionOrMethod distance = functions.get(0);
+		RValue[] returns = execute(interpreter, new NameID(id, distance.getName().get()), distance,
+				semantics.Int(BigInteger.valueOf(2)), semantics.Int(BigInteger.valueOf(7)));
+		assertEquals(semantics.Int(BigInteger.valueOf(5)), returns[0]);
+		assertEquals(1, calls[0]);
+
+		Decl.FunctionOrMethod printDistance = functions.get(1);
+		execute(interpreter, new NameID(id, printDistance.getName().get()), printDistance,
+				semantics.Int(BigInteger.valueOf(4)), semantics.Int(BigInteger.valueOf(1)));
+		assertEquals("3" + System.lineSeparator(), output.toString());
+		assertEquals(2, calls[0]);
+	}
+
+	/**
+	 * Execute a function, checking its precondition
+	 * @param interpreter The interpreter
+	 * @param name The name of the function
+	 * @param fun The function
+	 * @param args The arguments
+	 * @return The return values, or null if the function failed
+	 */
+	private RValue[] execute(QCInterpreter interpreter, NameID name, Decl.FunctionOrMethod fun, RValue... args) {
+		try {
+			return interpreter.execute(name, fun.getType(), interpreter.new CallStack(), true, false, args);
+		}
+		catch(AssertionError | RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.RunTest;
+import quickcheck.util.InvariantCache;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameResolver.ResolutionError;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the values checked against the invariant of a nominal type
+ * are cached, without changing whether they are valid.
+ *
+ * @author Janice Chin
+ *
+ */
+public class InvariantCacheTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/**
+	 * Test the invariant of each value is only executed once,
+	 * and the cached results are the results of executing the invariant.
+	 * @throws ResolutionError
+	 */
+	@Test
+	public void testCachedInvariant() throws IOException, ResolutionError {
+		String testName = "nominal_2";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		Decl.Type nat = resolveParameter(interpreter, project, testName);
+		InvariantCache cache = new InvariantCache(interpreter.getTypeSystem());
+		assertTrue(cache.isCacheable(nat));
+		for(int repeat=0; repeat < 3; repeat++) {
+			for(int i=-5; i < 5; i++) {
+				RValue value = semantics.Int(BigInteger.valueOf(i));
+				RValue.Bool expected = value.checkInvariant(nat.getVariableDeclaration(), nat.getInvariant(), interpreter);
+				assertEquals(expected, cache.checkInvariant(nat, value, interpreter));
+			}
+		}
+		assertEquals(10, cache.size());
+		assertEquals(10, cache.getMisses());
+		assertEquals(20, cache.getHits());
+	}
+
+	/**
+	 * Test the least recently used value is removed when the cache is full.
+	 * @throws ResolutionError
+	 */
+	@Test
+	public void testBoundedCache() throws IOException, ResolutionError {
+		String testName = "nominal_2";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		Decl.Type nat = resolveParameter(interpreter, project, testName);
+		InvariantCache cache = new InvariantCache(interpreter.getTypeSystem(), 2);
+		RValue one = semantics.Int(BigInteger.ONE);
+		RValue two = semantics.Int(BigInteger.valueOf(2));
+		RValue three = semantics.Int(BigInteger.valueOf(3));
+		cache.checkInvariant(nat, one, interpreter);
+		cache.checkInvariant(nat, two, interpreter);
+		// Use one, so two is the least recently used
+		cache.checkInvariant(nat, one, interpreter);
+		cache.checkInvariant(nat, three, interpreter);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHits());
+		cache.checkInvariant(nat, one, interpreter);
+		assertEquals(2, cache.getHits());
+		cache.checkInvariant(nat, two, interpreter);
+		assertEquals(2, cache.getHits());
+		assertEquals(4, cache.getMisses());
+	}
+
+	/**
+	 * Test the values of a nominal type containing a lambda are not cached,
+	 * as lambdas are compared by their identity.
+	 * @throws ResolutionError
+	 */
+	@Test
+	public void testLambdaNotCached() throws IOException, ResolutionError {
+		String testName = "function_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		Decl.Type fun = resolveParameter(interpreter, project, testName);
+		assertFalse(interpreter.getInvariantCache().isCacheable(fun));
+	}
+
+	/**
+	 * Test the return values checked by the tests use the interpreter's cache.
+	 * @throws ResolutionError
+	 */
+	@Test
+	public void testReturnValuesCached() throws IOException, ResolutionError {
+		String testName = "nominal_2";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Type returnType = functions.get(0).getReturns().get(0).getType();
+		assertTrue(RunTest.checkInvariant(interpreter, returnType, semantics.Int(BigInteger.valueOf(4))));
+		assertFalse(RunTest.checkInvariant(interpreter, returnType, semantics.Int(BigInteger.ZERO)));
+		assertTrue(RunTest.checkInvariant(interpreter, returnType, semantics.Int(BigInteger.valueOf(4))));
+		InvariantCache cache = interpreter.getInvariantCache();
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHits());
+	}
+
+	/**
+	 * Resolve the nominal type of the first parameter of the first function
+	 * @param interpreter The interpreter
+	 * @param project The project containing the test file
+	 * @param testName The name of the test file
+	 * @return The nominal type of the parameter
+	 * @throws ResolutionError
+	 */
+	private Decl.Type resolveParameter(QCInterpreter interpreter, Build.Project project, String testName) throws ResolutionError {
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Type.Nominal type = (Type.Nominal) functions.get(0).getParameters().get(0).getType();
+		return interpreter.getTypeSystem().resolveExactly(type.getName(), Decl.Type.class);
+	}
+}
@@ -0,0 +1,197 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.util.OptimisationBudget;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile.Decl;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the return values of a function are only generated instead of calling it
+ * while the generated values often meet its postcondition
+ * and are cheaper than calling it.
+ *
+ * @author Janice Chin
+ *
+ */
+public class OptimisationBudgetTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/**
+	 * Test generating stops when the generated values rarely meet the postcondition,
+	 * and is tried again after the retry interval.
+	 */
+	@Test
+	public void testSuccessRate() {
+		OptimisationBudget budget = new OptimisationBudget(4, 0.5, 10);
+		for(int i=0; i < 4; i++) {
+			assertTrue(budget.shouldGenerate());
+			budget.recordGenerated(i == 0, 1);
+		}
+		assertFalse(budget.isWorthwhile());
+		for(int i=0; i < 9; i++) {
+			assertFalse(budget.shouldGenerate());
+		}
+		assertTrue(budget.shouldGenerate());
+		budget.recordGenerated(true, 1);
+		budget.recordGenerated(true, 1);
+		// 3 of 6 generated values met the postcondition
+		assertTrue(budget.isWorthwhile());
+		assertEquals(6, budget.getGenerated());
+		assertEquals(3, budget.getSucceeded());
+	}
+
+	/**
+	 * Test generating stops when calling the function takes fewer steps,
+	 * once enough calls have been executed to compare them.
+	 */
+	@Test
+	public void testExecutionCost() {
+		OptimisationBudget budget = new OptimisationBudget(4, 0.5, 10);
+		for(int i=0; i < 4; i++) {
+			budget.recordGenerated(true, 100);
+		}
+		for(int i=0; i < 3; i++) {
+			budget.recordExecuted(10);
+		}
+		assertTrue(budget.isWorthwhile());
+		budget.recordExecuted(10);
+		assertFalse(budget.isWorthwhile());
+		assertEquals(4, budget.getExecuted());
+
+		budget = new OptimisationBudget(4, 0.5, 10);
+		for(int i=0; i < 4; i++) {
+			budget.recordGenerated(true, 10);
+			budget.recordExecuted(100);
+		}
+		assertTrue(budget.isWorthwhile());
+	}
+
+	/**
+	 * Test a function whose postcondition can't be met by the values generated
+	 * is called instead, after the first calls.
+	 */
+	@Test
+	public void testOptimisedCalls() throws IOException {
+		String testName = "optimise_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), false, true, 5);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod square = functions.get(0);
+		Decl.FunctionOrMethod nine = functions.get(1);
+		NameID name = new NameID(Trie.fromString(testName), nine.getName().get());
+		for(int i=0; i < 100; i++) {
+			RValue[] returns = interpreter.execute(name, nine.getType(), interpreter.new CallStack(), true, true);
+			assertEquals(semantics.Int(BigInteger.valueOf(9)), returns[0]);
+		}
+		OptimisationBudget budget = interpreter.getOptimisationBudget(square);
+		// Generated until the minimum number of calls, then once after the retry interval
+		assertEquals(OptimisationBudget.DEFAULT_MIN_CALLS + 1, budget.getGenerated());
+		assertEquals(0, budget.getSucceeded());
+		assertEquals(100, budget.getExecuted());
+	}
+
+	/**
+	 * Test the values generated for every call meet the postcondition of the function.
+	 */
+	@Test
+	public void testGeneratedValues() throws IOException {
+		String testName = "optimise_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), false, true, 5);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod small = functions.get(2);
+		Decl.FunctionOrMethod half = functions.get(3);
+		NameID name = new NameID(Trie.fromString(testName), half.getName().get());
+		for(int i=0; i < 20; i++) {
+			RValue.Int x = semantics.Int(BigInteger.valueOf(4));
+			RValue[] returns = interpreter.execute(name, half.getType(), interpreter.new CallStack(), true, true, x);
+			RValue.Int r = (RValue.Int) returns[0];
+			assertTrue(r.intValue() >= 0 && r.intValue() <= 4);
+		}
+		OptimisationBudget budget = interpreter.getOptimisationBudget(small);
+		// Each call used the generated values, or was executed
+		assertEquals(20, budget.getSucceeded() + budget.getExecuted());
+		assertTrue(budget.getSucceeded() > 0);
+	}
+
+	/**
+	 * Test every call of a function in one test is optimised,
+	 * even after the values generated for a call didn't meet the postcondition and the function was called.
+	 */
+	@Test
+	public void testRepeatedCalls() throws IOException {
+		String testName = "optimise_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), false, true, 5);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod small = functions.get(2);
+		Decl.FunctionOrMethod eighth = functions.get(4);
+		NameID name = new NameID(Trie.fromString(testName), eighth.getName().get());
+		for(int i=0; i < 2; i++) {
+			RValue.Int x = semantics.Int(BigInteger.ZERO);
+			RValue[] returns = interpreter.execute(name, eighth.getType(), interpreter.new CallStack(), true, true, x);
+			assertEquals(semantics.Int(BigInteger.ZERO), returns[0]);
+		}
+		OptimisationBudget budget = interpreter.getOptimisationBudget(small);
+		// Each of the three calls of small by each call of eighth generated values
+		assertEquals(6, budget.getGenerated());
+		assertEquals(budget.getGenerated() - budget.getSucceeded(), budget.getExecuted());
+	}
+
+	/**
+	 * Test the same calls are generated or executed, with the same return values,
+	 * each time the calls are executed with the same seed.
+	 */
+	@Test
+	public void testSeed() throws IOException {
+		String testName = "optimise_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod small = functions.get(2);
+		Decl.FunctionOrMethod half = functions.get(3);
+		NameID name = new NameID(Trie.fromString(testName), half.getName().get());
+		List<List<RValue>> runs = new ArrayList<List<RValue>>();
+		List<OptimisationBudget> budgets = new ArrayList<OptimisationBudget>();
+		for(int run=0; run < 2; run++) {
+			QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), false, true, 5);
+			interpreter.setSeed(42);
+			List<RValue> values = new ArrayList<RValue>();
+			for(int i=0; i < 50; i++) {
+				RValue.Int x = semantics.Int(BigInteger.valueOf(i % 10));
+				values.add(interpreter.execute(name, half.getType(), interpreter.new CallStack(), true, true, x)[0]);
+			}
+			runs.add(values);
+			budgets.add(interpreter.getOptimisationBudget(small));
+		}
+		assertEquals(runs.get(0), runs.get(1));
+		assertEquals(budgets.get(0).getGenerated(), budgets.get(1).getGenerated());
+		assertEquals(budgets.get(0).getSucceeded(), budgets.get(1).getSucceeded());
+		assertEquals(budgets.get(0).getExecuted(), budgets.get(1).getExecuted());
+	}
+}
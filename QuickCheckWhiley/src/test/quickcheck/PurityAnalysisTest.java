@@ -0,0 +1,132 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.util.PurityAnalysis;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile.Decl;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the methods without effects are found,
+ * so only their calls are memoised.
+ *
+ * @author Janice Chin
+ *
+ */
+public class PurityAnalysisTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/**
+	 * Test each method is pure exactly when it and the methods it calls have no effects.
+	 */
+	@Test
+	public void testPurity() throws IOException {
+		String testName = "purity_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		Map<String, Decl.FunctionOrMethod> functions = getFunctionsAndMethods(testName, project);
+		PurityAnalysis purity = new PurityAnalysis(interpreter.getTypeSystem());
+		// Pure
+		assertTrue(purity.isPure(functions.get("double")));
+		assertTrue(purity.isPure(functions.get("quadruple")));
+		assertTrue(purity.isPure(functions.get("countDown")));
+		assertTrue(purity.isPure(functions.get("applies")));
+		assertTrue(purity.isPure(functions.get("square")));
+		// Impure
+		assertFalse(purity.isPure(functions.get("read")));
+		assertFalse(purity.isPure(functions.get("increment")));
+		assertFalse(purity.isPure(functions.get("allocate")));
+		assertFalse(purity.isPure(functions.get("callsImpure")));
+		assertFalse(purity.isPure(functions.get("appliesMethod")));
+		assertFalse(purity.isPure(functions.get("prints")));
+		assertFalse(purity.isPure(functions.get("counter")));
+	}
+
+	/**
+	 * Test a method calling another method is pure
+	 * only once the method it calls is known to be pure.
+	 */
+	@Test
+	public void testCalledMethod() throws IOException {
+		String testName = "purity_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		Map<String, Decl.FunctionOrMethod> functions = getFunctionsAndMethods(testName, project);
+		PurityAnalysis purity = new PurityAnalysis(interpreter.getTypeSystem());
+		// The called methods are analysed first
+		assertFalse(purity.isPure(functions.get("increment")));
+		assertTrue(purity.isPure(functions.get("double")));
+		assertFalse(purity.isPure(functions.get("callsImpure")));
+		assertTrue(purity.isPure(functions.get("quadruple")));
+	}
+
+	/**
+	 * Test the calls of pure methods are memoised
+	 * without memoising the calls of impure methods.
+	 */
+	@Test
+	public void testMemoisedMethods() throws IOException {
+		String testName = "purity_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), true, false, 0);
+		Map<String, Decl.FunctionOrMethod> functions = getFunctionsAndMethods(testName, project);
+		for(int i=0; i < 2; i++) {
+			assertEquals(semantics.Int(BigInteger.valueOf(12)), execute(interpreter, testName, functions.get("quadruple"), semantics.Int(BigInteger.valueOf(3))));
+			// Each increment of the same reference is executed
+			assertEquals(semantics.Int(BigInteger.valueOf(3)), execute(interpreter, testName, functions.get("counter"), semantics.Int(BigInteger.valueOf(3))));
+		}
+	}
+
+	/**
+	 * Execute a function or method
+	 * @param interpreter The interpreter
+	 * @param testName The name of the test file
+	 * @param fun The function or method
+	 * @param args The arguments
+	 * @return The first return value
+	 */
+	private RValue execute(QCInterpreter interpreter, String testName, Decl.FunctionOrMethod fun, RValue... args) {
+		NameID name = new NameID(Trie.fromString(testName), fun.getName().get());
+		return interpreter.execute(name, fun.getType(), interpreter.new CallStack(), true, true, args)[0];
+	}
+
+	/**
+	 * Get the functions and methods of a test file by their names
+	 * @param testName The name of the test file
+	 * @param project The project
+	 * @return The functions and methods
+	 */
+	private Map<String, Decl.FunctionOrMethod> getFunctionsAndMethods(String testName, Build.Project project) {
+		Map<String, Decl.FunctionOrMethod> functions = new HashMap<String, Decl.FunctionOrMethod>();
+		List<Decl.FunctionOrMethod> list = helper.getFunctionsAndMethods(testName, project);
+		for(Decl.FunctionOrMethod fun : list) {
+			functions.put(fun.getName().get(), fun);
+		}
+		return functions;
+	}
+}
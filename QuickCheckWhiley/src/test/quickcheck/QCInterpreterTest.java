@@ -1,15 +1,26 @@
 package test.quickcheck;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.math.BigInteger;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
 import quickcheck.QCInterpreter;
+import quickcheck.RunTest.Result;
+import quickcheck.exception.CallDepthException;
 import quickcheck.exception.IntegerRangeException;
+import quickcheck.frame.FrameLayout;
 import quickcheck.generator.ExhaustiveGenerateTest;
 import quickcheck.generator.GenerateTest;
 import test.utils.TestHelper;
@@ -261,4 +272,348 @@ public class QCInterpreterTest {
 			}
 		}		
 	}
+
+	/**
+	 * Test the quantifiers over integer ranges in the postconditions,
+	 * including nested ranges, empty ranges and ranges of integers which don't fit in an int.
+	 * @throws IOException
+	 */
+	@Test
+	public void testQuantifierRange() throws IOException {
+		String testName = "quantifier_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Path.ID id = Trie.fromString(testName);
+
+		Decl.FunctionOrMethod contains = functions.get(0);
+		NameID containsName = new NameID(id, contains.getName().get());
+		RValue[] containsParams = {intArray(1, 2, 3), semantics.Int(BigInteger.valueOf(2))};
+		assertEquals(RValue.True, execute(interpreter, containsName, contains, containsParams)[0]);
+		containsParams = new RValue[] {intArray(1, 2, 3), semantics.Int(BigInteger.valueOf(4))};
+		assertEquals(RValue.False, execute(interpreter, containsName, contains, containsParams)[0]);
+		containsParams = new RValue[] {intArray(), semantics.Int(BigInteger.ZERO)};
+		assertEquals(RValue.False, execute(interpreter, containsName, contains, containsParams)[0]);
+
+		Decl.FunctionOrMethod isSorted = functions.get(1);
+		NameID sortedName = new NameID(id, isSorted.getName().get());
+		assertEquals(RValue.True, execute(interpreter, sortedName, isSorted, intArray(1, 2, 2, 5))[0]);
+		assertEquals(RValue.False, execute(interpreter, sortedName, isSorted, intArray(1, 3, 2))[0]);
+
+		// The range goes past the largest int
+		Decl.FunctionOrMethod hasLarge = functions.get(2);
+		NameID largeName = new NameID(id, hasLarge.getName().get());
+		assertEquals(RValue.True, execute(interpreter, largeName, hasLarge, semantics.Int(BigInteger.valueOf(Integer.MAX_VALUE - 1)))[0]);
+		assertEquals(RValue.True, execute(interpreter, largeName, hasLarge, semantics.Int(BigInteger.valueOf(Integer.MAX_VALUE)))[0]);
+		assertEquals(RValue.False, execute(interpreter, largeName, hasLarge, semantics.Int(BigInteger.ZERO))[0]);
+		assertEquals(RValue.False, execute(interpreter, largeName, hasLarge, semantics.Int(BigInteger.ONE.shiftLeft(40)))[0]);
+	}
+
+	/**
+	 * Test a quantifier over an integer range which is false fails the postcondition.
+	 * @throws IOException
+	 */
+	@Test
+	public void testQuantifierRangeInvalid() throws IOException {
+		String testName = "quantifier_2";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod indexOf = functions.get(0);
+		NameID name = new NameID(Trie.fromString(testName), indexOf.getName().get());
+		// The last element is not checked, so the postcondition fails
+		boolean failed = false;
+		try {
+			execute(interpreter, name, indexOf, intArray(1, 2), semantics.Int(BigInteger.valueOf(2)));
+		}
+		catch(AssertionError e) {
+			failed = true;
+		}
+		assertTrue(failed);
+		assertEquals(semantics.Int(BigInteger.ZERO), execute(interpreter, name, indexOf, intArray(2, 1), semantics.Int(BigInteger.valueOf(2)))[0]);
+	}
+
+	/**
+	 * Execute a function, checking its pre and postconditions
+	 * @param interpreter The interpreter
+	 * @param name The name of the function
+	 * @param func The function
+	 * @param paramValues The arguments
+	 * @return The return values
+	 */
+	private RValue[] execute(QCInterpreter interpreter, NameID name, Decl.FunctionOrMethod func, RValue... paramValues) {
+		CallStack frame = interpreter.new CallStack();
+		Tuple<Decl.Variable> parameters = func.getParameters();
+		for(int i=0; i < parameters.size(); i++) {
+			frame.putLocal(parameters.get(i).getName(), paramValues[i]);
+		}
+		return interpreter.execute(name, func.getType(), frame, true, true, paramValues);
+	}
+
+	/**
+	 * @param values The integers
+	 * @return An array of the integers
+	 */
+	private RValue intArray(int... values) {
+		RValue[] elements = new RValue[values.length];
+		for(int i=0; i < values.length; i++) {
+			elements[i] = semantics.Int(BigInteger.valueOf(values[i]));
+		}
+		return semantics.Array(elements);
+	}
+
+	/**
+	 * Test writing the elements of arrays held by variables,
+	 * which are written in place after the first write,
+	 * does not change the arrays shared with other values.
+	 * @throws IOException
+	 */
+	@Test
+	public void testArrayWrites() throws IOException {
+		String testName = "array_update_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Path.ID id = Trie.fromString(testName);
+
+		Decl.FunctionOrMethod reverse = functions.get(0);
+		RValue input = intArray(1, 2, 3, 4);
+		RValue[] returns = execute(interpreter, new NameID(id, reverse.getName().get()), reverse, input);
+		assertEquals(intArray(4, 3, 2, 1), returns[0]);
+		assertEquals(intArray(1, 2, 3, 4), input);
+
+		Decl.FunctionOrMethod sort = functions.get(1);
+		input = intArray(5, -1, 3, 3, 0);
+		returns = execute(interpreter, new NameID(id, sort.getName().get()), sort, input);
+		assertEquals(intArray(-1, 0, 3, 3, 5), returns[0]);
+		assertEquals(intArray(5, -1, 3, 3, 0), input);
+		// Sorting the sorted array again does not change the returned array
+		RValue sorted = returns[0];
+		execute(interpreter, new NameID(id, sort.getName().get()), sort, intArray(2, 1));
+		assertEquals(intArray(-1, 0, 3, 3, 5), sorted);
+
+		Decl.FunctionOrMethod alias = functions.get(2);
+		returns = execute(interpreter, new NameID(id, alias.getName().get()), alias, intArray(0));
+		assertEquals(intArray(3, 1, 2, 1), returns[0]);
+
+		// The arrays written in place by a call are only written in place by that call
+		Decl.FunctionOrMethod count = functions.get(3);
+		for(int i=0; i < 5; i++) {
+			returns = execute(interpreter, new NameID(id, count.getName().get()), count,
+					semantics.Int(BigInteger.valueOf(5)), semantics.Int(BigInteger.valueOf(i)));
+			assertEquals(semantics.Int(BigInteger.valueOf(i * 2)), returns[0]);
+		}
+		Decl.FunctionOrMethod pass = functions.get(5);
+		returns = execute(interpreter, new NameID(id, pass.getName().get()), pass, semantics.Int(BigInteger.valueOf(3)));
+		assertEquals(intArray(1, 2, 9, 9), returns[0]);
+	}
+
+	/**
+	 * Test the local variables kept in slots are the same as those in the call stack,
+	 * for record fields written through the call stack, variables declared in different blocks
+	 * and variables captured by a lambda.
+	 * @throws IOException
+	 */
+	@Test
+	public void testSlotFrame() throws IOException {
+		String testName = "frame_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Path.ID id = Trie.fromString(testName);
+
+		Decl.FunctionOrMethod shift = functions.get(0);
+		RValue.Field[] fields = {semantics.Field(new Identifier("x"), semantics.Int(BigInteger.ONE)),
+				semantics.Field(new Identifier("y"), semantics.Int(BigInteger.TEN))};
+		RValue[] returns = execute(interpreter, new NameID(id, shift.getName().get()), shift, semantics.Record(fields), semantics.Int(BigInteger.valueOf(3)));
+		assertEquals(semantics.Int(BigInteger.valueOf(4)), ((RValue.Record) returns[0]).read(new Identifier("x")));
+
+		Decl.FunctionOrMethod shadow = functions.get(1);
+		NameID shadowName = new NameID(id, shadow.getName().get());
+		assertEquals(semantics.Int(BigInteger.valueOf(5)), execute(interpreter, shadowName, shadow, semantics.Int(BigInteger.valueOf(-5)))[0]);
+		assertEquals(semantics.Int(BigInteger.valueOf(7)), execute(interpreter, shadowName, shadow, semantics.Int(BigInteger.valueOf(7)))[0]);
+
+		Decl.FunctionOrMethod capture = functions.get(2);
+		returns = execute(interpreter, new NameID(id, capture.getName().get()), capture, semantics.Int(BigInteger.valueOf(2)));
+		assertEquals(semantics.Int(BigInteger.valueOf(3)), returns[0]);
+	}
+
+	/**
+	 * Test every variable of a function is given a slot,
+	 * where the variables with the same name share a slot.
+	 * @throws IOException
+	 */
+	@Test
+	public void testFrameLayout() throws IOException {
+		String testName = "frame_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod shadow = functions.get(1);
+		FrameLayout layout = new FrameLayout(shadow);
+		// n, r, total and k
+		assertEquals(4, layout.size());
+		assertEquals(0, layout.slot(shadow.getParameters().get(0)));
+		assertEquals(1, layout.slot(shadow.getReturns().get(0)));
+		// The variables of other functions are not given a slot
+		assertEquals(-1, layout.slot(functions.get(2).getReturns().get(0)));
+		assertEquals(-1, layout.slot(new Decl.Variable(null, new Identifier("n"), Type.Int)));
+	}
+
+	/**
+	 * Test a lambda only captures the variables it uses,
+	 * and the captured values are not changed by calling the lambda or by the enclosing function.
+	 * @throws IOException
+	 */
+	@Test
+	public void testLambdaCapture() throws IOException {
+		String testName = "lambda_capture_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Path.ID id = Trie.fromString(testName);
+
+		Decl.FunctionOrMethod adder = functions.get(0);
+		RValue[] returns = execute(interpreter, new NameID(id, adder.getName().get()), adder, semantics.Int(BigInteger.ONE), semantics.Int(BigInteger.TEN));
+		CallStack captured = ((RValue.Lambda) returns[0]).getFrame();
+		assertEquals(semantics.Int(BigInteger.ONE), captured.getLocal(new Identifier("n")));
+		assertNull(captured.getLocal(new Identifier("m")));
+		assertNull(captured.getLocal(new Identifier("unused")));
+
+		Decl.FunctionOrMethod twice = functions.get(1);
+		returns = execute(interpreter, new NameID(id, twice.getName().get()), twice, semantics.Int(BigInteger.valueOf(4)));
+		assertEquals(semantics.Int(BigInteger.valueOf(11)), returns[0]);
+
+		Decl.FunctionOrMethod captureArray = functions.get(2);
+		returns = execute(interpreter, new NameID(id, captureArray.getName().get()), captureArray, semantics.Int(BigInteger.valueOf(5)));
+		assertEquals(semantics.Int(BigInteger.valueOf(5)), returns[0]);
+	}
+
+	/**
+	 * Test deep recursion is limited by the maximum call depth,
+	 * rather than the stack of the thread executing the function.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCallDepth() throws Exception {
+		String testName = "recursion_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod sum = functions.get(0);
+		NameID name = new NameID(Trie.fromString(testName), sum.getName().get());
+		interpreter.setMaxCallDepth(10000);
+		// A small stack, which can't hold the calls without the segments
+		Object[] result = new Object[1];
+		Thread thread = new Thread(null, () -> {
+			try {
+				result[0] = execute(interpreter, name, sum, semantics.Int(BigInteger.valueOf(5000)))[0];
+			}
+			catch(Throwable e) {
+				result[0] = e;
+			}
+		}, testName, 256 * 1024);
+		thread.start();
+		thread.join();
+		assertEquals(semantics.Int(BigInteger.valueOf(5000 * 5001 / 2)), result[0]);
+
+		interpreter.setMaxCallDepth(100);
+		assertEquals(semantics.Int(BigInteger.valueOf(99 * 100 / 2)), execute(interpreter, name, sum, semantics.Int(BigInteger.valueOf(99)))[0]);
+		boolean exceeded = false;
+		try {
+			execute(interpreter, name, sum, semantics.Int(BigInteger.valueOf(100)));
+		}
+		catch(CallDepthException e) {
+			exceeded = true;
+		}
+		assertTrue(exceeded);
+		// The depth is restored after the calls fail
+		assertEquals(semantics.Int(BigInteger.valueOf(10)), execute(interpreter, name, sum, semantics.Int(BigInteger.valueOf(4)))[0]);
+		interpreter.close();
+	}
+
+	/**
+	 * Test the worker thread of each segment of the nested calls is reused,
+	 * when the calls reach the same segment again, and the workers stop once the interpreter is closed.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCallSegments() throws Exception {
+		String testName = "recursion_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod sum = functions.get(0);
+		Decl.FunctionOrMethod fib = functions.get(1);
+		interpreter.setMaxCallDepth(10000);
+		Set<Thread> before = callThreads();
+		// The calls of fib reach the first segment many times
+		NameID fibName = new NameID(Trie.fromString(testName), fib.getName().get());
+		assertEquals(semantics.Int(BigInteger.valueOf(4181)), execute(interpreter, fibName, fib, semantics.Int(BigInteger.valueOf(19)))[0]);
+		Set<Thread> workers = callThreads();
+		workers.removeAll(before);
+		assertEquals(1, workers.size());
+
+		NameID sumName = new NameID(Trie.fromString(testName), sum.getName().get());
+		int depth = QCInterpreter.CALLS_ON_CALLING_THREAD + 2 * QCInterpreter.CALLS_PER_SEGMENT;
+		assertEquals(semantics.Int(BigInteger.valueOf(depth * (depth + 1) / 2)), execute(interpreter, sumName, sum, semantics.Int(BigInteger.valueOf(depth)))[0]);
+		workers = callThreads();
+		workers.removeAll(before);
+		assertEquals(3, workers.size());
+		assertEquals(semantics.Int(BigInteger.valueOf(depth * (depth + 1) / 2)), execute(interpreter, sumName, sum, semantics.Int(BigInteger.valueOf(depth)))[0]);
+		Set<Thread> again = callThreads();
+		again.removeAll(before);
+		assertEquals(workers, again);
+
+		interpreter.close();
+		for(Thread worker : workers) {
+			worker.join(10000);
+			assertFalse(worker.isAlive());
+		}
+	}
+
+	/**
+	 * @return The live worker threads of the segments of the nested calls
+	 */
+	private static Set<Thread> callThreads() {
+		Set<Thread> threads = new HashSet<Thread>();
+		for(Thread thread : Thread.getAllStackTraces().keySet()) {
+			if(thread.isAlive() && thread.getName().startsWith("calls-")) {
+				threads.add(thread);
+			}
+		}
+		return threads;
+	}
+
+	/**
+	 * Test the inputs needing more nested calls than the maximum call depth
+	 * are skipped, and the other inputs are still tested.
+	 */
+	@Test
+	public void testCallDepthSkipped() throws IOException {
+		String testName = "recursion_1";
+		helper.compile(testName);
+		String[] args = new String[] {TEST_DIR + File.separatorChar + testName, "exhaustive", "20", "0", "20", "--max-call-depth=8"};
+		PrintStream out = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			assertEquals(Result.PASSED, helper.createRunTest(args));
+		}
+		finally {
+			System.setOut(out);
+		}
+		String results = output.toString();
+		// sum(n) needs n+1 nested calls, and fib(n) needs n
+		assertTrue(results.contains("Call depth exceeded 8 when calling recursion_1:sum: [8]"));
+		assertTrue(results.contains("Ok: 8 passed  (40.00 %), 12 skipped (60.00 %), ran 20 tests"));
+		assertTrue(results.contains("Ok: 9 passed  (45.00 %), 11 skipped (55.00 %), ran 20 tests"));
+	}
 }
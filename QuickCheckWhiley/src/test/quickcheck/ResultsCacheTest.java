@@ -0,0 +1,155 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.RunTest.Result;
+import quickcheck.cache.FunctionHash;
+import quickcheck.cache.ResultsCache;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wyc.lang.WhileyFile.Decl;
+
+/**
+ * Test the hash of each function and the cache of results
+ * used to skip the functions that haven't changed.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ResultsCacheTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	/**
+	 * Test the hash of a function is unchanged when an unrelated function changes,
+	 * but changes when a function or type it uses changes.
+	 * @throws IOException
+	 */
+	@Test
+	public void testFunctionHash() throws IOException {
+		String original = hashFunction("cache_1", 0);
+		assertEquals(original, hashFunction("cache_1", 0));
+		assertNotEquals(original, hashFunction("cache_1", 1));
+		// Adding another function
+		assertEquals(original, hashFunction("cache_2", 0));
+		// Changing the postcondition of the function called
+		assertNotEquals(original, hashFunction("cache_3", 0));
+		// Changing the invariant of the parameter's type
+		assertNotEquals(original, hashFunction("cache_4", 0));
+	}
+
+	/**
+	 * Test the results are stored and read from the file,
+	 * and only used when the hash is the same.
+	 * @throws IOException
+	 */
+	@Test
+	public void testResultsStored() throws IOException {
+		File file = File.createTempFile("quickcheck", ".cache");
+		file.deleteOnExit();
+		ResultsCache cache = new ResultsCache(file);
+		cache.put("test::f", "abc", Result.PASSED);
+		cache.put("test::g", "def", Result.FAILED);
+		cache.save();
+
+		cache = new ResultsCache(file);
+		cache.load();
+		assertEquals(Result.PASSED, cache.get("test::f", "abc"));
+		assertEquals(Result.FAILED, cache.get("test::g", "def"));
+		assertNull(cache.get("test::f", "def"));
+		assertNull(cache.get("test::h", "abc"));
+	}
+
+	/**
+	 * Test the functions which passed are skipped
+	 * when they are tested again with the same configuration.
+	 * @throws IOException
+	 */
+	@Test
+	public void testSkipUnchanged() throws IOException {
+		String testName = "cache_1";
+		helper.compile(testName);
+		File file = File.createTempFile("quickcheck", ".cache");
+		file.delete();
+		file.deleteOnExit();
+		String cacheOption = "--cache=" + file.getPath();
+		String[] args = new String[] {TEST_DIR + File.separatorChar + testName, "random", "10", "0", "5", cacheOption};
+
+		String output = runTest(args);
+		assertFalse(output.contains("Unchanged"));
+		assertEquals(2, Files.readAllLines(file.toPath()).size());
+		output = runTest(args);
+		assertEquals(2, count(output, "Unchanged since it was last tested"));
+		assertFalse(output.contains("INPUT"));
+		// Tested again with fewer tests
+		output = runTest(new String[] {TEST_DIR + File.separatorChar + testName, "random", "10", "0", "5", cacheOption, "--cache-downsample=5"});
+		assertEquals(4, count(output, "INPUT"));
+		// A different configuration is tested again
+		output = runTest(new String[] {TEST_DIR + File.separatorChar + testName, "random", "20", "0", "5", cacheOption});
+		assertFalse(output.contains("Unchanged"));
+	}
+
+	/**
+	 * Get the hash of a function in a file
+	 * @param testName The name of the file
+	 * @param index The index of the function in the file
+	 * @return The hash of the function
+	 * @throws IOException
+	 */
+	private String hashFunction(String testName, int index) throws IOException {
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		return new FunctionHash(interpreter.getTypeSystem()).hash(functions.get(index));
+	}
+
+	/**
+	 * Run the tests, capturing the output
+	 * @param args The command line arguments
+	 * @return The output of the tests
+	 */
+	private String runTest(String[] args) {
+		PrintStream out = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			assertEquals(Result.PASSED, helper.createRunTest(args));
+		}
+		finally {
+			System.setOut(out);
+		}
+		return output.toString();
+	}
+
+	/**
+	 * Count the number of times some text occurs in the output
+	 * @param output The output
+	 * @param text The text
+	 * @return The number of occurrences
+	 */
+	private int count(String output, String text) {
+		int count = 0;
+		int index = output.indexOf(text);
+		while(index >= 0) {
+			count++;
+			index = output.indexOf(text, index + text.length());
+		}
+		return count;
+	}
+}
@@ -0,0 +1,335 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.RunTest;
+import quickcheck.RunTest.Result;
+import quickcheck.exception.IntegerRangeException;
+import quickcheck.generator.ExhaustiveGenerateTest;
+import quickcheck.generator.GenerateTest;
+import quickcheck.generator.RandomGenerateTest;
+import quickcheck.shard.Shard;
+import quickcheck.shard.ShardResults;
+import quickcheck.shard.ShardResults.FunctionResult;
+import quickcheck.util.TestStatistics;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.util.AbstractCompilationUnit.Identifier;
+import wybs.util.AbstractCompilationUnit.Tuple;
+import wyc.lang.WhileyFile.Decl;
+import wyc.lang.WhileyFile.Type;
+import wyil.interpreter.ConcreteSemantics.RValue;
+import wyil.interpreter.Interpreter;
+
+/**
+ * Test the tests split between shards are the same
+ * as the tests executed by a single process.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ShardTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+	/**
+	 * Base interpreter used for the tests that do not require reading from a test file
+	 */
+	private static Interpreter baseInterpreter;
+
+	@BeforeClass
+	public static void setupClass() throws IOException {
+		Build.Project project = helper.createProject();
+		baseInterpreter = new QCInterpreter(project, System.out);
+	}
+
+	/**
+	 * Test the number of tests belonging to each shard
+	 */
+	@Test
+	public void testShardSize() {
+		Shard shard = Shard.parse("1/3");
+		assertTrue(shard.isPartitioned());
+		assertFalse(shard.contains(0));
+		assertTrue(shard.contains(4));
+		assertEquals(0, shard.size(1));
+		assertEquals(1, shard.size(2));
+		assertEquals(3, shard.size(9));
+		assertEquals(4, shard.size(11));
+		assertFalse(Shard.ALL.isPartitioned());
+		assertEquals(10, Shard.ALL.size(10));
+	}
+
+	/**
+	 * Test the exhaustive tests of each shard
+	 * interleave to give the tests of a single process.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testExhaustiveShards() throws IntegerRangeException {
+		Tuple<Decl.Variable> parameters = intParameters();
+		BigInteger lower = BigInteger.valueOf(-2);
+		BigInteger upper = BigInteger.valueOf(3);
+		List<List<RValue>> expected = generateAll(new ExhaustiveGenerateTest(parameters, baseInterpreter, 100, lower, upper));
+		assertEquals(25, expected.size());
+		int numShards = 3;
+		List<List<List<RValue>>> shards = new ArrayList<List<List<RValue>>>();
+		for(int i=0; i < numShards; i++) {
+			shards.add(generateAll(new ExhaustiveGenerateTest(parameters, baseInterpreter, 100, lower, upper, new Shard(i, numShards))));
+		}
+		for(int i=0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), shards.get(i % numShards).get(i / numShards));
+		}
+		assertEquals(9 + 8 + 8, shards.get(0).size() + shards.get(1).size() + shards.get(2).size());
+	}
+
+	/**
+	 * Test the random tests of the shards, with the same seed,
+	 * are the tests of a single process with that seed.
+	 * @throws IntegerRangeException
+	 */
+	@Test
+	public void testRandomShards() throws IntegerRangeException {
+		Tuple<Decl.Variable> parameters = intParameters();
+		BigInteger lower = BigInteger.valueOf(-10);
+		BigInteger upper = BigInteger.valueOf(10);
+		int numTests = 50;
+		GenerateTest single = new RandomGenerateTest(parameters, baseInterpreter, numTests, lower, upper, new Random(7), Shard.ALL);
+		List<List<RValue>> expected = new ArrayList<List<RValue>>();
+		for(int i=0; i < numTests; i++) {
+			expected.add(Arrays.asList(single.generateParameters().clone()));
+		}
+		int numShards = 4;
+		for(int i=0; i < numShards; i++) {
+			Shard shard = new Shard(i, numShards);
+			GenerateTest testGen = new RandomGenerateTest(parameters, baseInterpreter, numTests, lower, upper, new Random(7), shard);
+			for(int j=0; j < shard.size(numTests); j++) {
+				assertEquals(expected.get(i + j * numShards), Arrays.asList(testGen.generateParameters()));
+			}
+		}
+	}
+
+	/**
+	 * Test merging the results of the shards gives
+	 * the same statistics as testing in a single process.
+	 * @throws IOException
+	 */
+	@Test
+	public void testMerge() throws IOException {
+		helper.compile("cache_2");
+		helper.compile("coverage_1");
+		String[] files = {TEST_DIR + File.separatorChar + "cache_2", TEST_DIR + File.separatorChar + "coverage_1"};
+		for(String testType : new String[] {"exhaustive", "random", "boundary"}) {
+			for(String file : files) {
+				// More tests than the combinations, and fewer tests
+				assertMerged(file, testType, "30");
+				assertMerged(file, testType, "4");
+			}
+		}
+	}
+
+	/**
+	 * Check the merged results of 3 shards are the results of a single process
+	 * @param file The WyIL file tested
+	 * @param testType The type of tests
+	 * @param numTests The number of tests
+	 * @throws IOException
+	 */
+	private void assertMerged(String file, String testType, String numTests) throws IOException {
+		File single = runShard(file, testType, numTests, null);
+		List<File> shardFiles = new ArrayList<File>();
+		for(int i=0; i < 3; i++) {
+			shardFiles.add(runShard(file, testType, numTests, i + "/3"));
+		}
+		ShardResults expected = ShardResults.load(single);
+		ShardResults merged = ShardResults.load(shardFiles.get(0));
+		merged.merge(ShardResults.load(shardFiles.get(1)));
+		merged.merge(ShardResults.load(shardFiles.get(2)));
+		assertEquals(expected.getResults().size(), merged.getResults().size());
+		Iterator<FunctionResult> iter = merged.getResults().iterator();
+		for(FunctionResult result : expected.getResults()) {
+			FunctionResult mergedResult = iter.next();
+			assertEquals(result.getKey(), mergedResult.getKey());
+			assertStatistics(testType + " " + numTests + " " + result.getKey(), result.getStatistics(), mergedResult.getStatistics());
+		}
+		assertEquals(Result.PASSED, merge(shardFiles));
+	}
+
+	/**
+	 * Test results from different types of tests cannot be merged.
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testMergeDifferentTypes() throws IOException {
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		merge(Arrays.asList(runShard(file, "exhaustive", "10", "0/2"), runShard(file, "random", "10", "1/2")));
+	}
+
+	/**
+	 * Test the results of a shard cannot be merged twice.
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testMergeDuplicateShard() throws IOException {
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		File shard = runShard(file, "exhaustive", "10", "0/2");
+		merge(Arrays.asList(shard, runShard(file, "exhaustive", "10", "1/2"), shard));
+	}
+
+	/**
+	 * Test results from tests split into different numbers of shards cannot be merged.
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testMergeDifferentCounts() throws IOException {
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		merge(Arrays.asList(runShard(file, "exhaustive", "10", "0/2"), runShard(file, "exhaustive", "10", "1/3")));
+	}
+
+	/**
+	 * Test the missing shards are found, and all the combinations
+	 * are not reported as tested when a shard is missing.
+	 * @throws IOException
+	 */
+	@Test
+	public void testMergeMissingShard() throws IOException {
+		helper.compile("coverage_1");
+		String file = TEST_DIR + File.separatorChar + "coverage_1";
+		File first = runShard(file, "exhaustive", "30", "0/3");
+		File second = runShard(file, "exhaustive", "30", "1/3");
+		File third = runShard(file, "exhaustive", "30", "2/3");
+		ShardResults merged = ShardResults.load(first);
+		merged.merge(ShardResults.load(third));
+		assertEquals(1, merged.getMissingShards().size());
+		assertEquals("1/3", merged.getMissingShards().get(0).toString());
+
+		PrintStream out = System.out;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output));
+		try {
+			RunTest.merge(Arrays.asList(first, third));
+			assertTrue(output.toString().contains("Warning: the results of the shards [1/3] are missing"));
+			assertFalse(output.toString().contains("Tested all possible combinations"));
+			output.reset();
+			RunTest.merge(Arrays.asList(first, second, third));
+			assertFalse(output.toString().contains("Warning"));
+			assertTrue(output.toString().contains("Tested all possible combinations"));
+		}
+		finally {
+			System.setOut(out);
+		}
+	}
+
+	/**
+	 * Check the statistics are the same
+	 * @param message The message if they are different
+	 * @param expected The expected statistics
+	 * @param actual The actual statistics
+	 */
+	private void assertStatistics(String message, TestStatistics expected, TestStatistics actual) {
+		assertEquals(message, expected.getNumTest(), actual.getNumTest());
+		assertEquals(message, expected.getNumPassed(), actual.getNumPassed());
+		assertEquals(message, expected.getNumFailed(), actual.getNumFailed());
+		assertEquals(message, expected.getNumSkipped(), actual.getNumSkipped());
+		assertEquals(message, expected.hasCompletedAll(), actual.hasCompletedAll());
+		assertEquals(message, expected.hasErrors(), actual.hasErrors());
+	}
+
+	/**
+	 * Execute the tests of a shard, writing its results to a temporary file
+	 * @param file The WyIL file tested
+	 * @param testType The type of tests
+	 * @param numTests The number of tests
+	 * @param shard The shard, or null if the tests are not split
+	 * @return The file containing the results
+	 * @throws IOException
+	 */
+	private File runShard(String file, String testType, String numTests, String shard) throws IOException {
+		File results = File.createTempFile("quickcheck", ".results");
+		results.deleteOnExit();
+		List<String> args = new ArrayList<String>(Arrays.asList(file, testType, numTests, "-3", "3",
+				"--seed=11", "--results=" + results.getPath()));
+		if(shard != null) {
+			args.add("--shard=" + shard);
+		}
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {}
+		}));
+		try {
+			helper.createRunTest(args.toArray(new String[args.size()]));
+		}
+		finally {
+			System.setOut(out);
+		}
+		return results;
+	}
+
+	/**
+	 * Merge the results, without printing them
+	 * @param files The results of each shard
+	 * @return The merged result
+	 * @throws IOException
+	 */
+	private Result merge(List<File> files) throws IOException {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {}
+		}));
+		try {
+			return RunTest.merge(files);
+		}
+		finally {
+			System.setOut(out);
+		}
+	}
+
+	/**
+	 * @return Two integer parameters
+	 */
+	private Tuple<Decl.Variable> intParameters() {
+		Decl.Variable firstInt = new Decl.Variable(null, new Identifier("firstInt"), Type.Int);
+		Decl.Variable secondInt = new Decl.Variable(null, new Identifier("secondInt"), Type.Int);
+		return new Tuple<Decl.Variable>(firstInt, secondInt);
+	}
+
+	/**
+	 * Generate all the tests until all combinations have been generated
+	 * @param testGen The test generator
+	 * @return The parameters of each test
+	 */
+	private List<List<RValue>> generateAll(GenerateTest testGen) {
+		List<List<RValue>> generated = new ArrayList<List<RValue>>();
+		while(!testGen.exceedSize()) {
+			// The exhaustive generator reuses the array of parameters
+			generated.add(Collections.unmodifiableList(Arrays.asList(testGen.generateParameters().clone())));
+		}
+		return generated;
+	}
+}
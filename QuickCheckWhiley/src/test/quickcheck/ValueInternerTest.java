@@ -0,0 +1,116 @@
+package test.quickcheck;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickcheck.QCInterpreter;
+import quickcheck.util.ValueInterner;
+import test.utils.TestHelper;
+import wybs.lang.Build;
+import wybs.lang.NameID;
+import wyc.lang.WhileyFile.Decl;
+import wyfs.util.Trie;
+import wyil.interpreter.ConcreteSemantics;
+import wyil.interpreter.ConcreteSemantics.RValue;
+
+/**
+ * Test the keys of the memoised function calls
+ * are equal exactly when the arguments are equal.
+ *
+ * @author Janice Chin
+ *
+ */
+public class ValueInternerTest {
+	/**
+	 * This directory contains the source files for each test case. Every test
+	 * corresponds to a file in this directory.
+	 */
+	private final static String TEST_DIR = "tests";
+
+	private final static TestHelper helper = new TestHelper(TEST_DIR);
+
+	private static final ConcreteSemantics semantics = new ConcreteSemantics();
+
+	/**
+	 * Test equal arguments have equal keys, even when they are different values,
+	 * and a value seen before is found by its identity.
+	 */
+	@Test
+	public void testEqualArguments() {
+		ValueInterner interner = new ValueInterner();
+		RValue first = intArray(1, 2, 3);
+		RValue second = intArray(1, 2, 3);
+		ValueInterner.Key key = interner.key(new RValue[] {first, semantics.Bool(true)});
+		assertEquals(key, interner.key(new RValue[] {second, semantics.Bool(true)}));
+		assertEquals(key.hashCode(), interner.key(new RValue[] {second, semantics.Bool(true)}).hashCode());
+		assertEquals(2, interner.size());
+		// The second array and the boolean were seen before
+		assertEquals(3, interner.getIdentityHits());
+		assertEquals(key, interner.key(new RValue[] {first, semantics.Bool(true)}));
+		assertEquals(5, interner.getIdentityHits());
+	}
+
+	/**
+	 * Test different arguments have different keys.
+	 */
+	@Test
+	public void testDifferentArguments() {
+		ValueInterner interner = new ValueInterner();
+		ValueInterner.Key key = interner.key(new RValue[] {intArray(1, 2, 3)});
+		assertNotEquals(key, interner.key(new RValue[] {intArray(3, 2, 1)}));
+		assertNotEquals(key, interner.key(new RValue[] {intArray(1, 2)}));
+		assertNotEquals(key, interner.key(new RValue[] {intArray(1, 2, 3), intArray()}));
+		assertNotEquals(interner.key(new RValue[] {intArray(), intArray(1)}), interner.key(new RValue[] {intArray(1), intArray()}));
+	}
+
+	/**
+	 * Test the values forgotten when too many values are seen
+	 * still have the same keys.
+	 */
+	@Test
+	public void testIdentityCapacity() {
+		ValueInterner interner = new ValueInterner(2);
+		RValue first = intArray(1);
+		ValueInterner.Key key = interner.key(new RValue[] {first});
+		interner.key(new RValue[] {intArray(2)});
+		interner.key(new RValue[] {intArray(3)});
+		assertEquals(key, interner.key(new RValue[] {first}));
+		assertEquals(key, interner.key(new RValue[] {intArray(1)}));
+		assertEquals(3, interner.size());
+	}
+
+	/**
+	 * Test memoised functions return the same values as executing them.
+	 */
+	@Test
+	public void testMemoisation() throws IOException {
+		String testName = "memo_1";
+		helper.compile(testName);
+		Build.Project project = helper.createProject();
+		QCInterpreter interpreter = new QCInterpreter(project, System.out, BigInteger.valueOf(-5), BigInteger.valueOf(5), true, false, 0);
+		List<Decl.FunctionOrMethod> functions = helper.getFunctionsAndMethods(testName, project);
+		Decl.FunctionOrMethod twice = functions.get(1);
+		NameID name = new NameID(Trie.fromString(testName), twice.getName().get());
+		for(int i=0; i < 3; i++) {
+			RValue[] returns = interpreter.execute(name, twice.getType(), interpreter.new CallStack(), true, true, intArray(i, 2, 3));
+			assertEquals(semantics.Int(BigInteger.valueOf(2 * (i + 5))), returns[0]);
+		}
+	}
+
+	/**
+	 * @param values The integers
+	 * @return An array of the integers
+	 */
+	private static RValue intArray(int... values) {
+		RValue[] elements = new RValue[values.length];
+		for(int i=0; i < values.length; i++) {
+			elements[i] = semantics.Int(BigInteger.valueOf(values[i]));
+		}
+		return semantics.Array(elements);
+	}
+}
@@ -28,6 +28,7 @@ import wycc.util.Pair;
 import wyfs.lang.Content;
 import wyfs.lang.Path;
 import wyfs.util.DirectoryRoot;
+import wyfs.util.JarFileRoot;
 import wyfs.util.Trie;
 
 /**
@@ -120,6 +121,9 @@ public class TestHelper {
 		String[] modifiedArgs = QuickCheck.prepareArguments(args);
 		Content.Registry registry = new wyc.Activator.Registry();
 		RunTest cmd = new RunTest(registry, Logger.NULL);
+		for(String message : QuickCheck.applyOptions(cmd, args)) {
+			System.out.println(message);
+		}
 		return cmd.execute(modifiedArgs);		
 	}
 	
@@ -136,6 +140,21 @@ public class TestHelper {
 		roots.add(root);
 		return new StdProject(roots);
 	}
+
+	/**
+	 * Create a project which can read the files of a library
+	 * @param library The jar file of the library, e.g. the standard library
+	 * @return A project to use for testing
+	 * @throws IOException
+	 */
+	public Build.Project createProject(String library) throws IOException {
+		Content.Registry registry = new wyc.Activator.Registry();
+		DirectoryRoot root = new DirectoryRoot(directory, registry);
+		ArrayList<Path.Root> roots = new ArrayList<>();
+		roots.add(root);
+		roots.add(new JarFileRoot(library, registry));
+		return new StdProject(roots);
+	}
 	
 	/**
 	 * Get the functions from the testName file